@@ -0,0 +1,31 @@
+package ch.fhnw.huffman;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which adds the allocation rate
+ * in MB/s and bytes per operation to every result. Meant to be run from the
+ * project root, so the research inputs are found, for example from an IDE.
+ * The build runs the same benchmarks with {@code gradle jmh}, which passes
+ * {@code -prof gc} to the JMH launcher instead.
+ */
+public class BenchmarkRunner {
+  /**
+   * Runs all benchmarks, or those matching a regular expression.
+   *
+   * @param args Optional regular expression of the benchmarks to run.
+   * @throws RunnerException If a benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(args.length > 0 ? args[0] : "ch\\.fhnw\\.huffman\\..*")
+        .addProfiler(GCProfiler.class)
+        .jvmArgsAppend("-Xmx8g")
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,95 @@
+package ch.fhnw.huffman;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks counting, encoding and decoding binary data of 1 KB up to 1 GB,
+ * as a single stream and as interleaved streams of a block. The largest
+ * corpus needs a heap of several GB, see {@link BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ByteCodecBenchmark {
+  @Param({"gaussian:1024", "gaussian:1048576", "gaussian:67108864",
+          "gaussian:1073741824", "random:1048576"})
+  public String corpus;
+
+  private ByteBuffer plainBytes;
+  private byte[] encodedBytes;
+  private long bitLength;
+  private HuffmanEncoder encoder;
+  private HuffmanDecoder decoder;
+  private HuffmanDecoder multiSymbolDecoder;
+  private ByteBuffer block;
+  private ByteBuffer interleavedBlock;
+
+  @Setup
+  public void setUp() {
+    plainBytes = ByteBuffer.wrap(Corpus.bytes(corpus));
+    Map<Integer, String> encoding =
+        HuffmanEncoding.computeEncoding(Histogram.ofBytes(plainBytes));
+    encoder = new HuffmanEncoder(encoding);
+    decoder = new HuffmanDecoder(encoding);
+    multiSymbolDecoder = new HuffmanDecoder(CodeTable.of(encoding), true);
+    encodedBytes = encoder.encode(plainBytes);
+    bitLength = HuffmanEncoding.payloadBitLength(encodedBytes);
+    block = BlockHuffmanCodec.encodeBlock(plainBytes, false);
+    interleavedBlock = BlockHuffmanCodec.encodeBlock(plainBytes, true);
+  }
+
+  @Benchmark
+  public Histogram countOccurrences(ProcessedBytes processed) {
+    processed.bytes += plainBytes.remaining();
+    return Histogram.ofBytes(plainBytes);
+  }
+
+  @Benchmark
+  public byte[] encode(ProcessedBytes processed) {
+    processed.bytes += plainBytes.remaining();
+    return encoder.encode(plainBytes);
+  }
+
+  @Benchmark
+  public byte[] decode(ProcessedBytes processed) {
+    processed.bytes += plainBytes.remaining();
+    return decoder.decodeBytes(encodedBytes, bitLength);
+  }
+
+  @Benchmark
+  public byte[] decodeMultiSymbol(ProcessedBytes processed) {
+    processed.bytes += plainBytes.remaining();
+    return multiSymbolDecoder.decodeBytes(encodedBytes, bitLength);
+  }
+
+  @Benchmark
+  public ByteBuffer decodeBlock(ProcessedBytes processed) {
+    processed.bytes += plainBytes.remaining();
+    return BlockHuffmanCodec.decodeBlock(block.duplicate(),
+                                         plainBytes.remaining());
+  }
+
+  @Benchmark
+  public ByteBuffer decodeInterleavedBlock(ProcessedBytes processed) {
+    processed.bytes += plainBytes.remaining();
+    return BlockHuffmanCodec.decodeBlock(interleavedBlock.duplicate(),
+                                         plainBytes.remaining());
+  }
+}
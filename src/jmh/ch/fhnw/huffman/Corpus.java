@@ -0,0 +1,96 @@
+package ch.fhnw.huffman;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Inputs of the benchmarks. A corpus is either one of the research inputs,
+ * given by its file name, or a synthetic one given as "kind:size", where size
+ * is the number of characters or bytes. Synthetic inputs are generated from a
+ * fixed seed, so every run measures the same data.
+ */
+public class Corpus {
+  /**
+   * Directory of the research inputs, relative to the project root the
+   * benchmarks are run from.
+   */
+  private static final Path RESEARCH_INPUTS = Path.of("research", "data", "in");
+  private static final long SEED = 42;
+
+  /**
+   * Returns a text corpus. Synthetic kinds are "skewed", with letter
+   * frequencies falling off exponentially, and "uniform", with 64 equally
+   * likely characters.
+   *
+   * @param corpus File name of a research input or "kind:size".
+   * @return The text of the corpus.
+   */
+  public static String text(String corpus) {
+    if (!corpus.contains(":")) {
+      try {
+        return Files.readString(RESEARCH_INPUTS.resolve(corpus));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    String[] parts = corpus.split(":");
+    int size = Integer.parseInt(parts[1]);
+    Random random = new Random(SEED);
+    StringBuilder text = new StringBuilder(size);
+    switch (parts[0]) {
+      case "skewed":
+        for (int i = 0; i < size; i++) {
+          int rank = (int) (-Math.log(1 - random.nextDouble()) / 0.3);
+          text.append(rank < 26 ? (char) ('a' + rank) : ' ');
+        }
+        break;
+      case "uniform":
+        for (int i = 0; i < size; i++) {
+          text.append((char) (' ' + random.nextInt(64)));
+        }
+        break;
+      default:
+        throw new IllegalArgumentException(
+            String.format("Unknown text corpus %s.", corpus));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Returns a binary corpus. Synthetic kinds are "gaussian", with byte values
+   * around 0 in a normal distribution, and "random", with all byte values
+   * equally likely. Research inputs are returned as their UTF-8 bytes.
+   *
+   * @param corpus File name of a research input or "kind:size".
+   * @return The bytes of the corpus.
+   */
+  public static byte[] bytes(String corpus) {
+    if (!corpus.contains(":")) {
+      try {
+        return Files.readAllBytes(RESEARCH_INPUTS.resolve(corpus));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    String[] parts = corpus.split(":");
+    int size = Integer.parseInt(parts[1]);
+    Random random = new Random(SEED);
+    byte[] bytes = new byte[size];
+    switch (parts[0]) {
+      case "gaussian":
+        for (int i = 0; i < size; i++) {
+          bytes[i] = (byte) (random.nextGaussian() * 20);
+        }
+        break;
+      case "random":
+        random.nextBytes(bytes);
+        break;
+      default:
+        throw new IllegalArgumentException(
+            String.format("Unknown binary corpus %s.", corpus));
+    }
+    return bytes;
+  }
+}
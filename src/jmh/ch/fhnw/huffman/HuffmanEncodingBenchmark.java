@@ -0,0 +1,114 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.HuffmanEncoding.HuffmanNode;
+import ch.fhnw.huffman.HuffmanEncoding.OccurrenceItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the steps of encoding and decoding text with
+ * {@link HuffmanEncoding}, from counting occurrences to decoding, as well as
+ * the packed encoder and decoder. Steps that work on the text count its UTF-8
+ * size in {@link ProcessedBytes}; building the tree and the table only
+ * depend on the alphabet and are reported in operations per second. Results
+ * of package-private types are handed to a Blackhole, since the generated
+ * benchmark code lives in another package.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HuffmanEncodingBenchmark {
+  @Param({"test1.txt", "test2.txt", "test3.txt", "skewed:1024",
+          "skewed:1048576", "skewed:16777216", "uniform:1024",
+          "uniform:1048576"})
+  public String corpus;
+
+  private String plainText;
+  private long plainSize;
+  private List<OccurrenceItem> occurrences;
+  private HuffmanNode tree;
+  private Map<Integer, String> encoding;
+  private String encodedText;
+  private byte[] encodedBytes;
+  private HuffmanEncoder encoder;
+  private HuffmanDecoder decoder;
+  private HuffmanDecoder multiSymbolDecoder;
+
+  @Setup
+  public void setUp() {
+    plainText = Corpus.text(corpus);
+    plainSize = plainText.getBytes(StandardCharsets.UTF_8).length;
+    occurrences = HuffmanEncoding.buildOccurrenceTable(plainText);
+    tree = HuffmanEncoding.computeEncodingTree(occurrences);
+    encoding = HuffmanEncoding.computeEncodingTable(tree);
+    encodedText = HuffmanEncoding.encodeInput(encoding, plainText);
+    encoder = new HuffmanEncoder(encoding);
+    decoder = new HuffmanDecoder(encoding);
+    multiSymbolDecoder = new HuffmanDecoder(CodeTable.of(encoding), true);
+    encodedBytes = encoder.encode(plainText);
+  }
+
+  @Benchmark
+  public void buildOccurrenceTable(ProcessedBytes processed, Blackhole bh) {
+    processed.bytes += plainSize;
+    bh.consume(HuffmanEncoding.buildOccurrenceTable(plainText));
+  }
+
+  @Benchmark
+  public void computeEncodingTree(Blackhole bh) {
+    bh.consume(HuffmanEncoding.computeEncodingTree(occurrences));
+  }
+
+  @Benchmark
+  public Map<Integer, String> computeEncodingTable() {
+    return HuffmanEncoding.computeEncodingTable(tree);
+  }
+
+  @Benchmark
+  public String encodeInput(ProcessedBytes processed) {
+    processed.bytes += plainSize;
+    return HuffmanEncoding.encodeInput(encoding, plainText);
+  }
+
+  @Benchmark
+  public String decodeText(ProcessedBytes processed) {
+    processed.bytes += plainSize;
+    return HuffmanEncoding.decodeText(encoding, encodedText);
+  }
+
+  @Benchmark
+  public byte[] encodePacked(ProcessedBytes processed) {
+    processed.bytes += plainSize;
+    return encoder.encode(plainText);
+  }
+
+  @Benchmark
+  public String decodePacked(ProcessedBytes processed) {
+    processed.bytes += plainSize;
+    return decoder.decode(encodedBytes, encodedText.length());
+  }
+
+  @Benchmark
+  public String decodePackedMultiSymbol(ProcessedBytes processed) {
+    processed.bytes += plainSize;
+    return multiSymbolDecoder.decode(encodedBytes, encodedText.length());
+  }
+}
@@ -0,0 +1,53 @@
+package ch.fhnw.huffman.commands;
+
+import ch.fhnw.huffman.Corpus;
+import ch.fhnw.huffman.ProcessedBytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the conversions between strings of binary digits and packed
+ * bytes in the commands. Throughput is counted in packed bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandCodecBenchmark {
+  @Param({"random:1024", "random:1048576", "random:16777216"})
+  public String corpus;
+
+  private byte[] packedBytes;
+  private String paddedBits;
+
+  @Setup
+  public void setUp() {
+    packedBytes = Corpus.bytes(corpus);
+    paddedBits = DecodeCommand.stringifyEncodedText(packedBytes);
+  }
+
+  @Benchmark
+  public byte[] binStringToByteArr(ProcessedBytes processed) {
+    processed.bytes += packedBytes.length;
+    return EncodeCommand.binStringToByteArr(paddedBits);
+  }
+
+  @Benchmark
+  public String stringifyEncodedText(ProcessedBytes processed) {
+    processed.bytes += packedBytes.length;
+    return DecodeCommand.stringifyEncodedText(packedBytes);
+  }
+}
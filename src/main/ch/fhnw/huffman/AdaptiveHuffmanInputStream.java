@@ -0,0 +1,120 @@
+package ch.fhnw.huffman;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static ch.fhnw.huffman.HuffmanEncoding.DEFAULT_MAX_CODE_LENGTH;
+
+/**
+ * Decodes a stream written by {@link AdaptiveHuffmanOutputStream} while it
+ * is read, updating its codes in lockstep with the encoder. Reads return as
+ * soon as a flushed part of the stream is decoded, so data flushed by the
+ * encoder is available without waiting for more input.
+ */
+public class AdaptiveHuffmanInputStream extends FilterInputStream {
+  private static final int END = -1;
+
+  private final AdaptiveModel model = new AdaptiveModel();
+  private final BitReader bits;
+  private boolean flushed = true;
+
+  /**
+   * Creates a stream decoding what is read from in.
+   *
+   * @param in Stream of the encoded bytes.
+   */
+  public AdaptiveHuffmanInputStream(InputStream in) {
+    super(in);
+    this.bits = new BitReader(in);
+  }
+
+  @Override public int read() throws IOException {
+    int symbol;
+    do {
+      symbol = decode();
+    } while (symbol == AdaptiveModel.FLUSH);
+    return symbol;
+  }
+
+  @Override public int read(byte[] b, int off, int len) throws IOException {
+    if ((off | len | b.length - off - len) < 0) {
+      throw new IndexOutOfBoundsException();
+    } else if (len == 0) {
+      return 0;
+    }
+    int n = 0;
+    while (n < len) {
+      int symbol = decode();
+      if (symbol == END) {
+        break;
+      } else if (symbol == AdaptiveModel.FLUSH) {
+        if (n > 0) {
+          break;
+        }
+      } else {
+        b[off + n++] = (byte) symbol;
+      }
+    }
+    return n == 0 ? END : n;
+  }
+
+  @Override public long skip(long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n && read() != END) {
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override public int available() {
+    return 0;
+  }
+
+  @Override public boolean markSupported() {
+    return false;
+  }
+
+  @Override public synchronized void mark(int readlimit) {
+  }
+
+  @Override public synchronized void reset() throws IOException {
+    throw new IOException("mark/reset not supported");
+  }
+
+  /**
+   * Decodes the next symbol bit by bit with the canonical code counts of the
+   * model. After a flush code, the rest of its byte is skipped.
+   *
+   * @return Byte value, FLUSH, or END at the end of the stream.
+   */
+  private int decode() throws IOException {
+    int code = 0;
+    int first = 0;
+    int index = 0;
+    for (int length = 1; length <= DEFAULT_MAX_CODE_LENGTH; length++) {
+      if (!bits.hasMore()) {
+        if (length == 1 && flushed) {
+          return END;
+        }
+        throw new IllegalArgumentException(
+            "Adaptive stream ends within a code.");
+      }
+      code |= (int) bits.read(1);
+      int count = model.lengthCount(length);
+      if (code - first < count) {
+        int symbol = model.sortedSymbol(index + code - first);
+        model.update(symbol);
+        flushed = symbol == AdaptiveModel.FLUSH;
+        if (flushed) {
+          bits.alignToByte();
+        }
+        return symbol;
+      }
+      index += count;
+      first = (first + count) << 1;
+      code <<= 1;
+    }
+    throw new IllegalArgumentException("Invalid code in adaptive stream.");
+  }
+}
@@ -0,0 +1,65 @@
+package ch.fhnw.huffman;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes bytes in a single pass as they are written, without a header or
+ * a first pass over the input. The codes adapt to the bytes written so far,
+ * see {@link AdaptiveModel}, and are decoded by
+ * {@link AdaptiveHuffmanInputStream}. Calling {@link #flush()} ends the
+ * current part of the stream with a flush code and fills up its last byte,
+ * so everything written so far can be decoded on the other side without
+ * waiting for more input; closing the stream flushes it.
+ */
+public class AdaptiveHuffmanOutputStream extends FilterOutputStream {
+  private final AdaptiveModel model = new AdaptiveModel();
+  private final BitWriter bits;
+  private boolean written = false;
+
+  /**
+   * Creates a stream encoding into out.
+   *
+   * @param out Stream the encoded bytes are written to.
+   */
+  public AdaptiveHuffmanOutputStream(OutputStream out) {
+    super(out);
+    this.bits = new BitWriter(out);
+  }
+
+  @Override public void write(int b) throws IOException {
+    encode(b & 0xFF);
+  }
+
+  @Override public void write(byte[] b, int off, int len) throws IOException {
+    if ((off | len | b.length - off - len) < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    for (int i = off; i < off + len; i++) {
+      encode(b[i] & 0xFF);
+    }
+  }
+
+  /**
+   * Writes a flush code unless nothing was written since the last flush,
+   * fills up the last byte with zeros and flushes the underlying stream.
+   *
+   * @throws IOException If writing fails.
+   */
+  @Override public void flush() throws IOException {
+    if (written) {
+      encode(AdaptiveModel.FLUSH);
+      bits.padToByte();
+      written = false;
+    }
+    bits.flush();
+    out.flush();
+  }
+
+  private void encode(int symbol) throws IOException {
+    bits.write(model.code(symbol), model.length(symbol));
+    model.update(symbol);
+    written = true;
+  }
+}
@@ -0,0 +1,125 @@
+package ch.fhnw.huffman;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Arrays;
+
+import static ch.fhnw.huffman.ByteHuffmanEncoding.ALPHABET_SIZE;
+import static ch.fhnw.huffman.HuffmanEncoding.DEFAULT_MAX_CODE_LENGTH;
+
+/**
+ * Symbol counts of an adaptive stream and the canonical codes computed from
+ * them. The encoder and the decoder each hold a model and update it with
+ * every symbol in the same order, so both rebuild the same codes at the same
+ * points without the codes ever being transmitted. All symbols start with a
+ * count of 1 and thus codes of about 8 bits. The codes are rebuilt after 64,
+ * 128, ... symbols, then after every REBUILD_INTERVAL symbols; counts are
+ * halved when their sum exceeds MAX_TOTAL, so the codes follow changes in
+ * the input.
+ */
+class AdaptiveModel {
+  /**
+   * Symbol ending a flushed part of the stream, after which the encoder
+   * fills up the last byte with zeros.
+   */
+  static final int FLUSH = ALPHABET_SIZE;
+  static final int SYMBOLS = ALPHABET_SIZE + 1;
+  @VisibleForTesting static final int FIRST_REBUILD = 64;
+  @VisibleForTesting static final int REBUILD_INTERVAL = 1 << 12;
+  @VisibleForTesting static final int MAX_TOTAL = 1 << 20;
+
+  private static final int[] SYMBOLS_IN_ORDER = new int[SYMBOLS];
+
+  static {
+    Arrays.setAll(SYMBOLS_IN_ORDER, symbol -> symbol);
+  }
+
+  private final int[] counts = new int[SYMBOLS];
+  private final long[] weights = new long[SYMBOLS];
+  private int total = SYMBOLS;
+  private int untilRebuild = FIRST_REBUILD;
+  private int nextInterval = 2 * FIRST_REBUILD;
+
+  /**
+   * Code bits of every symbol, right-aligned.
+   */
+  private final int[] codes = new int[SYMBOLS];
+  private final int[] lengths = new int[SYMBOLS];
+  /**
+   * Number of codes of every length and the symbols in canonical order,
+   * which is all that is needed to decode canonical codes.
+   */
+  private final int[] lengthCounts = new int[DEFAULT_MAX_CODE_LENGTH + 1];
+  private final int[] sortedSymbols = new int[SYMBOLS];
+
+  AdaptiveModel() {
+    Arrays.fill(counts, 1);
+    rebuild();
+  }
+
+  /**
+   * Counts a symbol and rebuilds the codes when it is time to.
+   *
+   * @param symbol Byte value or FLUSH.
+   */
+  void update(int symbol) {
+    counts[symbol]++;
+    total++;
+    if (--untilRebuild == 0) {
+      if (total > MAX_TOTAL) {
+        total = 0;
+        for (int i = 0; i < SYMBOLS; i++) {
+          counts[i] = (counts[i] + 1) >>> 1;
+          total += counts[i];
+        }
+      }
+      rebuild();
+      untilRebuild = nextInterval;
+      nextInterval = Math.min(2 * nextInterval, REBUILD_INTERVAL);
+    }
+  }
+
+  int code(int symbol) {
+    return codes[symbol];
+  }
+
+  int length(int symbol) {
+    return lengths[symbol];
+  }
+
+  /**
+   * Returns the number of codes with the given length.
+   */
+  int lengthCount(int length) {
+    return lengthCounts[length];
+  }
+
+  /**
+   * Returns the symbol at the given index in canonical order, ordered by
+   * code length and then by symbol.
+   */
+  int sortedSymbol(int index) {
+    return sortedSymbols[index];
+  }
+
+  private void rebuild() {
+    for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+      weights[symbol] = counts[symbol];
+    }
+    CodeTable table = HuffmanEncoding.computeCodeTable(
+        SYMBOLS_IN_ORDER, weights, SYMBOLS, DEFAULT_MAX_CODE_LENGTH);
+    Arrays.fill(lengthCounts, 0);
+    for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+      codes[symbol] = (int) table.code(symbol);
+      lengths[symbol] = table.length(symbol);
+      lengthCounts[lengths[symbol]]++;
+    }
+    int[] next = new int[DEFAULT_MAX_CODE_LENGTH + 1];
+    for (int length = 1; length < next.length; length++) {
+      next[length] = next[length - 1] + lengthCounts[length - 1];
+    }
+    for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+      sortedSymbols[next[lengths[symbol]]++] = symbol;
+    }
+  }
+}
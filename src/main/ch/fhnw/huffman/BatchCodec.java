@@ -0,0 +1,250 @@
+package ch.fhnw.huffman;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import static ch.fhnw.huffman.FileUtil.MAPPED_IO_THRESHOLD;
+
+/**
+ * Encodes or decodes many files concurrently on a fixed number of threads.
+ * Files are handed to the threads as they become free, so at most twice as
+ * many files as there are threads are waiting at once and at most two files
+ * per thread are open. Every file also reserves an estimate of the memory
+ * it needs, its size up to MAPPED_IO_THRESHOLD, from a memory budget, and
+ * waits until enough of the budget is free.
+ */
+public class BatchCodec {
+  private static final int KIB = 1 << 10;
+
+  private final FileCodec codec;
+  private final int threads;
+  private final int memoryBudgetKib;
+
+  /**
+   * Creates a batch codec running codec on the given number of threads,
+   * with half of the maximum heap size as memory budget.
+   *
+   * @param codec   Codec applied to every file.
+   * @param threads Number of files processed at once.
+   */
+  public BatchCodec(FileCodec codec, int threads) {
+    this(codec, threads, Runtime.getRuntime().maxMemory() / 2);
+  }
+
+  /**
+   * Creates a batch codec running codec on the given number of threads.
+   *
+   * @param codec        Codec applied to every file.
+   * @param threads      Number of files processed at once.
+   * @param memoryBudget Number of bytes the files processed at once may
+   *                     hold in memory.
+   */
+  public BatchCodec(FileCodec codec, int threads, long memoryBudget) {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+          String.format("Invalid number of threads %d.", threads));
+    }
+    if (memoryBudget < KIB) {
+      throw new IllegalArgumentException(
+          String.format("Invalid memory budget %d.", memoryBudget));
+    }
+    this.codec = codec;
+    this.threads = threads;
+    this.memoryBudgetKib = (int) Math.min(Integer.MAX_VALUE,
+                                          memoryBudget / KIB);
+  }
+
+  /**
+   * Processes all jobs and waits until they are done. A failing job is
+   * passed to onFailure, possibly from another thread, and doesn't stop the
+   * others from being processed.
+   *
+   * @param jobs      Files to process.
+   * @param onFailure Called with the input and the exception of every job
+   *                  that failed.
+   * @return Summary of the processed files.
+   */
+  public Summary run(List<Job> jobs, BiConsumer<Path, Exception> onFailure) {
+    long start = System.nanoTime();
+    AtomicInteger failed = new AtomicInteger();
+    AtomicLong bytesIn = new AtomicLong();
+    AtomicLong bytesOut = new AtomicLong();
+    Semaphore queued = new Semaphore(2 * threads);
+    Semaphore memory = new Semaphore(memoryBudgetKib);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (Job job : jobs) {
+        queued.acquireUninterruptibly();
+        executor.execute(() -> {
+          int reserved = 0;
+          try {
+            long size = Files.size(job.input);
+            reserved = memoryKib(size, memoryBudgetKib);
+            memory.acquireUninterruptibly(reserved);
+            Path parent = job.output.toAbsolutePath().getParent();
+            if (parent != null) {
+              Files.createDirectories(parent);
+            }
+            codec.apply(job.input, job.output);
+            bytesIn.addAndGet(size);
+            bytesOut.addAndGet(Files.size(job.output));
+          } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            onFailure.accept(job.input, e);
+          } finally {
+            memory.release(reserved);
+            queued.release();
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+      awaitTermination(executor);
+    }
+    return new Summary(jobs.size(), failed.get(), bytesIn.get(),
+                       bytesOut.get(), System.nanoTime() - start);
+  }
+
+  /**
+   * Estimates the memory needed to process a file of the given size: files
+   * below MAPPED_IO_THRESHOLD may be read into memory, larger ones are
+   * mapped.
+   */
+  @VisibleForTesting
+  static int memoryKib(long size, int memoryBudgetKib) {
+    long kib = Math.min(size, MAPPED_IO_THRESHOLD) / KIB + 1;
+    return (int) Math.min(kib, memoryBudgetKib);
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    boolean interrupted = false;
+    while (!executor.isTerminated()) {
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Encodes or decodes one file into another.
+   */
+  @FunctionalInterface
+  public interface FileCodec {
+    /**
+     * Processes input into output.
+     *
+     * @param input  Path of the file to read.
+     * @param output Path of the file to write.
+     * @throws IOException If reading or writing fails.
+     */
+    void apply(Path input, Path output) throws IOException;
+  }
+
+  /**
+   * One input file and the file its result is written to. Missing parent
+   * directories of the output are created.
+   */
+  @Immutable
+  public static class Job {
+    private final Path input;
+    private final Path output;
+
+    public Job(Path input, Path output) {
+      this.input = input;
+      this.output = output;
+    }
+
+    public Path getInput() {
+      return input;
+    }
+
+    public Path getOutput() {
+      return output;
+    }
+  }
+
+  /**
+   * Totals of a batch run.
+   */
+  @Immutable
+  public static class Summary {
+    private final int files;
+    private final int failed;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long wallNanos;
+
+    @VisibleForTesting
+    Summary(int files, int failed, long bytesIn, long bytesOut,
+            long wallNanos) {
+      this.files = files;
+      this.failed = failed;
+      this.bytesIn = bytesIn;
+      this.bytesOut = bytesOut;
+      this.wallNanos = wallNanos;
+    }
+
+    public int getFiles() {
+      return files;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    /**
+     * Returns the total size of the inputs that were processed.
+     *
+     * @return Number of bytes read, without the failed files.
+     */
+    public long getBytesIn() {
+      return bytesIn;
+    }
+
+    /**
+     * Returns the total size of the outputs that were written.
+     *
+     * @return Number of bytes written, without the failed files.
+     */
+    public long getBytesOut() {
+      return bytesOut;
+    }
+
+    public long getWallNanos() {
+      return wallNanos;
+    }
+
+    /**
+     * Returns the output size relative to the input size.
+     *
+     * @return bytesOut / bytesIn, or 1 if nothing was read.
+     */
+    public double getRatio() {
+      return bytesIn == 0 ? 1 : (double) bytesOut / bytesIn;
+    }
+
+    @Override public String toString() {
+      return String.format(
+          "%d files, %d failed, %d bytes in, %d bytes out, ratio %.3f, " +
+              "%.2f s", files, failed, bytesIn, bytesOut, getRatio(),
+          wallNanos / 1e9);
+    }
+  }
+}
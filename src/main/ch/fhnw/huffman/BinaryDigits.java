@@ -0,0 +1,54 @@
+package ch.fhnw.huffman;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts between strings of binary digits and packed bytes, most
+ * significant bit first, eight digits at a time. The digits are handled as
+ * ASCII bytes, which the Vector API kernels compare and blend a whole
+ * vector at a time when they are available, see {@link ByteKernels#get()}.
+ */
+public class BinaryDigits {
+  private BinaryDigits() {
+  }
+
+  /**
+   * Packs binary digits into an array. Digits beyond the room of the array
+   * are ignored, and bits without a digit stay as they are.
+   *
+   * @param digits String of binary digits. Every character other than '1' is
+   *               packed as a 0.
+   * @param packed Array receiving the packed bits from its start.
+   */
+  public static void pack(String digits, byte[] packed) {
+    int length = (int) Math.min(digits.length(), 8L * packed.length);
+    byte[] ascii = digits.getBytes(StandardCharsets.ISO_8859_1);
+    ByteKernels.get().pack(ascii, 0, packed, 0, length / 8);
+    for (int i = length & ~7; i < length; i++) {
+      if (ascii[i] == '1') {
+        packed[i >>> 3] |= (byte) (0x80 >>> (i & 7));
+      }
+    }
+  }
+
+  /**
+   * Expands the first bits of packed bytes into binary digits.
+   *
+   * @param packed    Packed bits.
+   * @param bitLength Number of bits to expand, at most 8 * packed.length.
+   * @return String of binary digits.
+   */
+  public static String expand(byte[] packed, long bitLength) {
+    if (bitLength > 8L * packed.length) {
+      throw new IllegalArgumentException(String.format(
+          "Can't expand %d bits from %d bytes.", bitLength, packed.length));
+    }
+    byte[] digits = new byte[Math.toIntExact(bitLength)];
+    int full = digits.length / 8;
+    ByteKernels.get().expand(packed, 0, digits, 0, full);
+    for (int i = 8 * full; i < digits.length; i++) {
+      digits[i] = (byte) ('0' + (packed[i >>> 3] >>> (7 - (i & 7)) & 1));
+    }
+    return new String(digits, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -0,0 +1,259 @@
+package ch.fhnw.huffman;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static ch.fhnw.huffman.HuffmanEncoding.STREAM_BUFFER_SIZE;
+
+/**
+ * Reads bits from packed bytes, most significant bit first, through a 64-bit
+ * accumulator, so up to 56 bits can be peeked at before they are consumed.
+ * The bytes are either held in a sequence of buffers or read from a channel
+ * or stream through a buffer of fixed size. Reading doesn't allocate.
+ *
+ * <p>Packed encoded bits read from a channel end with a 1 and 0 to 7 filler
+ * zeros, see {@link BitWriter#finish()}, so the number of bits belonging to
+ * the encoded text is only known once the last byte has been read. Until
+ * then, the last byte read is held back. Bits read from a stream have no
+ * filler and end where the stream ends.
+ */
+public class BitReader {
+  /**
+   * Maximum number of bits that can be peeked at once.
+   */
+  public static final int MAX_PEEK_BITS = 56;
+
+  private final ReadableByteChannel channel;
+  private final InputStream stream;
+  private final Iterator<ByteBuffer> buffers;
+  private ByteBuffer buffer;
+  private boolean endOfInput;
+  private long acc = 0;
+  private int accBits = 0;
+  /**
+   * Number of bits left to consume, -1 while unknown.
+   */
+  private long remaining;
+  private long position = 0;
+
+  /**
+   * Creates a reader of the first bitLength bits of an array.
+   *
+   * @param bytes     Packed bits.
+   * @param bitLength Number of bits to read.
+   */
+  public BitReader(byte[] bytes, long bitLength) {
+    this(ByteBuffer.wrap(bytes), bitLength);
+  }
+
+  /**
+   * Creates a reader of the first bitLength bits of a buffer, starting at its
+   * position. The position is advanced as the buffer is read.
+   *
+   * @param buffer    Buffer of packed bits.
+   * @param bitLength Number of bits to read.
+   */
+  public BitReader(ByteBuffer buffer, long bitLength) {
+    this(List.of(buffer).iterator(), bitLength);
+  }
+
+  /**
+   * Creates a reader of the first bitLength bits of a sequence of buffers,
+   * such as the mapped windows of a large file. The positions of the buffers
+   * are advanced as they are read.
+   *
+   * @param buffers   Buffers of packed bits in order.
+   * @param bitLength Number of bits to read.
+   */
+  public BitReader(Iterator<ByteBuffer> buffers, long bitLength) {
+    this.channel = null;
+    this.stream = null;
+    this.buffers = buffers;
+    this.buffer = ByteBuffer.allocate(0);
+    this.endOfInput = true;
+    this.remaining = bitLength;
+  }
+
+  /**
+   * Creates a reader of packed encoded bits followed by filler, which are
+   * read from a channel.
+   *
+   * @param channel Channel of the packed bits including filler.
+   */
+  public BitReader(ReadableByteChannel channel) {
+    this.channel = channel;
+    this.stream = null;
+    this.buffers = Collections.emptyIterator();
+    this.buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE).flip();
+    this.endOfInput = false;
+    this.remaining = -1;
+  }
+
+  /**
+   * Creates a reader of packed bits without filler, which are read from a
+   * stream. The stream is only read when the bits already read don't
+   * suffice, so bits are available as soon as they arrive.
+   *
+   * @param stream Stream of the packed bits.
+   */
+  public BitReader(InputStream stream) {
+    this.channel = null;
+    this.stream = stream;
+    this.buffers = Collections.emptyIterator();
+    this.buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE).flip();
+    this.endOfInput = false;
+    this.remaining = -1;
+  }
+
+  /**
+   * Returns whether there are bits left to consume.
+   *
+   * @return True unless the end of the input is reached.
+   * @throws IOException If reading fails.
+   */
+  public boolean hasMore() throws IOException {
+    if (accBits == 0 && remaining < 0) {
+      refill(1);
+    }
+    return remaining < 0 ? accBits > 0 : remaining > 0;
+  }
+
+  /**
+   * Returns the next bits without consuming them. Missing bits at the end of
+   * the input are read as zeros.
+   *
+   * @param bits Number of bits, at most MAX_PEEK_BITS.
+   * @return The bits, right-aligned.
+   * @throws IOException If reading fails.
+   */
+  public long peek(int bits) throws IOException {
+    if (accBits < bits) {
+      refill(bits);
+    }
+    long key = accBits >= bits ? acc >>> (accBits - bits)
+                               : acc << (bits - accBits);
+    return key & ((1L << bits) - 1);
+  }
+
+  /**
+   * Consumes bits that have been peeked at.
+   *
+   * @param bits Number of bits, at most the number peeked at.
+   */
+  public void consume(int bits) {
+    if (remaining >= 0 && remaining < bits || accBits < bits) {
+      throw new IllegalArgumentException("Encoded text ends within a code.");
+    }
+    accBits -= bits;
+    position += bits;
+    if (remaining >= 0) {
+      remaining -= bits;
+    }
+  }
+
+  /**
+   * Returns whether the given number of bits is left to consume. Only exact
+   * right after peeking at at least as many bits.
+   *
+   * @param bits Number of bits.
+   * @return True if consuming the bits doesn't pass the end of the input.
+   */
+  public boolean canConsume(int bits) {
+    return remaining < 0 ? accBits >= bits : remaining >= bits;
+  }
+
+  /**
+   * Reads and consumes the next bits.
+   *
+   * @param bits Number of bits, at most MAX_PEEK_BITS.
+   * @return The bits, right-aligned.
+   * @throws IOException If reading fails.
+   */
+  public long read(int bits) throws IOException {
+    long value = peek(bits);
+    consume(bits);
+    return value;
+  }
+
+  /**
+   * Skips the rest of the current byte, if any of its bits were consumed.
+   *
+   * @throws IOException If reading fails.
+   */
+  public void alignToByte() throws IOException {
+    int skip = (int) (-position & 7);
+    if (skip > 0) {
+      peek(skip);
+      consume(skip);
+    }
+  }
+
+  /**
+   * Returns the number of bits consumed so far.
+   *
+   * @return Number of bits consumed.
+   */
+  public long position() {
+    return position;
+  }
+
+  /**
+   * Moves bytes into the accumulator until it holds at least the needed
+   * bits, or the input ends. Bytes already in the buffer are moved while
+   * they fit, so the channel or stream is only read once they run out.
+   */
+  private void refill(int needed) throws IOException {
+    while (true) {
+      int available = endOfInput || stream != null ? buffer.remaining()
+                                                   : buffer.remaining() - 1;
+      while (accBits <= MAX_PEEK_BITS && available > 0) {
+        acc = (acc << 8) | (buffer.get() & 0xFF);
+        accBits += 8;
+        available--;
+      }
+      if (accBits >= needed) {
+        return;
+      }
+      if (buffers.hasNext()) {
+        buffer = buffers.next();
+      } else if (endOfInput) {
+        return;
+      } else {
+        buffer.compact();
+        int read = stream != null
+                   ? stream.read(buffer.array(), buffer.position(),
+                                 buffer.remaining())
+                   : channel.read(buffer);
+        if (read > 0 && stream != null) {
+          buffer.position(buffer.position() + read);
+        }
+        buffer.flip();
+        if (read < 0) {
+          endOfInput = true;
+          if (stream == null) {
+            remaining = countRemainingBits();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts the bits left in front of the filler once the whole input has
+   * been read.
+   */
+  private long countRemainingBits() {
+    if (!buffer.hasRemaining() ||
+            buffer.get(buffer.limit() - 1) == 0) {
+      throw new IllegalArgumentException("Encoded text has no filler.");
+    }
+    byte last = buffer.get(buffer.limit() - 1);
+    return accBits + 8L * (buffer.remaining() - 1) + 7 -
+               Integer.numberOfTrailingZeros(last);
+  }
+}
@@ -0,0 +1,158 @@
+package ch.fhnw.huffman;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import static ch.fhnw.huffman.HuffmanEncoding.STREAM_BUFFER_SIZE;
+
+/**
+ * Packs bits into bytes, most significant bit first. Bits are collected in a
+ * 64-bit accumulator and moved into a byte buffer a byte at a time. The
+ * buffer is either the final destination, such as an array sized to fit the
+ * output, or is handed to a stream or channel whenever it is full. Writing
+ * doesn't allocate.
+ */
+public class BitWriter {
+  private final ByteBuffer buffer;
+  private final OutputStream stream;
+  private final WritableByteChannel channel;
+  private long acc = 0;
+  private int accBits = 0;
+  private long position = 0;
+
+  /**
+   * Creates a writer filling an array from its start.
+   *
+   * @param bytes Array receiving the packed bits, which must be large enough
+   *              to hold all of them.
+   */
+  public BitWriter(byte[] bytes) {
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Creates a writer filling a buffer from its position.
+   *
+   * @param buffer Buffer receiving the packed bits, which must have enough
+   *               room left to hold all of them.
+   */
+  public BitWriter(ByteBuffer buffer) {
+    this(buffer, null, null);
+  }
+
+  /**
+   * Creates a writer handing the packed bits to a stream through a buffer of
+   * fixed size.
+   *
+   * @param stream Stream the packed bits are written to.
+   */
+  public BitWriter(OutputStream stream) {
+    this(ByteBuffer.allocate(STREAM_BUFFER_SIZE), stream, null);
+  }
+
+  /**
+   * Creates a writer handing the packed bits to a channel through a direct
+   * buffer of fixed size, so they reach the channel without being copied.
+   *
+   * @param channel Channel the packed bits are written to.
+   */
+  public BitWriter(WritableByteChannel channel) {
+    this(ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE), null, channel);
+  }
+
+  private BitWriter(ByteBuffer buffer, OutputStream stream,
+                    WritableByteChannel channel) {
+    this.buffer = buffer;
+    this.stream = stream;
+    this.channel = channel;
+  }
+
+  /**
+   * Appends the lowest bits of a code.
+   *
+   * @param code   Code bits, right-aligned. Bits above length are ignored.
+   * @param length Number of bits to write, at most 64.
+   * @throws IOException If handing a full buffer to the stream or channel
+   *                     fails.
+   */
+  public void write(long code, int length) throws IOException {
+    if (length > 57) {
+      acc = (acc << 32) | (code >>> (length - 32) & 0xFFFFFFFFL);
+      accBits += 32;
+      position += 32;
+      flushBytes();
+      length -= 32;
+    }
+    acc = (acc << length) | (code & ((1L << length) - 1));
+    accBits += length;
+    position += length;
+    flushBytes();
+  }
+
+  /**
+   * Fills up the last byte with zeros, unless the bits written so far end on
+   * a byte boundary.
+   *
+   * @throws IOException If handing a full buffer to the stream or channel
+   *                     fails.
+   */
+  public void padToByte() throws IOException {
+    if (accBits > 0) {
+      write(0, 8 - accBits);
+    }
+  }
+
+  /**
+   * Ends packed encoded bits with a 1 followed by as many zeros as needed to
+   * fill the last byte, which marks where the encoded bits end, and flushes
+   * the buffer.
+   *
+   * @throws IOException If writing to the stream or channel fails.
+   */
+  public void finish() throws IOException {
+    write(1, 1);
+    padToByte();
+    flush();
+  }
+
+  /**
+   * Hands all complete bytes to the stream or channel. Bits of an incomplete
+   * last byte stay in the accumulator. Without a stream or channel, the
+   * bytes already are in the buffer and nothing happens.
+   *
+   * @throws IOException If writing to the stream or channel fails.
+   */
+  public void flush() throws IOException {
+    if (stream != null) {
+      stream.write(buffer.array(), 0, buffer.position());
+      buffer.clear();
+    } else if (channel != null) {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Returns the number of bits written so far, including padding.
+   *
+   * @return Number of bits written.
+   */
+  public long position() {
+    return position;
+  }
+
+  private void flushBytes() throws IOException {
+    while (accBits >= 8) {
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      accBits -= 8;
+      buffer.put((byte) (acc >>> accBits));
+    }
+  }
+}
@@ -0,0 +1,496 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.CodecMetrics.Stage;
+import ch.fhnw.huffman.Metrics.Recording;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static ch.fhnw.huffman.ByteHuffmanEncoding.ALPHABET_SIZE;
+import static ch.fhnw.huffman.HuffmanEncoding.payloadBitLength;
+
+/**
+ * Compresses bytes in independent blocks of fixed size, so the blocks can be
+ * encoded and decoded in parallel. Every block has its own encoding table.
+ * The container starts with a header and an index of all blocks:
+ * <pre>
+ * int  magic number
+ * int  block size
+ * long plain size
+ * int  block count
+ * per block: long offset of the block in the container
+ *            int  encoded length of the block
+ * </pre>
+ * Each block starts with its type. A Huffman block continues with the
+ * {@link EncodingHeader} of its encoding and the packed encoded bytes
+ * including filler. A fill block, used for blocks made of a single byte
+ * value, only holds that value. A stored block holds the plain bytes as they
+ * are, and a run-length block their {@link RunLength} encoding.
+ *
+ * <p>The type of a block is chosen by its size. A {@link Compressibility}
+ * sample of the block tells whether it is worth counting: blocks whose
+ * entropy is too high for Huffman codes to pay off, such as compressed or
+ * encrypted data, are stored right away. Otherwise, the sizes of the
+ * Huffman block and, if the sample shows long runs, of the run-length block
+ * are computed, and the smallest of them and the stored block is written.
+ * So no block is more than one byte larger than its plain bytes.
+ *
+ * <p>An interleaved block splits its plain bytes into STREAMS consecutive
+ * segments of equal size, except for a shorter last one, which are encoded
+ * into separate streams with the same encoding. This lets the decoder
+ * advance all streams in one loop, see
+ * {@link HuffmanDecoder#decodeBytes(ByteBuffer[], long[], int[])}. After
+ * the encoding header, the block holds a jump table with the int encoded
+ * length of every stream but the last, followed by the streams, each
+ * including filler. Interleaved blocks are written when the codec is
+ * created with interleaved set, for blocks of at least
+ * MIN_INTERLEAVED_LENGTH bytes.
+ */
+@Immutable
+public class BlockHuffmanCodec {
+  /**
+   * Default number of plain bytes per block.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+  @VisibleForTesting static final int MAGIC = 0x48554642;
+  private static final int HEADER_SIZE = 20;
+  private static final int INDEX_ENTRY_SIZE = 12;
+  private static final byte HUFFMAN_BLOCK = 0;
+  private static final byte FILL_BLOCK = 1;
+  private static final byte INTERLEAVED_BLOCK = 2;
+  private static final byte STORED_BLOCK = 3;
+  private static final byte RUN_LENGTH_BLOCK = 4;
+  /**
+   * Number of streams of an interleaved block.
+   */
+  @VisibleForTesting static final int STREAMS = 4;
+  /**
+   * Minimum number of plain bytes of an interleaved block, below which the
+   * jump table isn't worth its size.
+   */
+  @VisibleForTesting static final int MIN_INTERLEAVED_LENGTH = 1024;
+
+  private final int blockSize;
+  private final ForkJoinPool pool;
+  private final boolean interleaved;
+
+  /**
+   * Creates a codec splitting its input into blocks of blockSize bytes, which
+   * are processed on the given pool.
+   *
+   * @param blockSize Number of plain bytes per block.
+   * @param pool      Pool the blocks are encoded and decoded on.
+   */
+  public BlockHuffmanCodec(int blockSize, ForkJoinPool pool) {
+    this(blockSize, pool, false);
+  }
+
+  /**
+   * Creates a codec splitting its input into blocks of blockSize bytes, which
+   * are processed on the given pool, optionally encoding blocks as
+   * interleaved streams that decode faster. Decoding handles both kinds of
+   * blocks either way.
+   *
+   * @param blockSize   Number of plain bytes per block.
+   * @param pool        Pool the blocks are encoded and decoded on.
+   * @param interleaved Whether to encode blocks as interleaved streams.
+   */
+  public BlockHuffmanCodec(int blockSize, ForkJoinPool pool,
+                           boolean interleaved) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException(
+          String.format("Invalid block size %d.", blockSize));
+    }
+    this.blockSize = blockSize;
+    this.pool = pool;
+    this.interleaved = interleaved;
+  }
+
+  /**
+   * Encodes the content of a file into a block container. At most twice as
+   * many blocks as the pool has threads are held in memory at once. Neither
+   * channel is closed.
+   *
+   * @param input  Channel of the file to encode.
+   * @param output Channel of the file the container is written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public void encode(FileChannel input, FileChannel output)
+      throws IOException {
+    try (Recording recording = Metrics.record(Operation.ENCODE)) {
+      encodeBlocks(input, output);
+      recording.setSizes(input.size(), output.size());
+    }
+  }
+
+  /**
+   * Decodes a block container into a file. Blocks are decoded and written to
+   * their place in the output in parallel. The block size is taken from the
+   * container. Neither channel is closed.
+   *
+   * @param input  Channel of the file holding the container.
+   * @param output Channel of the file the decoded bytes are written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public void decode(FileChannel input, FileChannel output)
+      throws IOException {
+    try (Recording recording = Metrics.record(Operation.DECODE)) {
+      decodeBlocks(input, output);
+      recording.setSizes(input.size(), output.size());
+    }
+  }
+
+  /**
+   * Encodes blocks on the pool. Their stages run on the threads of the pool
+   * and aren't measured, only the operation as a whole is.
+   */
+  private void encodeBlocks(FileChannel input, FileChannel output)
+      throws IOException {
+    long plainSize = input.size();
+    long blockCount = (plainSize + blockSize - 1) / blockSize;
+    if (blockCount > (Integer.MAX_VALUE - HEADER_SIZE) / INDEX_ENTRY_SIZE) {
+      throw new IllegalArgumentException(
+          String.format("Too many blocks for %d bytes.", plainSize));
+    }
+    ByteBuffer header =
+        ByteBuffer.allocate(HEADER_SIZE + (int) blockCount * INDEX_ENTRY_SIZE);
+    header.putInt(MAGIC).putInt(blockSize).putLong(plainSize)
+          .putInt((int) blockCount);
+    long position = header.capacity();
+    int batchSize = 2 * pool.getParallelism();
+    for (int first = 0; first < blockCount; first += batchSize) {
+      List<ForkJoinTask<ByteBuffer>> tasks = new ArrayList<>();
+      for (int i = first; i < Math.min(blockCount, first + batchSize); i++) {
+        long start = (long) i * blockSize;
+        int length = (int) Math.min(blockSize, plainSize - start);
+        tasks.add(pool.submit(() -> {
+          try {
+            return encodeBlock(read(input, start, length), interleaved);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }));
+      }
+      for (ForkJoinTask<ByteBuffer> task : tasks) {
+        ByteBuffer block = join(task);
+        header.putLong(position).putInt(block.remaining());
+        position += write(output, block, position);
+      }
+    }
+    write(output, header.flip(), 0);
+  }
+
+  private void decodeBlocks(FileChannel input, FileChannel output)
+      throws IOException {
+    ByteBuffer header = read(input, 0, HEADER_SIZE);
+    if (header.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a block container.");
+    }
+    int blockSize = header.getInt();
+    long plainSize = header.getLong();
+    int blockCount = header.getInt();
+    if (blockSize < 1 || blockCount < 0 ||
+            (plainSize + blockSize - 1) / blockSize != blockCount) {
+      throw new IllegalArgumentException("Corrupt block container header.");
+    }
+    ByteBuffer index =
+        read(input, HEADER_SIZE, blockCount * INDEX_ENTRY_SIZE);
+    int batchSize = 2 * pool.getParallelism();
+    for (int first = 0; first < blockCount; first += batchSize) {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>();
+      for (int i = first; i < Math.min(blockCount, first + batchSize); i++) {
+        long offset = index.getLong();
+        int length = index.getInt();
+        long start = (long) i * blockSize;
+        int plainLength = (int) Math.min(blockSize, plainSize - start);
+        tasks.add(pool.submit(() -> {
+          try {
+            write(output,
+                  decodeBlock(read(input, offset, length), plainLength),
+                  start);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        join(task);
+      }
+    }
+  }
+
+  /**
+   * Encodes a single block with its own encoding table.
+   *
+   * @param plainBytes Plain bytes of the block.
+   * @return The encoded block.
+   */
+  @VisibleForTesting
+  static ByteBuffer encodeBlock(ByteBuffer plainBytes) {
+    return encodeBlock(plainBytes, false);
+  }
+
+  /**
+   * Encodes a single block with its own encoding table, as interleaved
+   * streams if requested and the block is long enough.
+   *
+   * @param plainBytes  Plain bytes of the block.
+   * @param interleaved Whether to encode the block as interleaved streams.
+   * @return The encoded block.
+   */
+  @VisibleForTesting
+  static ByteBuffer encodeBlock(ByteBuffer plainBytes, boolean interleaved) {
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    Compressibility sample = Compressibility.sample(plainBytes);
+    boolean runs = sample.favorsRunLength();
+    if (!runs && sample.isIncompressible()) {
+      start = recording.lap(Stage.COUNT, start);
+      ByteBuffer block = storedBlock(plainBytes);
+      recording.lap(Stage.ENCODE, start);
+      return block;
+    }
+    int[] occurrences = new int[ALPHABET_SIZE];
+    ByteHuffmanEncoding.countOccurrences(plainBytes, occurrences);
+    int distinct = 0;
+    int lastSymbol = 0;
+    for (int b = 0; b < occurrences.length; b++) {
+      if (occurrences[b] > 0) {
+        distinct++;
+        lastSymbol = b;
+      }
+    }
+    recording.lap(Stage.COUNT, start);
+    if (distinct <= 1) {
+      return ByteBuffer.allocate(2).put(FILL_BLOCK).put((byte) lastSymbol)
+                       .flip();
+    }
+    CodeTable table = ByteHuffmanEncoding.computeCodeTable(occurrences);
+    recording.setTable(table);
+    HuffmanEncoder encoder = new HuffmanEncoder(table);
+    start = System.nanoTime();
+    byte[] header = EncodingHeader.pack(table);
+    start = recording.lap(Stage.PACK, start);
+    boolean interleave =
+        interleaved && plainBytes.remaining() >= MIN_INTERLEAVED_LENGTH;
+    long huffmanSize = huffmanBlockSize(table, occurrences, header.length,
+                                        interleave);
+    long runLengthSize =
+        runs ? 1 + RunLength.encodedSize(plainBytes) : Long.MAX_VALUE;
+    long storedSize = 1 + plainBytes.remaining();
+    ByteBuffer block;
+    if (runLengthSize < Math.min(huffmanSize, storedSize)) {
+      block = ByteBuffer.allocate((int) runLengthSize).put(RUN_LENGTH_BLOCK);
+      RunLength.encode(plainBytes, block);
+      block.flip();
+    } else if (storedSize <= huffmanSize) {
+      block = storedBlock(plainBytes);
+    } else if (interleave) {
+      block = encodeInterleaved(plainBytes, encoder, header);
+    } else {
+      byte[] encodedBytes = encoder.encode(plainBytes);
+      block = ByteBuffer.allocate(1 + header.length + encodedBytes.length)
+                        .put(HUFFMAN_BLOCK).put(header).put(encodedBytes)
+                        .flip();
+    }
+    recording.lap(Stage.ENCODE, start);
+    return block;
+  }
+
+  private static ByteBuffer storedBlock(ByteBuffer plainBytes) {
+    return ByteBuffer.allocate(1 + plainBytes.remaining()).put(STORED_BLOCK)
+                     .put(plainBytes.duplicate()).flip();
+  }
+
+  /**
+   * Computes the size of a Huffman block from the code lengths, without
+   * encoding it. For an interleaved block, it is an upper bound that
+   * assumes a full byte of filler for every stream.
+   */
+  private static long huffmanBlockSize(CodeTable table, int[] occurrences,
+                                       int headerLength,
+                                       boolean interleaved) {
+    long bitLength = 0;
+    for (int b = 0; b < occurrences.length; b++) {
+      if (occurrences[b] > 0) {
+        bitLength += (long) occurrences[b] * table.length(b);
+      }
+    }
+    return 1 + headerLength +
+               (interleaved ? bitLength / 8 + STREAMS + 4 * (STREAMS - 1)
+                            : bitLength / 8 + 1);
+  }
+
+  private static ByteBuffer encodeInterleaved(ByteBuffer plainBytes,
+                                              HuffmanEncoder encoder,
+                                              byte[] header) {
+    int[] plainLengths = segmentLengths(plainBytes.remaining());
+    byte[][] streams = new byte[STREAMS][];
+    int size = 1 + header.length + 4 * (STREAMS - 1);
+    int start = plainBytes.position();
+    for (int s = 0; s < STREAMS; s++) {
+      streams[s] = encoder.encode(
+          plainBytes.duplicate().limit(start + plainLengths[s])
+                    .position(start));
+      start += plainLengths[s];
+      size += streams[s].length;
+    }
+    ByteBuffer block =
+        ByteBuffer.allocate(size).put(INTERLEAVED_BLOCK).put(header);
+    for (int s = 0; s < STREAMS - 1; s++) {
+      block.putInt(streams[s].length);
+    }
+    for (byte[] stream : streams) {
+      block.put(stream);
+    }
+    return block.flip();
+  }
+
+  /**
+   * Splits the plain bytes of an interleaved block into segments.
+   */
+  private static int[] segmentLengths(int plainLength) {
+    int segment = (plainLength + STREAMS - 1) / STREAMS;
+    int[] lengths = new int[STREAMS];
+    for (int s = 0; s < STREAMS; s++) {
+      lengths[s] = Math.max(0, Math.min(segment, plainLength - s * segment));
+    }
+    return lengths;
+  }
+
+  /**
+   * Decodes a single block.
+   *
+   * @param block       The encoded block.
+   * @param plainLength Number of plain bytes in the block.
+   * @return The decoded bytes.
+   */
+  @VisibleForTesting
+  static ByteBuffer decodeBlock(ByteBuffer block, int plainLength) {
+    byte type = block.get();
+    if (type == FILL_BLOCK) {
+      byte[] plainBytes = new byte[plainLength];
+      Arrays.fill(plainBytes, block.get());
+      return ByteBuffer.wrap(plainBytes);
+    } else if (type == STORED_BLOCK) {
+      if (block.remaining() != plainLength) {
+        throw new IllegalArgumentException(String.format(
+            "Stored block holds %d instead of %d bytes.", block.remaining(),
+            plainLength));
+      }
+      byte[] plainBytes = new byte[plainLength];
+      block.get(plainBytes);
+      return ByteBuffer.wrap(plainBytes);
+    } else if (type == RUN_LENGTH_BLOCK) {
+      Recording recording = Metrics.current();
+      long start = System.nanoTime();
+      byte[] plainBytes = RunLength.decode(block, plainLength);
+      recording.lap(Stage.DECODE, start);
+      return ByteBuffer.wrap(plainBytes);
+    } else if (type == INTERLEAVED_BLOCK) {
+      return decodeInterleaved(block, plainLength);
+    } else if (type != HUFFMAN_BLOCK) {
+      throw new IllegalArgumentException(
+          String.format("Unknown block type %d.", type));
+    }
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    CodeTable table = EncodingHeader.unpackTable(block);
+    start = recording.lap(Stage.TABLE, start);
+    recording.setTable(table);
+    byte[] encodedBytes = new byte[block.remaining()];
+    block.get(encodedBytes);
+    long bitLength = payloadBitLength(encodedBytes);
+    byte[] plainBytes = new HuffmanDecoder(
+        table, HuffmanDecoder.prefersMultiSymbol(plainLength, bitLength))
+        .decodeBytes(encodedBytes, bitLength);
+    recording.lap(Stage.DECODE, start);
+    if (plainBytes.length != plainLength) {
+      throw new IllegalArgumentException(String.format(
+          "Block decoded to %d instead of %d bytes.", plainBytes.length,
+          plainLength));
+    }
+    return ByteBuffer.wrap(plainBytes);
+  }
+
+  private static ByteBuffer decodeInterleaved(ByteBuffer block,
+                                              int plainLength) {
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    CodeTable table = EncodingHeader.unpackTable(block);
+    start = recording.lap(Stage.TABLE, start);
+    recording.setTable(table);
+    if (block.remaining() < 4 * (STREAMS - 1)) {
+      throw new IllegalArgumentException("Jump table truncated.");
+    }
+    int[] encodedLengths = new int[STREAMS];
+    // The last stream takes up the rest of the block.
+    int last = block.remaining() - 4 * (STREAMS - 1);
+    for (int s = 0; s < STREAMS - 1; s++) {
+      encodedLengths[s] = block.getInt();
+      if (encodedLengths[s] < 1) {
+        throw new IllegalArgumentException("Corrupt jump table.");
+      }
+      last -= encodedLengths[s];
+    }
+    if (last < 1) {
+      throw new IllegalArgumentException("Corrupt jump table.");
+    }
+    encodedLengths[STREAMS - 1] = last;
+    ByteBuffer[] streams = new ByteBuffer[STREAMS];
+    long[] bitLengths = new long[STREAMS];
+    for (int s = 0; s < STREAMS; s++) {
+      streams[s] = block.slice().limit(encodedLengths[s]);
+      block.position(block.position() + encodedLengths[s]);
+      bitLengths[s] = payloadBitLength(streams[s]);
+    }
+    byte[] plainBytes = new HuffmanDecoder(table).decodeBytes(
+        streams, bitLengths, segmentLengths(plainLength));
+    recording.lap(Stage.DECODE, start);
+    return ByteBuffer.wrap(plainBytes);
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position,
+                                 int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IllegalArgumentException("Block container truncated.");
+      }
+    }
+    return buffer.flip();
+  }
+
+  private static int write(FileChannel channel, ByteBuffer buffer,
+                           long position) throws IOException {
+    int length = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + length - buffer.remaining());
+    }
+    return length;
+  }
+
+  /**
+   * Waits for a task and rethrows I/O errors that happened while running it.
+   * Tasks wrap them in UncheckedIOException, since they can't throw checked
+   * exceptions through the pool.
+   */
+  private static <T> T join(ForkJoinTask<T> task) throws IOException {
+    try {
+      return task.join();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.CodecMetrics.Stage;
+import ch.fhnw.huffman.HuffmanEncoding.HuffmanNode;
+import ch.fhnw.huffman.HuffmanEncoding.OccurrenceItem;
+import ch.fhnw.huffman.Metrics.Recording;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static ch.fhnw.huffman.HuffmanEncoding.STREAM_BUFFER_SIZE;
+import static ch.fhnw.huffman.HuffmanEncoding.DEFAULT_MAX_CODE_LENGTH;
+import static ch.fhnw.huffman.HuffmanEncoding.parseEncoding;
+import static ch.fhnw.huffman.HuffmanEncoding.payloadBitLength;
+
+/**
+ * Class to handle Huffman-encoding of arbitrary bytes instead of text. Every
+ * byte value is a symbol, so the alphabet has a fixed size of 256 and
+ * occurrences are counted in a plain array.
+ */
+@Immutable
+public class ByteHuffmanEncoding {
+  /**
+   * Number of distinct symbols when encoding bytes.
+   */
+  public static final int ALPHABET_SIZE = 256;
+
+  private final byte[] plainBytes;
+  private final CodeTable table;
+  private final byte[] encodedBytes;
+
+  /**
+   * Public interface function to create encoding table and encode bytes
+   * accordingly.
+   *
+   * @param plainBytes The bytes to encode.
+   * @return The created instance of the huffman-encoding.
+   */
+  public static ByteHuffmanEncoding fromPlainBytes(byte[] plainBytes) {
+    return new ByteHuffmanEncoding(plainBytes);
+  }
+
+  /**
+   * Public interface function to decode encoded bytes.
+   *
+   * @param encoding     The encoding scheme that was used to encode the plain
+   *                     bytes.
+   * @param encodedBytes The packed bits of the encoded bytes, followed by a 1
+   *                     and 0 to 7 filler zeros.
+   * @return The created instance of the huffman-encoding.
+   */
+  public static ByteHuffmanEncoding fromEncoding(String encoding,
+                                                 byte[] encodedBytes) {
+    return new ByteHuffmanEncoding(CodeTable.of(parseEncoding(encoding)),
+                                   encodedBytes);
+  }
+
+  /**
+   * Public interface function to decode encoded bytes with the encoding given
+   * as binary header.
+   *
+   * @param encodingHeader The header of the encoding scheme, as written by
+   *                       {@link EncodingHeader#pack(Map)}.
+   * @param encodedBytes   The packed bits of the encoded bytes, followed by a
+   *                       1 and 0 to 7 filler zeros.
+   * @return The created instance of the huffman-encoding.
+   */
+  public static ByteHuffmanEncoding fromEncoding(byte[] encodingHeader,
+                                                 byte[] encodedBytes) {
+    return new ByteHuffmanEncoding(
+        EncodingHeader.unpackTable(ByteBuffer.wrap(encodingHeader)),
+        encodedBytes);
+  }
+
+  /**
+   * Public interface function to create the encoding table for bytes that
+   * are read from a channel instead of being held in memory. The channel is
+   * read once to count occurrences, so the bytes can then be encoded in a
+   * second pass with
+   * {@link HuffmanEncoder#encode(ReadableByteChannel,
+   * java.nio.channels.WritableByteChannel)}.
+   *
+   * @param plainBytes Channel of the bytes to encode.
+   * @return Map from byte value to binary string encoding.
+   * @throws IOException If reading from the channel fails.
+   */
+  public static Map<Integer, String> computeEncoding(
+      ReadableByteChannel plainBytes) throws IOException {
+    int[] occurrences = new int[ALPHABET_SIZE];
+    ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+    while (plainBytes.read(buffer) >= 0) {
+      countOccurrences(buffer.flip(), occurrences);
+      buffer.clear();
+    }
+    return computeEncoding(occurrences);
+  }
+
+  /**
+   * Public interface function to create the encoding table from occurrences
+   * counted with {@link #countOccurrences(ByteBuffer, int[])}.
+   *
+   * @param occurrences Occurrence count of every byte value.
+   * @return Map from byte value to binary string encoding.
+   */
+  public static Map<Integer, String> computeEncoding(int[] occurrences) {
+    return computeCodeTable(occurrences).asMap();
+  }
+
+  /**
+   * Public interface function to create the code table from occurrences
+   * counted with {@link #countOccurrences(ByteBuffer, int[])}, without
+   * building the map form of the encoding.
+   *
+   * @param occurrences Occurrence count of every byte value.
+   * @return Table of canonical codes indexed by byte value.
+   */
+  public static CodeTable computeCodeTable(int[] occurrences) {
+    int n = 0;
+    for (int count : occurrences) {
+      if (count > 0) {
+        n++;
+      }
+    }
+    int[] symbols = new int[n];
+    long[] counts = new long[n];
+    for (int b = 0, i = 0; b < occurrences.length; b++) {
+      if (occurrences[b] > 0) {
+        symbols[i] = b;
+        counts[i++] = occurrences[b];
+      }
+    }
+    return HuffmanEncoding.computeCodeTable(symbols, counts, ALPHABET_SIZE,
+                                            DEFAULT_MAX_CODE_LENGTH);
+  }
+
+  /**
+   * Adds the occurrences of the remaining bytes in the buffer to the counts.
+   * The position of the buffer isn't changed.
+   *
+   * @param input       Plain bytes.
+   * @param occurrences Occurrence count of every byte value, indexed by the
+   *                    unsigned byte value.
+   */
+  public static void countOccurrences(ByteBuffer input, int[] occurrences) {
+    ByteKernels.get().count(input, input.position(), input.limit(),
+                            occurrences);
+  }
+
+  /**
+   * Constructor for encoding bytes.
+   *
+   * @param plainBytes Bytes to be encoded.
+   */
+  private ByteHuffmanEncoding(byte[] plainBytes) {
+    try (Recording recording = Metrics.record(Operation.ENCODE)) {
+      long start = System.nanoTime();
+      Histogram histogram = Histogram.ofBytes(ByteBuffer.wrap(plainBytes));
+      recording.lap(Stage.COUNT, start);
+      this.plainBytes = plainBytes;
+      this.table = HuffmanEncoding.computeCodeTable(histogram);
+      start = System.nanoTime();
+      this.encodedBytes =
+          new HuffmanEncoder(table).encode(ByteBuffer.wrap(plainBytes));
+      recording.lap(Stage.ENCODE, start);
+      recording.setTable(table);
+      recording.setSizes(plainBytes.length, encodedBytes.length);
+    }
+  }
+
+  /**
+   * Constructor for decoding bytes.
+   *
+   * @param table        Codes used to decode encoded bytes.
+   * @param encodedBytes Packed encoded bytes including filler.
+   */
+  private ByteHuffmanEncoding(CodeTable table,
+                              byte[] encodedBytes) {
+    try (Recording recording = Metrics.record(Operation.DECODE)) {
+      long start = System.nanoTime();
+      this.table = table;
+      this.encodedBytes = encodedBytes;
+      this.plainBytes = new HuffmanDecoder(table).decodeBytes(
+          encodedBytes, payloadBitLength(encodedBytes));
+      recording.lap(Stage.DECODE, start);
+      recording.setTable(table);
+      recording.setSizes(encodedBytes.length, plainBytes.length);
+    }
+  }
+
+  /**
+   * Provides the plain bytes. The array is shared with this instance and must
+   * not be modified.
+   *
+   * @return The plain bytes.
+   */
+  public byte[] getPlainBytes() {
+    return plainBytes;
+  }
+
+  @VisibleForTesting
+  Map<Integer, String> getEncoding() {
+    return table.asMap();
+  }
+
+  /**
+   * Provides encoding in a string format ready to be saved to file.
+   *
+   * @return String format of encoding.
+   */
+  public String getStringifiedEncoding() {
+    return HuffmanEncoding.stringifyEncoding(table.asMap());
+  }
+
+  /**
+   * Provides encoding in a compact binary format ready to be saved to file.
+   *
+   * @return Header holding the code lengths of the encoding.
+   */
+  public byte[] getEncodingHeader() {
+    return EncodingHeader.pack(table);
+  }
+
+  /**
+   * Provides the packed encoded bytes, followed by a 1 and 0 to 7 filler
+   * zeros, ready to be saved to file. The array is shared with this instance
+   * and must not be modified.
+   *
+   * @return Packed bytes of the encoded bytes.
+   */
+  public byte[] getEncodedBytes() {
+    return encodedBytes;
+  }
+
+  /**
+   * Builds table of occurrences from the occurrence count of every byte
+   * value, leaving out values that don't occur.
+   *
+   * @param occurrences Occurrence count of every byte value.
+   * @return Occurrence table with HuffmanNodes as elements.
+   */
+  @VisibleForTesting
+  static List<OccurrenceItem> buildOccurrenceTable(int[] occurrences) {
+    List<OccurrenceItem> table = new ArrayList<>();
+    for (int b = 0; b < occurrences.length; b++) {
+      if (occurrences[b] > 0) {
+        table.add(new OccurrenceItem(occurrences[b],
+                                     HuffmanNode.createLeaf(b)));
+      }
+    }
+    return table;
+  }
+}
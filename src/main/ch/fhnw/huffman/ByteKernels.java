@@ -0,0 +1,180 @@
+package ch.fhnw.huffman;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Bulk operations on bytes behind byte histograms and strings of binary
+ * digits. This class holds the scalar versions, which process eight bytes
+ * per step in a long. A subclass from the src/vector source root can replace
+ * the digit packing and expansion with versions on the Vector API, see
+ * {@link #get()}.
+ */
+class ByteKernels {
+  /**
+   * System property that enables the Vector API kernels when set to true.
+   */
+  static final String VECTOR_PROPERTY = "ch.fhnw.huffman.vector";
+  /**
+   * Name of the subclass on the Vector API, which is only compiled when the
+   * jdk.incubator.vector module is available.
+   */
+  @VisibleForTesting
+  static final String VECTOR_KERNELS = "ch.fhnw.huffman.VectorByteKernels";
+  /**
+   * Number of histograms bytes are counted into in turn.
+   */
+  @VisibleForTesting static final int SUB_HISTOGRAMS = 4;
+
+  private static final int BYTE_VALUES = 256;
+  private static final long ZERO_DIGITS = 0x3030303030303030L;
+  private static final long ONE_DIGITS = 0x3131313131313131L;
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class,
+                                           ByteOrder.LITTLE_ENDIAN);
+  private static final ByteKernels INSTANCE = load();
+
+  /**
+   * Returns the kernels to use. The Vector API versions are used if they are
+   * enabled with VECTOR_PROPERTY, the jdk.incubator.vector module was added
+   * to the boot layer with --add-modules jdk.incubator.vector, and the
+   * src/vector source root was compiled. Otherwise, the scalar versions are
+   * used. They are the default, as on Java 17 the conversions between vector
+   * masks and longs aren't compiled to single instructions, which makes the
+   * scalar versions about four times faster.
+   *
+   * @return Shared kernels.
+   */
+  static ByteKernels get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns whether the kernels use the Vector API.
+   *
+   * @return True unless these are the scalar versions.
+   */
+  boolean isVectorized() {
+    return false;
+  }
+
+  /**
+   * Adds the occurrences of the bytes in [from, to) to the counts. Bytes are
+   * counted into SUB_HISTOGRAMS histograms in turn, so increments of runs of
+   * equal bytes don't wait for each other to be stored.
+   *
+   * @param bytes  Buffer of the bytes, whose position isn't changed.
+   * @param from   Index of the first byte.
+   * @param to     Index after the last byte.
+   * @param counts Occurrence count of every byte value, indexed by the
+   *               unsigned byte value.
+   */
+  void count(ByteBuffer bytes, int from, int to, int[] counts) {
+    int[] sub = new int[SUB_HISTOGRAMS * BYTE_VALUES];
+    int i = from;
+    if (bytes.hasArray()) {
+      byte[] array = bytes.array();
+      int offset = bytes.arrayOffset();
+      for (; i + 3 < to; i += 4) {
+        sub[array[offset + i] & 0xFF]++;
+        sub[BYTE_VALUES + (array[offset + i + 1] & 0xFF)]++;
+        sub[2 * BYTE_VALUES + (array[offset + i + 2] & 0xFF)]++;
+        sub[3 * BYTE_VALUES + (array[offset + i + 3] & 0xFF)]++;
+      }
+    } else {
+      for (; i + 3 < to; i += 4) {
+        sub[bytes.get(i) & 0xFF]++;
+        sub[BYTE_VALUES + (bytes.get(i + 1) & 0xFF)]++;
+        sub[2 * BYTE_VALUES + (bytes.get(i + 2) & 0xFF)]++;
+        sub[3 * BYTE_VALUES + (bytes.get(i + 3) & 0xFF)]++;
+      }
+    }
+    for (; i < to; i++) {
+      sub[bytes.get(i) & 0xFF]++;
+    }
+    for (int b = 0; b < BYTE_VALUES; b++) {
+      counts[b] += sub[b] + sub[BYTE_VALUES + b] + sub[2 * BYTE_VALUES + b] +
+                       sub[3 * BYTE_VALUES + b];
+    }
+  }
+
+  /**
+   * Packs ASCII binary digits into bytes, eight per byte and most
+   * significant bit first. Every digit other than '1' is packed as a 0.
+   *
+   * @param digits Binary digits, at least 8 * n from the given index.
+   * @param from   Index of the first digit.
+   * @param packed Array receiving the packed bytes.
+   * @param offset Index of the first packed byte.
+   * @param n      Number of bytes to pack.
+   */
+  void pack(byte[] digits, int from, byte[] packed, int offset, int n) {
+    for (int i = 0; i < n; i++) {
+      packed[offset + i] = packLong((long) LONGS.get(digits, from + 8 * i));
+    }
+  }
+
+  /**
+   * Expands bytes into ASCII binary digits, eight per byte and most
+   * significant bit first.
+   *
+   * @param packed Packed bytes.
+   * @param from   Index of the first packed byte.
+   * @param digits Array receiving the digits, with room for 8 * n of them
+   *               from the given index.
+   * @param offset Index of the first digit.
+   * @param n      Number of bytes to expand.
+   */
+  void expand(byte[] packed, int from, byte[] digits, int offset, int n) {
+    for (int i = 0; i < n; i++) {
+      LONGS.set(digits, offset + 8 * i, expandByte(packed[from + i]));
+    }
+  }
+
+  /**
+   * Packs the eight digits held in a little-endian long. Bytes equal to '1'
+   * are turned into 0x80 and everything else into 0, without carries
+   * between bytes, and the eight high bits are then gathered into the top
+   * byte by a single multiplication, which puts the first digit first.
+   */
+  private static byte packLong(long digits) {
+    long v = digits ^ ONE_DIGITS;
+    long ones = ~(((v & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | v) & HIGH_BITS;
+    return (byte) (((ones >>> 7) * 0x8040201008040201L) >>> 56);
+  }
+
+  /**
+   * Expands a byte into eight digits in a little-endian long. The byte is
+   * copied into every byte of the long, each copy keeps the bit belonging to
+   * its position, and any set bit is then moved to the lowest bit.
+   */
+  private static long expandByte(byte b) {
+    long bits = (b & 0xFFL) * LOW_BITS & 0x0102040810204080L;
+    return ((bits + LOW_SEVEN_BITS) >>> 7 & LOW_BITS) | ZERO_DIGITS;
+  }
+
+  /**
+   * Loads the Vector API kernels if they are enabled and their module is
+   * present, falling back to the scalar versions otherwise.
+   */
+  private static ByteKernels load() {
+    if (Boolean.getBoolean(VECTOR_PROPERTY) &&
+            ModuleLayer.boot().findModule("jdk.incubator.vector")
+                       .isPresent()) {
+      try {
+        return (ByteKernels) Class.forName(VECTOR_KERNELS)
+                                  .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError ignored) {
+        // The vector kernels weren't compiled, so the scalar ones are used.
+      }
+    }
+    return new ByteKernels();
+  }
+}
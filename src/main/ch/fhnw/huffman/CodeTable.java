@@ -0,0 +1,265 @@
+package ch.fhnw.huffman;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Codes of an encoding held in plain arrays indexed by symbol, so looking up
+ * the code of a symbol neither boxes nor hashes it. The map form of an
+ * encoding, from symbol to binary string, is available as a read-only view
+ * through {@link #asMap()}.
+ */
+@Immutable
+public class CodeTable {
+  /**
+   * Maximum number of bits of a code, as codes are held in a long.
+   */
+  public static final int MAX_CODE_LENGTH = 63;
+
+  /**
+   * Code bits of every symbol, right-aligned.
+   */
+  private final long[] codes;
+  /**
+   * Code length of every symbol, -1 if the symbol has no code.
+   */
+  private final byte[] lengths;
+  private final int size;
+
+  private CodeTable(long[] codes, byte[] lengths, int size) {
+    this.codes = codes;
+    this.lengths = lengths;
+    this.size = size;
+  }
+
+  /**
+   * Assigns canonical codes to symbols of the given code lengths. Symbols are
+   * ordered by code length and then by value, and every symbol gets the code
+   * following the one of its predecessor, extended with zeros to its length.
+   * The codes are therefore fully defined by their lengths.
+   *
+   * @param lengths Code length of every symbol, -1 for symbols without a
+   *                code. The array is kept by the table and must not be
+   *                modified afterwards.
+   * @return The table of canonical codes.
+   */
+  public static CodeTable canonical(byte[] lengths) {
+    int[] lengthCounts = new int[MAX_CODE_LENGTH + 1];
+    int size = 0;
+    for (int symbol = 0; symbol < lengths.length; symbol++) {
+      int length = lengths[symbol];
+      if (length > MAX_CODE_LENGTH) {
+        throw new IllegalArgumentException(
+            String.format("Code for %d longer than %d bits.", symbol,
+                          MAX_CODE_LENGTH));
+      } else if (length >= 0) {
+        lengthCounts[length]++;
+        size++;
+      }
+    }
+    long[] nextCodes = new long[MAX_CODE_LENGTH + 1];
+    for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+      nextCodes[length] =
+          (nextCodes[length - 1] + lengthCounts[length - 1]) << 1;
+    }
+    long[] codes = new long[lengths.length];
+    for (int symbol = 0; symbol < lengths.length; symbol++) {
+      int length = lengths[symbol];
+      if (length >= 0) {
+        codes[symbol] = nextCodes[length]++;
+        // A code that doesn't fit into its length means the lengths
+        // overflow the code space.
+        if (codes[symbol] >>> length != 0) {
+          throw new IllegalArgumentException(
+              "Code lengths don't form a prefix code.");
+        }
+      }
+    }
+    return new CodeTable(codes, lengths, size);
+  }
+
+  /**
+   * Creates a table holding the codes of an encoding in map form, which
+   * needn't be canonical.
+   *
+   * @param encoding Map from symbol value to binary string encoding.
+   * @return The table of the same codes.
+   */
+  public static CodeTable of(Map<Integer, String> encoding) {
+    if (encoding instanceof MapView) {
+      return ((MapView) encoding).table();
+    }
+    int maxSymbol = -1;
+    for (int symbol : encoding.keySet()) {
+      maxSymbol = Math.max(maxSymbol, symbol);
+    }
+    long[] codes = new long[maxSymbol + 1];
+    byte[] lengths = new byte[maxSymbol + 1];
+    Arrays.fill(lengths, (byte) -1);
+    for (Map.Entry<Integer, String> e : encoding.entrySet()) {
+      String code = e.getValue();
+      if (code.length() > MAX_CODE_LENGTH) {
+        throw new IllegalArgumentException(
+            String.format("Code for %d longer than %d bits.", e.getKey(),
+                          MAX_CODE_LENGTH));
+      }
+      long bits = 0;
+      for (int i = 0; i < code.length(); i++) {
+        bits = (bits << 1) | (code.charAt(i) == '1' ? 1 : 0);
+      }
+      codes[e.getKey()] = bits;
+      lengths[e.getKey()] = (byte) code.length();
+    }
+    return new CodeTable(codes, lengths, encoding.size());
+  }
+
+  /**
+   * Returns whether a symbol has a code.
+   *
+   * @param symbol Symbol value.
+   * @return True if the symbol can be encoded.
+   */
+  public boolean hasCode(int symbol) {
+    return symbol >= 0 && symbol < lengths.length && lengths[symbol] >= 0;
+  }
+
+  /**
+   * Returns the code bits of a symbol.
+   *
+   * @param symbol Symbol value with a code.
+   * @return Code bits, right-aligned.
+   */
+  public long code(int symbol) {
+    return codes[symbol];
+  }
+
+  /**
+   * Returns the code length of a symbol.
+   *
+   * @param symbol Symbol value.
+   * @return Number of bits of the code, -1 if the symbol has no code.
+   */
+  public int length(int symbol) {
+    return symbol < lengths.length ? lengths[symbol] : -1;
+  }
+
+  /**
+   * Returns one more than the largest symbol the table has room for.
+   *
+   * @return Length of the arrays indexed by symbol.
+   */
+  public int getSymbolLimit() {
+    return lengths.length;
+  }
+
+  /**
+   * Returns the number of symbols with a code.
+   *
+   * @return Number of codes.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the longest code length.
+   *
+   * @return Number of bits of the longest code, -1 if there are none.
+   */
+  public int getMaxLength() {
+    int max = -1;
+    for (byte length : lengths) {
+      max = Math.max(max, length);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the encoding as a map from symbol value to binary string. The
+   * map is a read-only view, whose strings are created on access.
+   *
+   * @return Map view of the table.
+   */
+  public Map<Integer, String> asMap() {
+    return new MapView(this);
+  }
+
+  private String codeString(int symbol) {
+    int length = lengths[symbol];
+    char[] digits = new char[length];
+    for (int i = 0; i < length; i++) {
+      digits[i] = (codes[symbol] >>> (length - 1 - i) & 1) == 0 ? '0' : '1';
+    }
+    return new String(digits);
+  }
+
+  /**
+   * Read-only map view of a table.
+   */
+  private static class MapView extends AbstractMap<Integer, String> {
+    private final CodeTable table;
+
+    MapView(CodeTable table) {
+      this.table = table;
+    }
+
+    CodeTable table() {
+      return table;
+    }
+
+    @Override public int size() {
+      return table.size;
+    }
+
+    @Override public boolean containsKey(Object key) {
+      return key instanceof Integer && table.hasCode((Integer) key);
+    }
+
+    @Override public String get(Object key) {
+      return containsKey(key) ? table.codeString((Integer) key) : null;
+    }
+
+    @Override public Set<Entry<Integer, String>> entrySet() {
+      return new AbstractSet<>() {
+        @Override public int size() {
+          return table.size;
+        }
+
+        @Override public Iterator<Entry<Integer, String>> iterator() {
+          return new Iterator<>() {
+            private int next = advance(0);
+
+            @Override public boolean hasNext() {
+              return next < table.lengths.length;
+            }
+
+            @Override public Entry<Integer, String> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              int symbol = next;
+              next = advance(symbol + 1);
+              return new SimpleImmutableEntry<>(symbol,
+                                                table.codeString(symbol));
+            }
+
+            private int advance(int from) {
+              int symbol = from;
+              while (symbol < table.lengths.length &&
+                         table.lengths[symbol] < 0) {
+                symbol++;
+              }
+              return symbol;
+            }
+          };
+        }
+      };
+    }
+  }
+}
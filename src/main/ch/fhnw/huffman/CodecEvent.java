@@ -0,0 +1,36 @@
+package ch.fhnw.huffman;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a single encode or decode operation, spanning the
+ * whole operation and holding the same measurements as {@link CodecMetrics}.
+ */
+@Name(CodecEvent.NAME)
+@Label("Huffman Codec Operation")
+@Category("Huffman")
+@Description("Stage timings and sizes of an encode or decode operation")
+@StackTrace(false)
+class CodecEvent extends jdk.jfr.Event {
+  static final String NAME = "ch.fhnw.huffman.Codec";
+
+  @Label("Operation") String operation;
+  @Label("Count") @Timespan long countNanos;
+  @Label("Tree") @Timespan long treeNanos;
+  @Label("Table") @Timespan long tableNanos;
+  @Label("Encode") @Timespan long encodeNanos;
+  @Label("Pack") @Timespan long packNanos;
+  @Label("I/O") @Timespan long ioNanos;
+  @Label("Decode") @Timespan long decodeNanos;
+  @Label("Bytes In") @DataAmount long bytesIn;
+  @Label("Bytes Out") @DataAmount long bytesOut;
+  @Label("Ratio") double ratio;
+  @Label("Distinct Symbols") int distinctSymbols;
+  @Label("Max Code Length") int maxCodeLength;
+}
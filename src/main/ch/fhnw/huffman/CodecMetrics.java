@@ -0,0 +1,167 @@
+package ch.fhnw.huffman;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Measurements of a single encode or decode operation, as handed to every
+ * {@link MetricsListener}: the time spent in every stage, the sizes of input
+ * and output, and the shape of the encoding.
+ */
+@Immutable
+public class CodecMetrics {
+  /**
+   * Kind of operation measured.
+   */
+  public enum Operation {
+    ENCODE, DECODE
+  }
+
+  /**
+   * Stage of an operation. Stages are measured as disjoint sections of
+   * code. Reading and writing that is interleaved with encoding or decoding
+   * counts towards ENCODE or DECODE, and IO only covers headers, checksums
+   * and payloads read before they are decoded.
+   */
+  public enum Stage {
+    /**
+     * Counting symbol occurrences.
+     */
+    COUNT,
+    /**
+     * Building the Huffman tree and computing code lengths.
+     */
+    TREE,
+    /**
+     * Assigning canonical codes, or reading them from a header.
+     */
+    TABLE,
+    /**
+     * Encoding symbols into packed bits.
+     */
+    ENCODE,
+    /**
+     * Packing encoding headers or converting binary digits.
+     */
+    PACK,
+    /**
+     * Reading and writing headers and payloads.
+     */
+    IO,
+    /**
+     * Decoding packed bits into symbols.
+     */
+    DECODE
+  }
+
+  private final Operation operation;
+  private final long[] stageNanos;
+  private final long totalNanos;
+  private final long bytesIn;
+  private final long bytesOut;
+  private final int distinctSymbols;
+  private final int maxCodeLength;
+
+  CodecMetrics(Operation operation, long[] stageNanos, long totalNanos,
+               long bytesIn, long bytesOut, int distinctSymbols,
+               int maxCodeLength) {
+    this.operation = operation;
+    this.stageNanos = stageNanos;
+    this.totalNanos = totalNanos;
+    this.bytesIn = bytesIn;
+    this.bytesOut = bytesOut;
+    this.distinctSymbols = distinctSymbols;
+    this.maxCodeLength = maxCodeLength;
+  }
+
+  /**
+   * Returns the kind of operation measured.
+   *
+   * @return The operation.
+   */
+  public Operation getOperation() {
+    return operation;
+  }
+
+  /**
+   * Returns the time spent in a stage.
+   *
+   * @param stage The stage.
+   * @return Nanoseconds spent in the stage, 0 if it wasn't run.
+   */
+  public long getNanos(Stage stage) {
+    return stageNanos[stage.ordinal()];
+  }
+
+  /**
+   * Returns the time the whole operation took, including time outside of
+   * the stages.
+   *
+   * @return Nanoseconds from start to end of the operation.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * Returns the size of the input, in characters for texts held in memory
+   * and in bytes otherwise.
+   *
+   * @return Size of the input.
+   */
+  public long getBytesIn() {
+    return bytesIn;
+  }
+
+  /**
+   * Returns the size of the output, in characters for texts held in memory
+   * and in bytes otherwise.
+   *
+   * @return Size of the output.
+   */
+  public long getBytesOut() {
+    return bytesOut;
+  }
+
+  /**
+   * Returns the size of the output relative to the input.
+   *
+   * @return bytesOut / bytesIn, or 1 for an empty input.
+   */
+  public double getRatio() {
+    return bytesIn == 0 ? 1 : (double) bytesOut / bytesIn;
+  }
+
+  /**
+   * Returns the number of symbols with a code in the encoding used.
+   *
+   * @return Number of distinct symbols, 0 if no encoding was used.
+   */
+  public int getDistinctSymbols() {
+    return distinctSymbols;
+  }
+
+  /**
+   * Returns the longest code of the encoding used.
+   *
+   * @return Number of bits of the longest code, 0 if no encoding was used.
+   */
+  public int getMaxCodeLength() {
+    return maxCodeLength;
+  }
+
+  @Override public String toString() {
+    StringBuilder stages = new StringBuilder();
+    for (Stage stage : Stage.values()) {
+      if (getNanos(stage) > 0) {
+        stages.append(String.format(", %s %.3f ms",
+                                    stage.name().toLowerCase(),
+                                    getNanos(stage) / 1e6));
+      }
+    }
+    return String.format(
+        "%s %d bytes in, %d bytes out, ratio %.3f, %d symbols, " +
+            "max code length %d, %.3f ms total%s",
+        operation.name().toLowerCase(), bytesIn, bytesOut, getRatio(),
+        distinctSymbols, maxCodeLength, totalNanos / 1e6, stages);
+  }
+}
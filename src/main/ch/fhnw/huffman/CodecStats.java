@@ -0,0 +1,131 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.CodecMetrics.Stage;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adds up the measurements of all operations, for long-running processes
+ * such as {@link HuffmanServer} or a {@link BatchCodec} run. Registered
+ * with {@link #register()}, the totals can be watched over JMX.
+ */
+@ThreadSafe
+public class CodecStats implements MetricsListener, CodecStatsMXBean {
+  /**
+   * Name the shared instance is registered under with the platform MBean
+   * server.
+   */
+  public static final String OBJECT_NAME = "ch.fhnw.huffman:type=CodecStats";
+
+  private static CodecStats registered;
+
+  private final LongAdder encodeOperations = new LongAdder();
+  private final LongAdder decodeOperations = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+  private final AtomicInteger maxCodeLength = new AtomicInteger();
+  private final AtomicReference<CodecMetrics> last = new AtomicReference<>();
+
+  /**
+   * Creates statistics that only hold measurements passed to
+   * {@link #onOperation(CodecMetrics)}.
+   */
+  public CodecStats() {
+    for (int i = 0; i < stageNanos.length; i++) {
+      stageNanos[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Returns the shared statistics of all operations, registering them with
+   * the platform MBean server and as listener on the first call.
+   *
+   * @return The shared statistics.
+   */
+  public static synchronized CodecStats register() {
+    if (registered == null) {
+      CodecStats stats = new CodecStats();
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      try {
+        server.registerMBean(stats, new ObjectName(OBJECT_NAME));
+      } catch (JMException e) {
+        throw new IllegalStateException(e);
+      }
+      Metrics.addListener(stats);
+      registered = stats;
+    }
+    return registered;
+  }
+
+  @Override public void onOperation(CodecMetrics metrics) {
+    if (metrics.getOperation() == Operation.ENCODE) {
+      encodeOperations.increment();
+    } else {
+      decodeOperations.increment();
+    }
+    bytesIn.add(metrics.getBytesIn());
+    bytesOut.add(metrics.getBytesOut());
+    for (Stage stage : Stage.values()) {
+      stageNanos[stage.ordinal()].add(metrics.getNanos(stage));
+    }
+    maxCodeLength.accumulateAndGet(metrics.getMaxCodeLength(), Math::max);
+    last.set(metrics);
+  }
+
+  @Override public long getEncodeOperations() {
+    return encodeOperations.sum();
+  }
+
+  @Override public long getDecodeOperations() {
+    return decodeOperations.sum();
+  }
+
+  @Override public long getBytesIn() {
+    return bytesIn.sum();
+  }
+
+  @Override public long getBytesOut() {
+    return bytesOut.sum();
+  }
+
+  @Override public Map<String, Double> getStageMillis() {
+    Map<String, Double> millis = new LinkedHashMap<>();
+    for (Stage stage : Stage.values()) {
+      millis.put(stage.name().toLowerCase(),
+                 stageNanos[stage.ordinal()].sum() / 1e6);
+    }
+    return millis;
+  }
+
+  @Override public int getMaxCodeLength() {
+    return maxCodeLength.get();
+  }
+
+  @Override public String getLastOperation() {
+    CodecMetrics metrics = last.get();
+    return metrics == null ? "" : metrics.toString();
+  }
+
+  @Override public void reset() {
+    encodeOperations.reset();
+    decodeOperations.reset();
+    bytesIn.reset();
+    bytesOut.reset();
+    for (LongAdder nanos : stageNanos) {
+      nanos.reset();
+    }
+    maxCodeLength.set(0);
+    last.set(null);
+  }
+}
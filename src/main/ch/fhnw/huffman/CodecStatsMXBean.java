@@ -0,0 +1,64 @@
+package ch.fhnw.huffman;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link CodecStats}, registered under
+ * {@link CodecStats#OBJECT_NAME}.
+ */
+public interface CodecStatsMXBean {
+  /**
+   * Returns the number of encode operations since the last reset.
+   *
+   * @return Number of encode operations.
+   */
+  long getEncodeOperations();
+
+  /**
+   * Returns the number of decode operations since the last reset.
+   *
+   * @return Number of decode operations.
+   */
+  long getDecodeOperations();
+
+  /**
+   * Returns the total size of all inputs since the last reset.
+   *
+   * @return Sum of the input sizes.
+   */
+  long getBytesIn();
+
+  /**
+   * Returns the total size of all outputs since the last reset.
+   *
+   * @return Sum of the output sizes.
+   */
+  long getBytesOut();
+
+  /**
+   * Returns the total time spent in every stage since the last reset.
+   *
+   * @return Milliseconds by lower case stage name.
+   */
+  Map<String, Double> getStageMillis();
+
+  /**
+   * Returns the longest code seen since the last reset, which grows with
+   * skewed inputs.
+   *
+   * @return Number of bits of the longest code.
+   */
+  int getMaxCodeLength();
+
+  /**
+   * Returns the measurements of the last operation.
+   *
+   * @return Summary of the last operation, empty if there was none.
+   */
+  String getLastOperation();
+
+  /**
+   * Sets all totals back to zero.
+   */
+  void reset();
+}
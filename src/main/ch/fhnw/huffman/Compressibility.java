@@ -0,0 +1,160 @@
+package ch.fhnw.huffman;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static ch.fhnw.huffman.ByteHuffmanEncoding.ALPHABET_SIZE;
+
+/**
+ * Estimate of how well bytes compress, taken from a sample of them before
+ * anything is counted or encoded. The sample is made of SAMPLE_WINDOWS
+ * windows of WINDOW_SIZE bytes, spread evenly over the input; shorter inputs
+ * are taken as a whole. It yields the entropy of the bytes, which bounds
+ * what Huffman codes can save, and their average run length, which tells
+ * whether run-length encoding saves more.
+ */
+@Immutable
+class Compressibility {
+  @VisibleForTesting static final int WINDOW_SIZE = 512;
+  @VisibleForTesting static final int SAMPLE_WINDOWS = 32;
+  /**
+   * Entropy in bits per byte from which Huffman codes save less than about
+   * half a percent, too little to pay for encoding and decoding them.
+   */
+  @VisibleForTesting static final double INCOMPRESSIBLE_BITS = 7.95;
+  /**
+   * Number of bits a run costs when run-length encoded: its value and, for
+   * runs of up to 128 bytes, a single byte of length.
+   */
+  private static final int RUN_BITS = 16;
+
+  private final double bitsPerByte;
+  private final double averageRunLength;
+
+  private Compressibility(double bitsPerByte, double averageRunLength) {
+    this.bitsPerByte = bitsPerByte;
+    this.averageRunLength = averageRunLength;
+  }
+
+  /**
+   * Samples the remaining bytes of a buffer. The position of the buffer
+   * isn't changed.
+   *
+   * @param bytes The bytes to sample.
+   * @return The estimate for all remaining bytes.
+   */
+  static Compressibility sample(ByteBuffer bytes) {
+    int length = bytes.remaining();
+    if (length <= SAMPLE_WINDOWS * WINDOW_SIZE) {
+      return of(bytes, bytes.position(), 1, length, 0);
+    }
+    return of(bytes, bytes.position(), SAMPLE_WINDOWS, WINDOW_SIZE,
+              (long) (length - WINDOW_SIZE) / (SAMPLE_WINDOWS - 1));
+  }
+
+  /**
+   * Samples a file. Only the windows of the sample are read, with reads at
+   * given positions, so the position of the channel isn't changed.
+   *
+   * @param file Channel of the file to sample.
+   * @return The estimate for the whole file.
+   * @throws IOException If reading fails.
+   */
+  static Compressibility sample(FileChannel file) throws IOException {
+    long length = file.size();
+    int windows = SAMPLE_WINDOWS;
+    int windowSize = WINDOW_SIZE;
+    if (length <= SAMPLE_WINDOWS * WINDOW_SIZE) {
+      windows = 1;
+      windowSize = (int) length;
+    }
+    long stride = windows == 1 ? 0 : (length - windowSize) / (windows - 1);
+    ByteBuffer sample = ByteBuffer.allocate(windows * windowSize);
+    for (int w = 0; w < windows; w++) {
+      ByteBuffer window = sample.slice(w * windowSize, windowSize);
+      while (window.hasRemaining()) {
+        if (file.read(window, w * stride + window.position()) < 0) {
+          throw new EOFException("File shrank while being sampled.");
+        }
+      }
+    }
+    return of(sample, 0, windows, windowSize, windowSize);
+  }
+
+  /**
+   * Computes the estimate from windows of windowSize bytes, starting at
+   * from and spaced stride bytes apart.
+   */
+  private static Compressibility of(ByteBuffer bytes, int from, int windows,
+                                    int windowSize, long stride) {
+    int[] counts = new int[ALPHABET_SIZE];
+    int runs = 0;
+    for (int w = 0; w < windows; w++) {
+      int start = from + (int) (w * stride);
+      int previous = -1;
+      for (int i = start; i < start + windowSize; i++) {
+        int b = bytes.get(i) & 0xFF;
+        counts[b]++;
+        if (b != previous) {
+          runs++;
+          previous = b;
+        }
+      }
+    }
+    int sampled = windows * windowSize;
+    double bits = 0;
+    for (int count : counts) {
+      if (count > 0) {
+        double p = (double) count / sampled;
+        bits -= p * Math.log(p);
+      }
+    }
+    return new Compressibility(bits / Math.log(2),
+                               runs == 0 ? 0 : (double) sampled / runs);
+  }
+
+  /**
+   * Returns the entropy of the sampled bytes, the average number of bits
+   * per byte Huffman codes can get down to.
+   *
+   * @return Bits per byte, from 0 to 8.
+   */
+  double getBitsPerByte() {
+    return bitsPerByte;
+  }
+
+  /**
+   * Returns the average length of the runs of equal bytes in the sample.
+   * Runs are cut at the ends of the windows.
+   *
+   * @return Bytes per run, 0 for an empty input.
+   */
+  double getAverageRunLength() {
+    return averageRunLength;
+  }
+
+  /**
+   * Returns whether Huffman codes would save too little to be worth
+   * building, so the bytes should be stored as they are.
+   *
+   * @return True if the entropy is at least INCOMPRESSIBLE_BITS.
+   */
+  boolean isIncompressible() {
+    return bitsPerByte >= INCOMPRESSIBLE_BITS;
+  }
+
+  /**
+   * Returns whether run-length encoding is likely to save more than Huffman
+   * codes, which spend at least one bit on every byte of a run.
+   *
+   * @return True if a run takes more bits as Huffman codes than as a run.
+   */
+  boolean favorsRunLength() {
+    return averageRunLength * Math.max(1, bitsPerByte) > RUN_BITS;
+  }
+}
@@ -0,0 +1,219 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Stage;
+import ch.fhnw.huffman.Metrics.Recording;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static ch.fhnw.huffman.ByteHuffmanEncoding.ALPHABET_SIZE;
+import static ch.fhnw.huffman.HuffmanEncoding.DEFAULT_MAX_CODE_LENGTH;
+
+/**
+ * Encoding trained on a sample of the inputs it is meant for, so that many
+ * small, similar inputs can be encoded against it without storing an encoding
+ * next to each of them. A dictionary is referred to by its ID, a checksum of
+ * its alphabet and encoding, and is saved to a file of its own:
+ * <pre>
+ * int    magic number
+ * byte   format version
+ * byte   alphabet, 0 for characters and 1 for bytes
+ * int    ID
+ * EncodingHeader of the encoding
+ * </pre>
+ * Every byte value, or every character up to 0xFF, gets a code even if it
+ * doesn't occur in the sample; other characters only get one if they do.
+ * The encoder and decoder are built once with the dictionary and shared by
+ * everyone using it.
+ */
+@Immutable
+public class Dictionary {
+  /**
+   * Suffix of the file a dictionary is saved to by its ID.
+   */
+  public static final String FILE_SUFFIX = ".hufd";
+
+  @VisibleForTesting static final int MAGIC = 0x48554644;
+  @VisibleForTesting static final byte VERSION = 1;
+  private static final int FIXED_HEADER_SIZE = 10;
+
+  private final int id;
+  private final byte alphabet;
+  private final CodeTable table;
+  private final HuffmanEncoder encoder;
+  private final HuffmanDecoder decoder;
+
+  private Dictionary(byte alphabet, CodeTable table) {
+    this.id = computeId(alphabet, EncodingHeader.pack(table));
+    this.alphabet = alphabet;
+    this.table = table;
+    this.encoder = new HuffmanEncoder(table);
+    this.decoder = new HuffmanDecoder(table);
+  }
+
+  /**
+   * Trains a dictionary on the symbol counts of a sample, typically merged
+   * from several sample inputs with {@link Histogram#merge(Histogram)}.
+   *
+   * @param sample Histogram of the sample over the character or byte
+   *               alphabet.
+   * @return The trained dictionary.
+   */
+  public static Dictionary train(Histogram sample) {
+    long[] sampleCounts = sample.getCounts();
+    int n = 0;
+    for (int symbol = 0; symbol < sampleCounts.length; symbol++) {
+      if (sampleCounts[symbol] > 0 || symbol < ALPHABET_SIZE) {
+        n++;
+      }
+    }
+    int[] symbols = new int[n];
+    long[] counts = new long[n];
+    for (int symbol = 0, i = 0; symbol < sampleCounts.length; symbol++) {
+      if (sampleCounts[symbol] > 0 || symbol < ALPHABET_SIZE) {
+        symbols[i] = symbol;
+        counts[i++] = sampleCounts[symbol] + 1;
+      }
+    }
+    byte alphabet = sample.getAlphabetSize() == ALPHABET_SIZE
+                    ? HuffmanFile.BYTES : HuffmanFile.TEXT;
+    return new Dictionary(alphabet, HuffmanEncoding.computeCodeTable(
+        symbols, counts, sampleCounts.length, DEFAULT_MAX_CODE_LENGTH));
+  }
+
+  /**
+   * Reads a dictionary saved with {@link #save(Path)}.
+   *
+   * @param path Path of the dictionary file.
+   * @return The dictionary.
+   * @throws IOException If reading fails.
+   */
+  public static Dictionary load(Path path) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+    if (buffer.remaining() < FIXED_HEADER_SIZE ||
+            buffer.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a dictionary file.");
+    }
+    byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException(
+          String.format("Unsupported format version %d.", version));
+    }
+    byte alphabet = buffer.get();
+    if (alphabet != HuffmanFile.TEXT && alphabet != HuffmanFile.BYTES) {
+      throw new IllegalArgumentException(
+          String.format("Unknown alphabet %d.", alphabet));
+    }
+    int id = buffer.getInt();
+    Dictionary dictionary =
+        new Dictionary(alphabet, EncodingHeader.unpackTable(buffer));
+    if (dictionary.id != id) {
+      throw new IllegalArgumentException(String.format(
+          "Dictionary %s doesn't match its content.", formatId(id)));
+    }
+    return dictionary;
+  }
+
+  /**
+   * Writes the dictionary to a file.
+   *
+   * @param path Path the dictionary is written to.
+   * @throws IOException If writing fails.
+   */
+  public void save(Path path) throws IOException {
+    byte[] encodingHeader = EncodingHeader.pack(table);
+    ByteBuffer buffer =
+        ByteBuffer.allocate(FIXED_HEADER_SIZE + encodingHeader.length);
+    buffer.putInt(MAGIC).put(VERSION).put(alphabet).putInt(id)
+          .put(encodingHeader);
+    Files.write(path, buffer.array());
+  }
+
+  /**
+   * Returns the name of the file a dictionary is saved to by its ID.
+   *
+   * @param id ID of the dictionary.
+   * @return The ID as eight hexadecimal digits followed by FILE_SUFFIX.
+   */
+  public static String fileName(int id) {
+    return formatId(id) + FILE_SUFFIX;
+  }
+
+  /**
+   * Formats an ID as eight hexadecimal digits.
+   *
+   * @param id ID of a dictionary.
+   * @return The formatted ID.
+   */
+  public static String formatId(int id) {
+    return String.format("%08x", id);
+  }
+
+  /**
+   * Encodes a text against the dictionary.
+   *
+   * @param plainText The text to encode.
+   * @return Packed bits of the encoded text including filler.
+   */
+  public byte[] encode(CharSequence plainText) {
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    byte[] encodedText = encoder.encode(plainText);
+    recording.lap(Stage.ENCODE, start);
+    recording.setTable(table);
+    return encodedText;
+  }
+
+  /**
+   * Decodes a text encoded with {@link #encode(CharSequence)}.
+   *
+   * @param encodedText Packed bits of the encoded text including filler.
+   * @return The decoded text.
+   */
+  public String decode(byte[] encodedText) {
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    String plainText = decoder.decode(
+        encodedText, HuffmanEncoding.payloadBitLength(encodedText));
+    recording.lap(Stage.DECODE, start);
+    recording.setTable(table);
+    return plainText;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  byte getAlphabet() {
+    return alphabet;
+  }
+
+  Map<Integer, String> getEncoding() {
+    return table.asMap();
+  }
+
+  CodeTable getTable() {
+    return table;
+  }
+
+  HuffmanEncoder getEncoder() {
+    return encoder;
+  }
+
+  HuffmanDecoder getDecoder() {
+    return decoder;
+  }
+
+  private static int computeId(byte alphabet, byte[] encodingHeader) {
+    CRC32 crc = new CRC32();
+    crc.update(alphabet);
+    crc.update(encodingHeader);
+    return (int) crc.getValue();
+  }
+}
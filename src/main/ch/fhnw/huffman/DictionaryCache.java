@@ -0,0 +1,99 @@
+package ch.fhnw.huffman;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used dictionaries of a directory in memory, so
+ * their encoders and decoders are only built once while they are in use.
+ * Dictionaries are stored in the directory under
+ * {@link Dictionary#fileName(int)} and loaded by ID on first use; once more
+ * than capacity dictionaries are cached, the least recently used one is
+ * dropped.
+ */
+@ThreadSafe
+public class DictionaryCache {
+  private final Path directory;
+  private final Map<Integer, Dictionary> cache;
+
+  /**
+   * Creates an empty cache of the dictionaries in a directory.
+   *
+   * @param directory Directory holding the dictionary files.
+   * @param capacity  Maximum number of dictionaries kept in memory.
+   */
+  public DictionaryCache(Path directory, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException(
+          String.format("Invalid capacity %d.", capacity));
+    }
+    this.directory = directory;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, Dictionary> e) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the dictionary with the given ID, loading it from the directory
+   * if it isn't cached.
+   *
+   * @param id ID of the dictionary.
+   * @return The dictionary.
+   * @throws IOException If the dictionary isn't cached and can't be read.
+   */
+  public Dictionary get(int id) throws IOException {
+    synchronized (cache) {
+      Dictionary dictionary = cache.get(id);
+      if (dictionary != null) {
+        return dictionary;
+      }
+    }
+    // Loaded outside the lock, so other dictionaries can be looked up
+    // meanwhile. Concurrent loads of the same dictionary yield equal ones.
+    Dictionary dictionary =
+        Dictionary.load(directory.resolve(Dictionary.fileName(id)));
+    if (dictionary.getId() != id) {
+      throw new IllegalArgumentException(String.format(
+          "File of dictionary %s holds dictionary %s.",
+          Dictionary.formatId(id), Dictionary.formatId(dictionary.getId())));
+    }
+    synchronized (cache) {
+      return cache.computeIfAbsent(id, k -> dictionary);
+    }
+  }
+
+  /**
+   * Saves a dictionary to the directory and adds it to the cache.
+   *
+   * @param dictionary The dictionary to save.
+   * @return Path of the dictionary file.
+   * @throws IOException If writing fails.
+   */
+  public Path put(Dictionary dictionary) throws IOException {
+    Path path = directory.resolve(Dictionary.fileName(dictionary.getId()));
+    dictionary.save(path);
+    synchronized (cache) {
+      cache.put(dictionary.getId(), dictionary);
+    }
+    return path;
+  }
+
+  /**
+   * Returns the number of dictionaries held in memory.
+   *
+   * @return Number of cached dictionaries.
+   */
+  public int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+}
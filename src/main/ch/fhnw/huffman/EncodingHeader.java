@@ -0,0 +1,171 @@
+package ch.fhnw.huffman;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Provides a compact binary format of canonical encodings. Since canonical
+ * codes are defined by their lengths, only the code length of every symbol is
+ * stored:
+ * <pre>
+ * varint number of symbols
+ * per run of consecutive symbols: varint gap to the previous run
+ *                                 varint number of symbols in the run
+ * byte   number of bits per code length
+ * code lengths in ascending symbol order, packed most significant bit first
+ * </pre>
+ * Varints hold seven bits per byte, least significant group first, with the
+ * high bit set on all but the last byte. The encoding of an empty input has
+ * no symbols and no code lengths.
+ */
+public class EncodingHeader {
+  private static final int MAX_SYMBOL = 0xFFFF;
+
+  /**
+   * Packs a canonical encoding into its header.
+   *
+   * @param encoding Map from symbol value to canonical binary string
+   *                 encoding.
+   * @return The header bytes.
+   */
+  public static byte[] pack(Map<Integer, String> encoding) {
+    return pack(CodeTable.of(encoding));
+  }
+
+  /**
+   * Packs a table of canonical codes into its header.
+   *
+   * @param table Table of canonical codes.
+   * @return The header bytes.
+   */
+  public static byte[] pack(CodeTable table) {
+    int symbolLimit = Math.min(table.getSymbolLimit(), MAX_SYMBOL + 1);
+    byte[] lengths = new byte[symbolLimit];
+    for (int symbol = 0; symbol < symbolLimit; symbol++) {
+      lengths[symbol] = (byte) table.length(symbol);
+    }
+    CodeTable canonical = CodeTable.canonical(lengths);
+    if (table.size() != canonical.size()) {
+      throw new IllegalArgumentException("Encoding isn't canonical.");
+    }
+    for (int symbol = 0; symbol < symbolLimit; symbol++) {
+      if (table.hasCode(symbol) &&
+              table.code(symbol) != canonical.code(symbol)) {
+        throw new IllegalArgumentException("Encoding isn't canonical.");
+      }
+    }
+    int maxLength = Math.max(0, table.getMaxLength());
+    int lengthBits =
+        Math.max(1, 32 - Integer.numberOfLeadingZeros(maxLength));
+    int size = table.size();
+    ByteBuffer header = ByteBuffer.allocate(
+        5 + 10 * size + 1 + (size * lengthBits + 7) / 8);
+    Varint.put(header, size);
+    int previous = -1;
+    int runStart = -1;
+    for (int symbol = 0; symbol < symbolLimit; symbol++) {
+      if (!table.hasCode(symbol)) {
+        continue;
+      }
+      if (symbol != previous + 1 && runStart >= 0) {
+        Varint.put(header, previous + 1 - runStart);
+        runStart = -1;
+      }
+      if (runStart < 0) {
+        Varint.put(header, symbol - previous - 1);
+        runStart = symbol;
+      }
+      previous = symbol;
+    }
+    if (runStart >= 0) {
+      Varint.put(header, previous + 1 - runStart);
+    }
+    header.put((byte) lengthBits);
+    BitWriter packedLengths = new BitWriter(header);
+    try {
+      for (int symbol = 0; symbol < symbolLimit; symbol++) {
+        if (table.hasCode(symbol)) {
+          packedLengths.write(table.length(symbol), lengthBits);
+        }
+      }
+      packedLengths.padToByte();
+    } catch (IOException e) {
+      // The buffer is sized to fit, so it never gets flushed to a stream.
+      throw new IllegalStateException(e);
+    }
+    byte[] packed = new byte[header.position()];
+    header.flip().get(packed);
+    return packed;
+  }
+
+  /**
+   * Reads a header written by {@link #pack(Map)} from the current position
+   * of the buffer, leaving the position right behind the header.
+   *
+   * @param header Buffer holding the header.
+   * @return Map from symbol value to binary string encoding.
+   */
+  public static Map<Integer, String> unpack(ByteBuffer header) {
+    return unpackTable(header).asMap();
+  }
+
+  /**
+   * Reads a header written by {@link #pack(CodeTable)} from the current
+   * position of the buffer, leaving the position right behind the header.
+   *
+   * @param header Buffer holding the header.
+   * @return Table of the canonical codes.
+   */
+  public static CodeTable unpackTable(ByteBuffer header) {
+    try {
+      int symbolCount = Varint.get(header);
+      if (symbolCount < 0 || symbolCount > MAX_SYMBOL + 1) {
+        throw new IllegalArgumentException("Corrupt encoding header.");
+      }
+      int[] symbols = new int[symbolCount];
+      int next = 0;
+      for (int i = 0; i < symbolCount; ) {
+        int gap = Varint.get(header);
+        int runLength = Varint.get(header);
+        if (gap < 0 || runLength < 1 || runLength > symbolCount - i ||
+                gap > MAX_SYMBOL + 1 - next - runLength) {
+          throw new IllegalArgumentException("Corrupt encoding header.");
+        }
+        next += gap;
+        for (int j = 0; j < runLength; j++) {
+          symbols[i++] = next++;
+        }
+      }
+      int lengthBits = header.get();
+      if (lengthBits < 1 || lengthBits > 8) {
+        throw new IllegalArgumentException("Corrupt encoding header.");
+      }
+      if (symbolCount == 0) {
+        // The encoding of an empty input.
+        return CodeTable.canonical(new byte[0]);
+      }
+      byte[] codeLengths = new byte[symbols[symbolCount - 1] + 1];
+      Arrays.fill(codeLengths, (byte) -1);
+      int packedSize = (symbolCount * lengthBits + 7) / 8;
+      if (header.remaining() < packedSize) {
+        throw new IllegalArgumentException("Encoding header truncated.");
+      }
+      BitReader packedLengths =
+          new BitReader(header.slice().limit(packedSize),
+                        (long) symbolCount * lengthBits);
+      for (int symbol : symbols) {
+        codeLengths[symbol] = (byte) packedLengths.read(lengthBits);
+      }
+      header.position(header.position() + packedSize);
+      return CodeTable.canonical(codeLengths);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Encoding header truncated.");
+    } catch (IOException e) {
+      // The header is fully in memory, so it never reads from a channel.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,14 +1,28 @@
 package ch.fhnw.huffman;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Provides util functions for file operations.
  */
 public class FileUtil {
+  /**
+   * Size in bytes from which files are read through memory mappings instead
+   * of buffered streams.
+   */
+  public static final long MAPPED_IO_THRESHOLD = 32L << 20;
+  /**
+   * Maximum size in bytes of a single memory mapping.
+   */
+  static final long MAP_WINDOW_SIZE = 1L << 30;
 
   /**
    * Returns cwd so the user knows where they're working from to avoid incorrect
@@ -87,4 +101,112 @@ public class FileUtil {
       throw new IllegalStateException(e);
     }
   }
+
+  /**
+   * Returns whether a file is large enough to be read through memory
+   * mappings. This function assumes the file exists when being called.
+   *
+   * @param filePath Path to the file to check.
+   * @return True if the file has at least MAPPED_IO_THRESHOLD bytes.
+   */
+  public static boolean isLarge(Path filePath) {
+    try {
+      return Files.size(filePath) >= MAPPED_IO_THRESHOLD;
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Opens a reader of the UTF-8 characters in a file. Large files are decoded
+   * straight from memory mappings, smaller ones through a buffered reader.
+   * This function assumes the file exists when being called.
+   *
+   * @param filePath Path to the file to read.
+   * @return Reader of the characters in the file.
+   */
+  public static Reader newReader(Path filePath) {
+    try {
+      return isLarge(filePath) ? new MappedFileReader(filePath)
+                               : Files.newBufferedReader(filePath);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Opens a channel to write to a file. Creates the file at filePath if it
+   * doesn't exist yet. Existing files will be overwritten.
+   *
+   * @param filePath File path to write to.
+   * @return Channel writing to the file.
+   */
+  public static FileChannel newWriteChannel(Path filePath) {
+    try {
+      return FileChannel.open(filePath, StandardOpenOption.CREATE,
+                              StandardOpenOption.TRUNCATE_EXISTING,
+                              StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Maps the content of a file from the current position of the channel into
+   * memory in consecutive read-only windows of at most MAP_WINDOW_SIZE bytes.
+   * Each window is mapped once the previous one has been handed out. The
+   * position of the channel isn't changed.
+   *
+   * @param channel Channel of the file to map.
+   * @return Iterator over the mapped windows in file order.
+   */
+  public static Iterator<ByteBuffer> map(FileChannel channel) {
+    return map(channel, Long.MAX_VALUE);
+  }
+
+  /**
+   * Maps the next bytes of a file from the current position of the channel
+   * into memory like {@link #map(FileChannel)}, stopping after the given
+   * number of bytes or at the end of the file.
+   *
+   * @param channel Channel of the file to map.
+   * @param length  Maximum number of bytes to map.
+   * @return Iterator over the mapped windows in file order.
+   */
+  public static Iterator<ByteBuffer> map(FileChannel channel, long length) {
+    long start;
+    try {
+      start = channel.position();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    long end = start + Math.min(length, Long.MAX_VALUE - start);
+    return new Iterator<>() {
+      private long position = start;
+
+      @Override public boolean hasNext() {
+        try {
+          return position < Math.min(end, channel.size());
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+
+      @Override public ByteBuffer next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        try {
+          long size = Math.min(MAP_WINDOW_SIZE,
+                               Math.min(end, channel.size()) - position);
+          ByteBuffer window =
+              channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+          position += size;
+          return window;
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+  }
 }
@@ -0,0 +1,260 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.HuffmanEncoding.HuffmanNode;
+import ch.fhnw.huffman.HuffmanEncoding.OccurrenceItem;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static ch.fhnw.huffman.ByteHuffmanEncoding.ALPHABET_SIZE;
+import static ch.fhnw.huffman.HuffmanEncoding.STREAM_BUFFER_SIZE;
+
+/**
+ * Occurrence count of every symbol of an input, held in a plain array indexed
+ * by symbol. Inputs in memory are split into chunks that are counted in
+ * parallel, each into its own array, and merged at the end. A histogram can
+ * be computed once and reused to build several encodings.
+ */
+@Immutable
+public class Histogram {
+  /**
+   * Number of distinct symbols when counting characters.
+   */
+  public static final int CHAR_ALPHABET_SIZE = 1 << 16;
+  /**
+   * Minimum number of symbols counted by a single task.
+   */
+  @VisibleForTesting static final int MIN_CHUNK_SIZE = 1 << 18;
+
+  private final long[] counts;
+
+  private Histogram(long[] counts) {
+    this.counts = counts;
+  }
+
+  /**
+   * Counts the characters of a text.
+   *
+   * @param text The text to count.
+   * @return Histogram over the character alphabet.
+   */
+  public static Histogram ofText(CharSequence text) {
+    ChunkCounter counter = (from, to, counts) -> {
+      for (int i = from; i < to; i++) {
+        counts[text.charAt(i)]++;
+      }
+    };
+    return new Histogram(ForkJoinPool.commonPool().invoke(
+        new CountTask(counter, CHAR_ALPHABET_SIZE, 0, text.length(),
+                      chunkSize(text.length()))));
+  }
+
+  /**
+   * Counts the characters of a text read from a stream. The text is read in
+   * chunks of fixed size, so memory use doesn't depend on its length.
+   *
+   * @param text Reader of the text to count.
+   * @return Histogram over the character alphabet.
+   * @throws IOException If reading from the stream fails.
+   */
+  public static Histogram ofText(Reader text) throws IOException {
+    long[] counts = new long[CHAR_ALPHABET_SIZE];
+    char[] buffer = new char[STREAM_BUFFER_SIZE];
+    int n;
+    while ((n = text.read(buffer)) >= 0) {
+      for (int i = 0; i < n; i++) {
+        counts[buffer[i]]++;
+      }
+    }
+    return new Histogram(counts);
+  }
+
+  /**
+   * Counts the remaining bytes of a buffer. The position of the buffer isn't
+   * changed.
+   *
+   * @param bytes The bytes to count.
+   * @return Histogram over the byte alphabet, indexed by unsigned value.
+   */
+  public static Histogram ofBytes(ByteBuffer bytes) {
+    int offset = bytes.position();
+    ChunkCounter counter = (from, to, counts) ->
+        ByteKernels.get().count(bytes, offset + from, offset + to, counts);
+    return new Histogram(ForkJoinPool.commonPool().invoke(
+        new CountTask(counter, ALPHABET_SIZE, 0, bytes.remaining(),
+                      chunkSize(bytes.remaining()))));
+  }
+
+  /**
+   * Counts the bytes read from a channel. The channel is read in chunks of
+   * fixed size, so memory use doesn't depend on its length.
+   *
+   * @param bytes Channel of the bytes to count.
+   * @return Histogram over the byte alphabet, indexed by unsigned value.
+   * @throws IOException If reading from the channel fails.
+   */
+  public static Histogram ofBytes(ReadableByteChannel bytes)
+      throws IOException {
+    long[] counts = new long[ALPHABET_SIZE];
+    int[] bufferCounts = new int[ALPHABET_SIZE];
+    ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+    while (bytes.read(buffer) >= 0) {
+      ByteKernels.get().count(buffer, 0, buffer.position(), bufferCounts);
+      for (int i = 0; i < ALPHABET_SIZE; i++) {
+        counts[i] += bufferCounts[i];
+        bufferCounts[i] = 0;
+      }
+      buffer.clear();
+    }
+    return new Histogram(counts);
+  }
+
+  /**
+   * Adds the counts of two histograms over the same alphabet, for example of
+   * two parts of an input.
+   *
+   * @param other Histogram to add.
+   * @return Histogram holding the sum of both counts.
+   */
+  public Histogram merge(Histogram other) {
+    if (other.counts.length != counts.length) {
+      throw new IllegalArgumentException(String.format(
+          "Can't merge histograms over %d and %d symbols.", counts.length,
+          other.counts.length));
+    }
+    long[] sum = counts.clone();
+    for (int i = 0; i < sum.length; i++) {
+      sum[i] += other.counts[i];
+    }
+    return new Histogram(sum);
+  }
+
+  /**
+   * Returns the number of occurrences of a symbol.
+   *
+   * @param symbol Character or unsigned byte value.
+   * @return Occurrence count of the symbol.
+   */
+  public long count(int symbol) {
+    return counts[symbol];
+  }
+
+  public int getAlphabetSize() {
+    return counts.length;
+  }
+
+  /**
+   * Returns the number of symbols that occur at least once.
+   *
+   * @return Number of distinct symbols.
+   */
+  public int getDistinctSymbols() {
+    int distinct = 0;
+    for (long count : counts) {
+      if (count > 0) {
+        distinct++;
+      }
+    }
+    return distinct;
+  }
+
+  /**
+   * Returns the counts indexed by symbol. The array is shared with this
+   * instance and must not be modified.
+   *
+   * @return Occurrence count of every symbol.
+   */
+  long[] getCounts() {
+    return counts;
+  }
+
+  /**
+   * Builds table of occurrences in ascending symbol order, leaving out
+   * symbols that don't occur.
+   *
+   * @return Occurrence table with HuffmanNodes as elements.
+   */
+  List<OccurrenceItem> toOccurrenceTable() {
+    List<OccurrenceItem> table = new ArrayList<>();
+    for (int symbol = 0; symbol < counts.length; symbol++) {
+      if (counts[symbol] > 0) {
+        table.add(new OccurrenceItem(Math.toIntExact(counts[symbol]),
+                                     HuffmanNode.createLeaf(symbol)));
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Splits inputs into at most four chunks per thread of the common pool, but
+   * no smaller than MIN_CHUNK_SIZE symbols.
+   */
+  private static int chunkSize(int length) {
+    int chunks = 4 * ForkJoinPool.getCommonPoolParallelism();
+    return Math.max(MIN_CHUNK_SIZE, (length + chunks - 1) / chunks);
+  }
+
+  /**
+   * Counts the symbols in a range of an input.
+   */
+  private interface ChunkCounter {
+    /**
+     * Adds the occurrences of the symbols in [from, to) to counts.
+     */
+    void count(int from, int to, int[] counts);
+  }
+
+  /**
+   * Counts a range of an input, splitting it in halves until the ranges are
+   * small enough to be counted into one array by a single task.
+   */
+  private static class CountTask extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient ChunkCounter counter;
+    private final int alphabetSize;
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+
+    CountTask(ChunkCounter counter, int alphabetSize, int from, int to,
+              int chunkSize) {
+      this.counter = counter;
+      this.alphabetSize = alphabetSize;
+      this.from = from;
+      this.to = to;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override protected long[] compute() {
+      if (to - from <= chunkSize) {
+        int[] counts = new int[alphabetSize];
+        counter.count(from, to, counts);
+        long[] result = new long[alphabetSize];
+        for (int i = 0; i < alphabetSize; i++) {
+          result[i] = counts[i];
+        }
+        return result;
+      }
+      int mid = (from + to) >>> 1;
+      CountTask left =
+          new CountTask(counter, alphabetSize, from, mid, chunkSize);
+      left.fork();
+      long[] result =
+          new CountTask(counter, alphabetSize, mid, to, chunkSize).compute();
+      long[] leftResult = left.join();
+      for (int i = 0; i < alphabetSize; i++) {
+        result[i] += leftResult[i];
+      }
+      return result;
+    }
+  }
+}
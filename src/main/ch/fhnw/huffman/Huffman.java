@@ -1,9 +1,15 @@
 package ch.fhnw.huffman;
 
+import ch.fhnw.huffman.commands.BatchCli;
 import ch.fhnw.huffman.commands.Command;
+import ch.fhnw.huffman.commands.DecodeBinaryCommand;
+import ch.fhnw.huffman.commands.DecodeBlocksCommand;
 import ch.fhnw.huffman.commands.DecodeCommand;
+import ch.fhnw.huffman.commands.EncodeBinaryCommand;
+import ch.fhnw.huffman.commands.EncodeBlocksCommand;
 import ch.fhnw.huffman.commands.EncodeCommand;
 import ch.fhnw.huffman.commands.QuitCommand;
+import ch.fhnw.huffman.commands.ServeCli;
 
 import java.util.Map;
 import java.util.Scanner;
@@ -15,18 +21,29 @@ import static ch.fhnw.huffman.ConsoleUtil.getUserInput;
  */
 public class Huffman {
   private static final Map<Character, Command> commandMap =
-      Map.of('e', new EncodeCommand(), 'd', new DecodeCommand(), 'q',
+      Map.of('e', new EncodeCommand(), 'd', new DecodeCommand(), 'E',
+             new EncodeBinaryCommand(), 'D', new DecodeBinaryCommand(), 'p',
+             new EncodeBlocksCommand(), 'P', new DecodeBlocksCommand(), 'q',
              new QuitCommand());
 
   /**
-   * Starting function of application.
+   * Starting function of application. Without arguments, the user is asked
+   * what to do. Arguments starting with serve are run by {@link ServeCli},
+   * all others by {@link BatchCli}.
    */
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].equals("serve")) {
+      System.exit(new ServeCli(System.err).run(args));
+    } else if (args.length > 0) {
+      System.exit(new BatchCli(System.in, System.out, System.err).run(args));
+    }
     Scanner s = new Scanner(System.in);
     boolean userWantsToDoSth = true;
     do {
       System.out.print(
-          "Would you like to [e]ncode, [d]ecode or [q]uit?\n> ");
+          "Would you like to [e]ncode, [d]ecode, [E]ncode binary, " +
+              "[D]ecode binary, [p]arallel encode, [P]arallel decode " +
+              "or [q]uit?\n> ");
       String userInput = getUserInput(s);
       if (userInput.length() != 1) {
         System.out.printf("Unexpected input length %d.%n", userInput.length());
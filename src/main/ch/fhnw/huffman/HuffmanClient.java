@@ -0,0 +1,132 @@
+package ch.fhnw.huffman;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import static ch.fhnw.huffman.HuffmanServer.DECODE;
+import static ch.fhnw.huffman.HuffmanServer.DECODE_TEXT;
+import static ch.fhnw.huffman.HuffmanServer.ENCODE;
+import static ch.fhnw.huffman.HuffmanServer.ENCODE_TEXT;
+import static ch.fhnw.huffman.HuffmanServer.OK;
+import static ch.fhnw.huffman.HuffmanServer.REQUEST_HEADER_SIZE;
+import static ch.fhnw.huffman.HuffmanServer.RESPONSE_HEADER_SIZE;
+import static ch.fhnw.huffman.HuffmanServer.readFully;
+
+/**
+ * Sends requests to a {@link HuffmanServer} over a single connection, which
+ * is kept open for all requests until the client is closed.
+ */
+@NotThreadSafe
+public class HuffmanClient implements Closeable {
+  private final SocketChannel channel;
+  private final ByteBuffer header = ByteBuffer.allocate(REQUEST_HEADER_SIZE);
+
+  /**
+   * Connects to a server.
+   *
+   * @param address Address of the server, see
+   *                {@link HuffmanServer#parseAddress(String)}.
+   * @throws IOException If connecting fails.
+   */
+  public HuffmanClient(SocketAddress address) throws IOException {
+    this.channel = address instanceof UnixDomainSocketAddress
+                   ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                   : SocketChannel.open();
+    try {
+      channel.connect(address);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Encodes bytes.
+   *
+   * @param plainBytes Bytes to encode.
+   * @return The encoded bytes.
+   * @throws IOException If the request fails.
+   */
+  public byte[] encode(byte[] plainBytes) throws IOException {
+    return send(ENCODE, 0, plainBytes);
+  }
+
+  /**
+   * Decodes bytes encoded with {@link #encode(byte[])}.
+   *
+   * @param encodedBytes Encoded bytes.
+   * @return The decoded bytes.
+   * @throws IOException If the request fails.
+   */
+  public byte[] decode(byte[] encodedBytes) throws IOException {
+    return send(DECODE, 0, encodedBytes);
+  }
+
+  /**
+   * Encodes a text against a dictionary of the server.
+   *
+   * @param dictionaryId ID of the dictionary.
+   * @param plainText    Text to encode.
+   * @return Packed bits of the encoded text including filler.
+   * @throws IOException If the request fails.
+   */
+  public byte[] encodeText(int dictionaryId, String plainText)
+      throws IOException {
+    return send(ENCODE_TEXT, dictionaryId,
+                plainText.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a text encoded with {@link #encodeText(int, String)}.
+   *
+   * @param dictionaryId ID of the dictionary.
+   * @param encodedText  Packed bits of the encoded text including filler.
+   * @return The decoded text.
+   * @throws IOException If the request fails.
+   */
+  public String decodeText(int dictionaryId, byte[] encodedText)
+      throws IOException {
+    return new String(send(DECODE_TEXT, dictionaryId, encodedText),
+                      StandardCharsets.UTF_8);
+  }
+
+  @Override public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Sends a request and waits for its response.
+   *
+   * @throws IOException If the connection fails or the server answers with
+   *                     an error, whose message it carries.
+   */
+  private byte[] send(byte operation, int dictionaryId, byte[] payload)
+      throws IOException {
+    header.clear().put(operation).putInt(dictionaryId).putInt(payload.length)
+          .flip();
+    ByteBuffer[] request = {header, ByteBuffer.wrap(payload)};
+    while (request[1].hasRemaining() || header.hasRemaining()) {
+      channel.write(request);
+    }
+    ByteBuffer responseHeader = ByteBuffer.allocate(RESPONSE_HEADER_SIZE);
+    if (!readFully(channel, responseHeader)) {
+      throw new IOException("Server closed the connection.");
+    }
+    byte status = responseHeader.flip().get();
+    byte[] response = new byte[responseHeader.getInt()];
+    if (!readFully(channel, ByteBuffer.wrap(response))) {
+      throw new IOException("Server closed the connection.");
+    }
+    if (status != OK) {
+      throw new IOException(new String(response, StandardCharsets.UTF_8));
+    }
+    return response;
+  }
+}
@@ -0,0 +1,636 @@
+package ch.fhnw.huffman;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import static ch.fhnw.huffman.HuffmanEncoding.STREAM_BUFFER_SIZE;
+
+/**
+ * Table-driven decoder for packed Huffman bit sequences. The code table is
+ * turned into a tree of lookup tables, each keyed on the next few bits of the
+ * input, so every symbol is decoded with one lookup per table level instead of
+ * probing prefixes one bit at a time.
+ */
+@Immutable
+public class HuffmanDecoder {
+  /**
+   * Number of bits the root table is keyed on.
+   */
+  @VisibleForTesting static final int ROOT_BITS = 10;
+  /**
+   * Maximum number of bits a sub-table is keyed on.
+   */
+  @VisibleForTesting static final int SUB_BITS = 8;
+  /**
+   * Number of bits the optional multi-symbol table is keyed on.
+   */
+  @VisibleForTesting static final int MULTI_BITS = 12;
+  /**
+   * Maximum number of symbols decoded by one lookup in the multi-symbol
+   * table, which holds them in 16 bits each.
+   */
+  @VisibleForTesting static final int MAX_MULTI_SYMBOLS = 3;
+  /**
+   * Minimum number of symbols, and maximum average code length in bits, for
+   * which the multi-symbol table pays off.
+   */
+  private static final long MULTI_MIN_SYMBOLS = 1 << 16;
+  private static final int MULTI_MAX_AVERAGE_BITS = MULTI_BITS / 2;
+
+  private static final int SUB_TABLE_FLAG = 0x80000000;
+
+  /**
+   * All lookup tables laid out back to back, the root table first. A leaf
+   * entry holds the symbol in the upper bits and the number of bits it
+   * consumes within its table in the lowest byte. A sub-table entry has the
+   * sign bit set and holds the offset and key width of the sub-table. An
+   * entry of 0 marks a bit sequence that isn't a valid code.
+   */
+  private final int[] table;
+  private final int rootBits;
+  /**
+   * Table keyed on the next MULTI_BITS bits, or null if the decoder doesn't
+   * decode several symbols per lookup. An entry holds the number of bits
+   * consumed in the lowest byte, the number of symbols in the second byte
+   * and the symbols in the 16-bit fields above, first symbol lowest. It
+   * holds as many codes as fit into the key in full, up to MAX_MULTI_SYMBOLS.
+   * An entry without symbols means the first code is longer than the key or
+   * invalid, and is decoded with the other table.
+   */
+  private final long[] multiTable;
+
+  /**
+   * Creates a decoder for the given encoding scheme.
+   *
+   * @param encoding Map from character value to binary string encoding.
+   */
+  public HuffmanDecoder(Map<Integer, String> encoding) {
+    this(CodeTable.of(encoding));
+  }
+
+  /**
+   * Creates a decoder for the codes of a table.
+   *
+   * @param table Table of the codes of every symbol.
+   */
+  public HuffmanDecoder(CodeTable table) {
+    this(table, false);
+  }
+
+  /**
+   * Creates a decoder for the codes of a table, optionally with a second
+   * lookup table that decodes several short codes per lookup. The second
+   * table takes a few thousand steps to build, which pays off for long
+   * inputs with short codes, see {@link #prefersMultiSymbol(long, long)}.
+   *
+   * @param table       Table of the codes of every symbol.
+   * @param multiSymbol Whether to decode several symbols per lookup.
+   */
+  public HuffmanDecoder(CodeTable table, boolean multiSymbol) {
+    List<Code> codes = new ArrayList<>(table.size());
+    int maxLength = 0;
+    for (int symbol = 0; symbol < table.getSymbolLimit(); symbol++) {
+      if (table.hasCode(symbol)) {
+        codes.add(new Code(symbol, table.code(symbol), table.length(symbol)));
+        maxLength = Math.max(maxLength, table.length(symbol));
+      }
+    }
+    this.rootBits = Math.max(1, Math.min(maxLength, ROOT_BITS));
+    TableBuilder builder = new TableBuilder();
+    builder.build(codes, 0, rootBits);
+    this.table = builder.toArray();
+    this.multiTable = multiSymbol ? buildMultiTable(table) : null;
+  }
+
+  /**
+   * Returns whether decoding several symbols per lookup pays off for an
+   * input, which is the case for long inputs whose codes are on average
+   * short enough for two of them to fit into one lookup.
+   *
+   * @param symbols   Number of encoded symbols.
+   * @param bitLength Number of bits of the encoded symbols.
+   * @return True if the decoder should be created with multiSymbol set.
+   */
+  public static boolean prefersMultiSymbol(long symbols, long bitLength) {
+    return symbols >= MULTI_MIN_SYMBOLS &&
+               bitLength <= symbols * MULTI_MAX_AVERAGE_BITS;
+  }
+
+  /**
+   * Decodes the first bitLength bits of the packed input. Bits are read most
+   * significant bit first.
+   *
+   * @param encodedText Packed bits of the encoded text.
+   * @param bitLength   Number of bits belonging to the encoded text.
+   * @return The decoded text.
+   */
+  public String decode(byte[] encodedText, long bitLength) {
+    checkBitLength(encodedText, bitLength);
+    StringWriter decodedText = new StringWriter();
+    try {
+      decode(new BitReader(encodedText, bitLength), decodedText::write);
+    } catch (IOException e) {
+      // The input is fully in memory, so it never reads from a channel.
+      throw new IllegalStateException(e);
+    }
+    return decodedText.toString();
+  }
+
+  /**
+   * Decodes packed encoded text, followed by a 1 and 0 to 7 filler zeros,
+   * while it is read from a channel. The channel is read through a buffer of
+   * fixed size and the decoded text is written to the output as it becomes
+   * available, so memory use doesn't depend on the length of the text.
+   * Neither the channel nor the output is closed.
+   *
+   * @param encodedText Channel of the packed encoded text including filler.
+   * @param output      Writer the decoded text is written to.
+   * @return Number of decoded characters.
+   * @throws IOException If reading or writing fails.
+   */
+  public long decode(ReadableByteChannel encodedText, Writer output)
+      throws IOException {
+    long symbols = decode(new BitReader(encodedText), output::write);
+    output.flush();
+    return symbols;
+  }
+
+  /**
+   * Decodes packed encoded text, followed by a 1 and 0 to 7 filler zeros,
+   * from a file that is mapped into memory window by window instead of being
+   * read through a buffer. Meant for large files, where it saves copying
+   * every byte out of the page cache. The encoded text starts at the current
+   * position of the channel. Neither the channel nor the output is closed.
+   *
+   * @param encodedText Channel of the file holding the packed encoded text
+   *                    including filler.
+   * @param output      Writer the decoded text is written to.
+   * @return Number of decoded characters.
+   * @throws IOException If reading or writing fails.
+   */
+  public long decodeMapped(FileChannel encodedText, Writer output)
+      throws IOException {
+    long symbols = decode(mappedInput(encodedText), output::write);
+    output.flush();
+    return symbols;
+  }
+
+  /**
+   * Decodes the first bitLength bits of packed input that was encoded from
+   * bytes instead of characters.
+   *
+   * @param encodedText Packed bits of the encoded bytes.
+   * @param bitLength   Number of bits belonging to the encoded bytes.
+   * @return The decoded bytes.
+   */
+  public byte[] decodeBytes(byte[] encodedText, long bitLength) {
+    checkBitLength(encodedText, bitLength);
+    ByteArrayOutputStream decodedBytes = new ByteArrayOutputStream();
+    try {
+      decode(new BitReader(encodedText, bitLength),
+             new ByteOutput(decodedBytes, null));
+    } catch (IOException e) {
+      // The input is fully in memory, so it never reads from a channel.
+      throw new IllegalStateException(e);
+    }
+    return decodedBytes.toByteArray();
+  }
+
+  /**
+   * Decodes packed encoded bytes, followed by a 1 and 0 to 7 filler zeros,
+   * while they are read from a channel, like
+   * {@link #decode(ReadableByteChannel, Writer)} does for text. Neither
+   * channel is closed.
+   *
+   * @param encodedText Channel of the packed encoded bytes including filler.
+   * @param output      Channel the decoded bytes are written to.
+   * @return Number of decoded bytes.
+   * @throws IOException If reading or writing fails.
+   */
+  public long decode(ReadableByteChannel encodedText,
+                     WritableByteChannel output) throws IOException {
+    return decode(new BitReader(encodedText), new ByteOutput(null, output));
+  }
+
+  /**
+   * Decodes packed encoded bytes, followed by a 1 and 0 to 7 filler zeros,
+   * from a file that is mapped into memory window by window, like
+   * {@link #decodeMapped(FileChannel, Writer)} does for text. Neither
+   * channel is closed.
+   *
+   * @param encodedText Channel of the file holding the packed encoded bytes
+   *                    including filler.
+   * @param output      Channel the decoded bytes are written to.
+   * @return Number of decoded bytes.
+   * @throws IOException If reading or writing fails.
+   */
+  public long decodeMapped(FileChannel encodedText,
+                           WritableByteChannel output) throws IOException {
+    return decode(mappedInput(encodedText), new ByteOutput(null, output));
+  }
+
+  /**
+   * Decodes the first bitLength bits of packed input held in a sequence of
+   * buffers, such as the mapped windows of a large file, and writes the
+   * decoded text to the output as it becomes available. The output isn't
+   * closed.
+   *
+   * @param encodedText Buffers of packed encoded text in order.
+   * @param bitLength   Number of bits belonging to the encoded text.
+   * @param output      Writer the decoded text is written to.
+   * @return Number of decoded characters.
+   * @throws IOException If writing fails.
+   */
+  public long decode(Iterator<ByteBuffer> encodedText, long bitLength,
+                     Writer output) throws IOException {
+    long symbols =
+        decode(new BitReader(encodedText, bitLength), output::write);
+    output.flush();
+    return symbols;
+  }
+
+  /**
+   * Decodes the first bitLength bits of packed input held in a sequence of
+   * buffers, like {@link #decode(Iterator, long, Writer)} does for text. The
+   * channel isn't closed.
+   *
+   * @param encodedText Buffers of packed encoded bytes in order.
+   * @param bitLength   Number of bits belonging to the encoded bytes.
+   * @param output      Channel the decoded bytes are written to.
+   * @return Number of decoded bytes.
+   * @throws IOException If writing fails.
+   */
+  public long decode(Iterator<ByteBuffer> encodedText, long bitLength,
+                     WritableByteChannel output) throws IOException {
+    return decode(new BitReader(encodedText, bitLength),
+                  new ByteOutput(null, output));
+  }
+
+  /**
+   * Decodes bytes that were split into consecutive segments, each encoded
+   * into a stream of its own with the codes of this decoder, such as the
+   * interleaved blocks of {@link BlockHuffmanCodec}. The streams are decoded
+   * in one loop, a symbol of every stream per iteration, so the decoding
+   * steps of different streams don't depend on each other and can overlap in
+   * the CPU pipeline.
+   *
+   * @param encodedStreams Buffers of the packed bits of every stream. Their
+   *                       positions are advanced as they are read.
+   * @param bitLengths     Number of bits belonging to every stream.
+   * @param plainLengths   Number of bytes every stream decodes to.
+   * @return The decoded bytes of all streams in order.
+   */
+  public byte[] decodeBytes(ByteBuffer[] encodedStreams, long[] bitLengths,
+                            int[] plainLengths) {
+    int streams = encodedStreams.length;
+    BitReader[] in = new BitReader[streams];
+    int[] offsets = new int[streams];
+    int total = 0;
+    int common = Integer.MAX_VALUE;
+    for (int s = 0; s < streams; s++) {
+      in[s] = new BitReader(encodedStreams[s], bitLengths[s]);
+      offsets[s] = total;
+      total = Math.addExact(total, plainLengths[s]);
+      common = Math.min(common, plainLengths[s]);
+    }
+    byte[] decodedBytes = new byte[total];
+    try {
+      int i = 0;
+      if (streams == 4) {
+        // Unrolled, so the four decoding steps sit side by side and don't
+        // wait for each other.
+        BitReader in0 = in[0];
+        BitReader in1 = in[1];
+        BitReader in2 = in[2];
+        BitReader in3 = in[3];
+        for (; i < common; i++) {
+          int s0 = decodeSymbol(in0);
+          int s1 = decodeSymbol(in1);
+          int s2 = decodeSymbol(in2);
+          int s3 = decodeSymbol(in3);
+          decodedBytes[i] = toByte(s0);
+          decodedBytes[offsets[1] + i] = toByte(s1);
+          decodedBytes[offsets[2] + i] = toByte(s2);
+          decodedBytes[offsets[3] + i] = toByte(s3);
+        }
+      }
+      for (; i < common; i++) {
+        for (int s = 0; s < streams; s++) {
+          decodedBytes[offsets[s] + i] = toByte(decodeSymbol(in[s]));
+        }
+      }
+      for (int s = 0; s < streams; s++) {
+        for (int j = common; j < plainLengths[s]; j++) {
+          decodedBytes[offsets[s] + j] = toByte(decodeSymbol(in[s]));
+        }
+        if (in[s].hasMore()) {
+          throw new IllegalArgumentException(String.format(
+              "Stream %d holds more than %d symbols.", s, plainLengths[s]));
+        }
+      }
+    } catch (IOException e) {
+      // The input is fully in memory, so it never reads from a channel.
+      throw new IllegalStateException(e);
+    }
+    return decodedBytes;
+  }
+
+  /**
+   * Decodes a range of symbols from packed bits that are read from the start
+   * of a code, such as a sync point recorded by
+   * {@link HuffmanEncoder#encode(java.io.Reader, WritableByteChannel, int)}.
+   * The symbols in front of the range are decoded and dropped.
+   *
+   * @param encodedText Reader positioned at the start of a code.
+   * @param skip        Number of symbols in front of the range.
+   * @param length      Number of symbols in the range.
+   * @return The decoded text of the range.
+   * @throws IOException If reading fails.
+   */
+  public String decode(BitReader encodedText, long skip, int length)
+      throws IOException {
+    skip(encodedText, skip);
+    StringWriter decodedText = new StringWriter(length);
+    checkDecoded(decode(encodedText, length, decodedText::write), length);
+    return decodedText.toString();
+  }
+
+  /**
+   * Decodes a range of bytes from packed bits that are read from the start
+   * of a code, like {@link #decode(BitReader, long, int)} does for text.
+   *
+   * @param encodedText Reader positioned at the start of a code.
+   * @param skip        Number of bytes in front of the range.
+   * @param length      Number of bytes in the range.
+   * @return The decoded bytes of the range.
+   * @throws IOException If reading fails.
+   */
+  public byte[] decodeBytes(BitReader encodedText, long skip, int length)
+      throws IOException {
+    skip(encodedText, skip);
+    ByteArrayOutputStream decodedBytes = new ByteArrayOutputStream(length);
+    checkDecoded(decode(encodedText, length,
+                        new ByteOutput(decodedBytes, null)), length);
+    return decodedBytes.toByteArray();
+  }
+
+  private void skip(BitReader in, long symbols) throws IOException {
+    checkDecoded(decode(in, symbols, (chunk, off, len) -> {
+    }), symbols);
+  }
+
+  private static void checkDecoded(long decoded, long expected) {
+    if (decoded < expected) {
+      throw new IllegalArgumentException(String.format(
+          "Encoded text ends after %d of %d symbols.", decoded, expected));
+    }
+  }
+
+  private static BitReader mappedInput(FileChannel encodedText)
+      throws IOException {
+    long size = encodedText.size() - encodedText.position();
+    ByteBuffer last = ByteBuffer.allocate(1);
+    if (size <= 0 || encodedText.read(last, encodedText.size() - 1) != 1 ||
+            last.get(0) == 0) {
+      throw new IllegalArgumentException("Encoded text has no filler.");
+    }
+    long bitLength =
+        8 * (size - 1) + 7 - Integer.numberOfTrailingZeros(last.get(0));
+    return new BitReader(FileUtil.map(encodedText), bitLength);
+  }
+
+  private static void checkBitLength(byte[] encodedText, long bitLength) {
+    if (bitLength < 0 || bitLength > 8L * encodedText.length) {
+      throw new IllegalArgumentException(
+          String.format("Bit length %d out of range.", bitLength));
+    }
+  }
+
+  private long decode(BitReader in, ChunkOutput output) throws IOException {
+    return decode(in, Long.MAX_VALUE, output);
+  }
+
+  /**
+   * Decodes until the input ends or limit symbols are decoded.
+   */
+  private long decode(BitReader in, long limit, ChunkOutput output)
+      throws IOException {
+    char[] chunk = new char[STREAM_BUFFER_SIZE];
+    int n = 0;
+    long symbols = 0;
+    while (symbols + n < limit && in.hasMore()) {
+      if (n > chunk.length - MAX_MULTI_SYMBOLS) {
+        output.write(chunk, 0, n);
+        symbols += n;
+        n = 0;
+      }
+      if (multiTable != null && limit - symbols - n >= MAX_MULTI_SYMBOLS) {
+        long multi = multiTable[(int) in.peek(MULTI_BITS)];
+        int consumed = (int) multi & 0xFF;
+        // Near the end, the key may reach past the last code.
+        if (consumed > 0 && in.canConsume(consumed)) {
+          int count = (int) (multi >>> 8) & 0xFF;
+          for (int i = 0; i < count; i++) {
+            chunk[n++] = (char) (multi >>> 16 * (i + 1));
+          }
+          in.consume(consumed);
+          continue;
+        }
+      }
+      chunk[n++] = (char) decodeSymbol(in);
+    }
+    output.write(chunk, 0, n);
+    return symbols + n;
+  }
+
+  /**
+   * Decodes the next symbol with one lookup per table level.
+   */
+  private int decodeSymbol(BitReader in) throws IOException {
+    int bits = rootBits;
+    int entry = table[(int) in.peek(bits)];
+    while (entry < 0) {
+      in.consume(bits);
+      int offset = (entry & ~SUB_TABLE_FLAG) >>> 4;
+      bits = entry & 0xF;
+      entry = table[offset + (int) in.peek(bits)];
+    }
+    int length = entry & 0xFF;
+    if (length == 0) {
+      throw new IllegalArgumentException(
+          String.format("Invalid code at bit %d.", in.position()));
+    }
+    in.consume(length);
+    return entry >>> 8;
+  }
+
+  private static byte toByte(int symbol) {
+    if (symbol > 0xFF) {
+      throw new IllegalArgumentException(
+          String.format("Decoded symbol %d isn't a byte.", symbol));
+    }
+    return (byte) symbol;
+  }
+
+  /**
+   * Builds the multi-symbol table by decoding every possible key greedily,
+   * as long as the next code fits into the rest of the key.
+   */
+  private static long[] buildMultiTable(CodeTable codes) {
+    int size = 1 << MULTI_BITS;
+    // Symbol and length of the first code of every key.
+    int[] first = new int[size];
+    for (int symbol = 0; symbol < codes.getSymbolLimit(); symbol++) {
+      int length = codes.length(symbol);
+      if (length >= 1 && length <= MULTI_BITS) {
+        int start = (int) codes.code(symbol) << (MULTI_BITS - length);
+        Arrays.fill(first, start, start + (1 << (MULTI_BITS - length)),
+                    (symbol << 8) | length);
+      }
+    }
+    long[] multiTable = new long[size];
+    for (int key = 0; key < size; key++) {
+      long entry = 0;
+      int consumed = 0;
+      int count = 0;
+      while (count < MAX_MULTI_SYMBOLS) {
+        int code = first[(key << consumed) & (size - 1)];
+        int length = code & 0xFF;
+        if (length == 0 || consumed + length > MULTI_BITS) {
+          break;
+        }
+        entry |= (long) (code >>> 8) << 16 * (count + 1);
+        consumed += length;
+        count++;
+      }
+      multiTable[key] = entry | (count << 8) | consumed;
+    }
+    return multiTable;
+  }
+
+  /**
+   * Receives decoded symbols a chunk at a time.
+   */
+  private interface ChunkOutput {
+    void write(char[] chunk, int off, int len) throws IOException;
+  }
+
+  /**
+   * Hands decoded symbols on as bytes, either to a stream or to a channel.
+   */
+  private static class ByteOutput implements ChunkOutput {
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+
+    ByteOutput(OutputStream stream, WritableByteChannel channel) {
+      this.stream = stream;
+      this.channel = channel;
+    }
+
+    @Override public void write(char[] chunk, int off, int len)
+        throws IOException {
+      byte[] bytes = buffer.array();
+      for (int i = 0; i < len; i++) {
+        bytes[i] = toByte(chunk[off + i]);
+      }
+      if (stream != null) {
+        stream.write(bytes, 0, len);
+      } else {
+        buffer.clear().limit(len);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+    }
+  }
+
+  /**
+   * Single code of the encoding scheme in numeric form.
+   */
+  private static class Code {
+    final int symbol;
+    final long bits;
+    final int length;
+
+    Code(int symbol, long bits, int length) {
+      this.symbol = symbol;
+      this.bits = bits;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Lays out the lookup tables for a set of codes into one growing array.
+   */
+  private static class TableBuilder {
+    private int[] entries = new int[1 << ROOT_BITS];
+    private int size = 0;
+
+    /**
+     * Adds a table keyed on the next bits bits for all codes sharing the
+     * first consumed bits, followed by the sub-tables it refers to.
+     *
+     * @return The offset of the added table.
+     */
+    int build(List<Code> codes, int consumed, int bits) {
+      int offset = allocate(1 << bits);
+      Map<Integer, List<Code>> longCodes = new TreeMap<>();
+      for (Code code : codes) {
+        int rest = code.length - consumed;
+        long restBits = code.bits & ((1L << rest) - 1);
+        if (rest <= bits) {
+          int first = (int) (restBits << (bits - rest));
+          Arrays.fill(entries, offset + first,
+                      offset + first + (1 << (bits - rest)),
+                      (code.symbol << 8) | rest);
+        } else {
+          longCodes.computeIfAbsent((int) (restBits >>> (rest - bits)),
+                                    k -> new ArrayList<>()).add(code);
+        }
+      }
+      for (Entry<Integer, List<Code>> e : longCodes.entrySet()) {
+        int maxRest = 0;
+        for (Code code : e.getValue()) {
+          maxRest = Math.max(maxRest, code.length - consumed - bits);
+        }
+        int subBits = Math.min(maxRest, SUB_BITS);
+        int subOffset = build(e.getValue(), consumed + bits, subBits);
+        entries[offset + e.getKey()] =
+            SUB_TABLE_FLAG | (subOffset << 4) | subBits;
+      }
+      return offset;
+    }
+
+    private int allocate(int n) {
+      if (size + n > entries.length) {
+        entries = Arrays.copyOf(entries,
+                                Math.max(size + n, entries.length * 2));
+      }
+      int offset = size;
+      size += n;
+      return offset;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(entries, size);
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package ch.fhnw.huffman;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static ch.fhnw.huffman.HuffmanEncoding.STREAM_BUFFER_SIZE;
+
+/**
+ * Encoder writing Huffman codes straight into packed bytes. Codes are
+ * packed by a {@link BitWriter}, so no intermediate string of binary digits
+ * is created.
+ */
+@Immutable
+public class HuffmanEncoder {
+  private final CodeTable table;
+
+  /**
+   * Creates an encoder for the given encoding scheme.
+   *
+   * @param encoding Map from character value to binary string encoding.
+   */
+  public HuffmanEncoder(Map<Integer, String> encoding) {
+    this(CodeTable.of(encoding));
+  }
+
+  /**
+   * Creates an encoder for the codes of a table.
+   *
+   * @param table Table of the codes of every symbol.
+   */
+  public HuffmanEncoder(CodeTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Encodes the input into packed bytes, most significant bit first, followed
+   * by a 1 and as many zeros as needed to fill the last byte.
+   *
+   * @param input Plain text.
+   * @return Packed bits of the encoded text including filler.
+   */
+  public byte[] encode(CharSequence input) {
+    long bitLength = 0;
+    for (int i = 0; i < input.length(); i++) {
+      bitLength += lengthOf(input.charAt(i));
+    }
+    if (bitLength / 8 + 1 > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException(
+          String.format("Encoded text of %d bits too long.", bitLength));
+    }
+    byte[] encodedText = new byte[(int) (bitLength / 8 + 1)];
+    BitWriter out = new BitWriter(encodedText);
+    try {
+      for (int i = 0; i < input.length(); i++) {
+        char c = input.charAt(i);
+        out.write(table.code(c), table.length(c));
+      }
+      out.finish();
+    } catch (IOException e) {
+      // The buffer is sized to fit, so it never gets flushed to a stream.
+      throw new IllegalStateException(e);
+    }
+    return encodedText;
+  }
+
+  /**
+   * Encodes text read from a stream and writes the packed bytes, followed by
+   * a 1 and as many zeros as needed to fill the last byte, to another stream.
+   * Both streams are processed through buffers of fixed size. Neither stream
+   * is closed.
+   *
+   * @param input  Reader of plain text.
+   * @param output Stream the encoded text is written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public void encode(Reader input, OutputStream output) throws IOException {
+    encode(input, new BitWriter(output));
+    output.flush();
+  }
+
+  /**
+   * Encodes text read from a stream and writes the packed bytes, followed by
+   * a 1 and as many zeros as needed to fill the last byte, to a channel. The
+   * bytes are collected in a direct buffer of fixed size, so they can be
+   * handed to the channel without copying. Neither the stream nor the channel
+   * is closed.
+   *
+   * @param input  Reader of plain text.
+   * @param output Channel the encoded text is written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public void encode(Reader input, WritableByteChannel output)
+      throws IOException {
+    encode(input, new BitWriter(output));
+  }
+
+  /**
+   * Encodes text read from a stream to a channel like
+   * {@link #encode(Reader, WritableByteChannel)}, recording a sync point
+   * every interval characters: the offset of the first bit of the code of
+   * every character whose index is a positive multiple of interval.
+   * Decoding can start at any sync point.
+   *
+   * @param input    Reader of plain text.
+   * @param output   Channel the encoded text is written to.
+   * @param interval Number of characters between sync points.
+   * @return Bit offsets of the sync points in order.
+   * @throws IOException If reading or writing fails.
+   */
+  public long[] encode(Reader input, WritableByteChannel output,
+                       int interval) throws IOException {
+    SyncPoints sync = new SyncPoints(interval);
+    encode(input, new BitWriter(output), sync);
+    return sync.toArray();
+  }
+
+  private void encode(Reader input, BitWriter out) throws IOException {
+    encode(input, out, new SyncPoints(0));
+  }
+
+  private void encode(Reader input, BitWriter out, SyncPoints sync)
+      throws IOException {
+    char[] chars = new char[STREAM_BUFFER_SIZE];
+    int n;
+    while ((n = input.read(chars)) >= 0) {
+      int i = 0;
+      while (i < n) {
+        for (int end = i + sync.take(n - i, out); i < end; i++) {
+          char c = chars[i];
+          out.write(table.code(c), lengthOf(c));
+        }
+      }
+    }
+    out.finish();
+  }
+
+  /**
+   * Encodes the remaining bytes of the input into packed bytes, like
+   * {@link #encode(CharSequence)} does for text. The position of the input
+   * isn't changed.
+   *
+   * @param input Plain bytes.
+   * @return Packed bits of the encoded bytes including filler.
+   */
+  public byte[] encode(ByteBuffer input) {
+    long bitLength = 0;
+    for (int i = input.position(); i < input.limit(); i++) {
+      bitLength += lengthOf(input.get(i) & 0xFF);
+    }
+    if (bitLength / 8 + 1 > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException(
+          String.format("Encoded text of %d bits too long.", bitLength));
+    }
+    byte[] encodedBytes = new byte[(int) (bitLength / 8 + 1)];
+    BitWriter out = new BitWriter(encodedBytes);
+    try {
+      encode(input.duplicate(), out, new SyncPoints(0));
+      out.finish();
+    } catch (IOException e) {
+      // The buffer is sized to fit, so it never gets flushed to a stream.
+      throw new IllegalStateException(e);
+    }
+    return encodedBytes;
+  }
+
+  /**
+   * Encodes bytes read from a channel and writes the packed bytes, followed
+   * by a 1 and as many zeros as needed to fill the last byte, to another
+   * channel, like {@link #encode(Reader, WritableByteChannel)} does for text.
+   * Neither channel is closed.
+   *
+   * @param input  Channel of plain bytes.
+   * @param output Channel the encoded bytes are written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public void encode(ReadableByteChannel input, WritableByteChannel output)
+      throws IOException {
+    encode(input, output, 0);
+  }
+
+  /**
+   * Encodes bytes read from a channel to another channel like
+   * {@link #encode(ReadableByteChannel, WritableByteChannel)}, recording a
+   * sync point every interval bytes like
+   * {@link #encode(Reader, WritableByteChannel, int)} does for text.
+   *
+   * @param input    Channel of plain bytes.
+   * @param output   Channel the encoded bytes are written to.
+   * @param interval Number of bytes between sync points.
+   * @return Bit offsets of the sync points in order.
+   * @throws IOException If reading or writing fails.
+   */
+  public long[] encode(ReadableByteChannel input, WritableByteChannel output,
+                       int interval) throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+    BitWriter out = new BitWriter(output);
+    SyncPoints sync = new SyncPoints(interval);
+    while (input.read(bytes) >= 0) {
+      encode(bytes.flip(), out, sync);
+      bytes.clear();
+    }
+    out.finish();
+    return sync.toArray();
+  }
+
+  /**
+   * Encodes plain bytes from a sequence of buffers, such as the mapped
+   * windows of a large file, and writes the packed bytes, followed by a 1 and
+   * as many zeros as needed to fill the last byte, to a channel. The channel
+   * isn't closed.
+   *
+   * @param input  Buffers of plain bytes in order.
+   * @param output Channel the encoded bytes are written to.
+   * @throws IOException If writing fails.
+   */
+  public void encode(Iterator<ByteBuffer> input, WritableByteChannel output)
+      throws IOException {
+    encode(input, output, 0);
+  }
+
+  /**
+   * Encodes plain bytes from a sequence of buffers to a channel like
+   * {@link #encode(Iterator, WritableByteChannel)}, recording a sync point
+   * every interval bytes like
+   * {@link #encode(Reader, WritableByteChannel, int)} does for text.
+   *
+   * @param input    Buffers of plain bytes in order.
+   * @param output   Channel the encoded bytes are written to.
+   * @param interval Number of bytes between sync points.
+   * @return Bit offsets of the sync points in order.
+   * @throws IOException If writing fails.
+   */
+  public long[] encode(Iterator<ByteBuffer> input, WritableByteChannel output,
+                       int interval) throws IOException {
+    BitWriter out = new BitWriter(output);
+    SyncPoints sync = new SyncPoints(interval);
+    while (input.hasNext()) {
+      encode(input.next(), out, sync);
+    }
+    out.finish();
+    return sync.toArray();
+  }
+
+  private void encode(ByteBuffer input, BitWriter out, SyncPoints sync)
+      throws IOException {
+    while (input.hasRemaining()) {
+      for (int n = sync.take(input.remaining(), out); n > 0; n--) {
+        int b = input.get() & 0xFF;
+        out.write(table.code(b), lengthOf(b));
+      }
+    }
+  }
+
+  private int lengthOf(int symbol) {
+    if (!table.hasCode(symbol)) {
+      throw new IllegalArgumentException(
+          String.format("No code for symbol %d.", symbol));
+    }
+    return table.length(symbol);
+  }
+
+  /**
+   * Bit offsets recorded every interval symbols while encoding. The encoding
+   * loops ask for the number of symbols they may encode before the next
+   * sync point, so they don't count symbols one by one.
+   */
+  private static class SyncPoints {
+    private final long interval;
+    private long untilNext;
+    private long[] offsets = new long[0];
+    private int size = 0;
+
+    /**
+     * Creates sync points every interval symbols, or none if interval is 0.
+     */
+    SyncPoints(int interval) {
+      if (interval < 0) {
+        throw new IllegalArgumentException(
+            String.format("Invalid sync interval %d.", interval));
+      }
+      this.interval = interval == 0 ? Long.MAX_VALUE : interval;
+      this.untilNext = this.interval;
+    }
+
+    /**
+     * Records a sync point if one is due and returns how many of the
+     * available symbols may be encoded before the next one.
+     */
+    int take(int available, BitWriter out) {
+      if (untilNext == 0) {
+        if (size == offsets.length) {
+          offsets = Arrays.copyOf(offsets, Math.max(16, 2 * size));
+        }
+        offsets[size++] = out.position();
+        untilNext = interval;
+      }
+      int n = (int) Math.min(available, untilNext);
+      untilNext -= n;
+      return n;
+    }
+
+    long[] toArray() {
+      return Arrays.copyOf(offsets, size);
+    }
+  }
+}
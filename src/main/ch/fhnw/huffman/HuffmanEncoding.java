@@ -1,26 +1,39 @@
 package ch.fhnw.huffman;
 
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.CodecMetrics.Stage;
+import ch.fhnw.huffman.Metrics.Recording;
 import com.google.common.annotations.VisibleForTesting;
 
 import javax.annotation.concurrent.Immutable;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.toMap;
-
 /**
  * Class to handle any Huffman-encoding-related tasks.
  */
 @Immutable
 public class HuffmanEncoding {
+  /**
+   * Size of the buffers used when reading or writing streams.
+   */
+  static final int STREAM_BUFFER_SIZE = 1 << 16;
+  /**
+   * Maximum code length of encodings unless another one is asked for. Codes
+   * of up to 16 bits fit every character and keep decoding tables small.
+   */
+  public static final int DEFAULT_MAX_CODE_LENGTH = 16;
+
   private final String plainText;
-  private final Map<Integer, String> encoding;
-  private final String encodedText;
+  private final CodeTable table;
+  private final byte[] encodedText;
 
   /**
    * Public interface function to create encoding table and encode plain text
@@ -43,12 +56,212 @@ public class HuffmanEncoding {
    */
   public static HuffmanEncoding fromEncoding(String encoding,
                                              String encodedText) {
+    try (Recording recording = Metrics.record(Operation.DECODE)) {
+      long start = System.nanoTime();
+      byte[] packed = packBits(encodedText);
+      recording.lap(Stage.PACK, start);
+      return new HuffmanEncoding(CodeTable.of(parseEncoding(encoding)),
+                                 packed);
+    }
+  }
+
+  /**
+   * Public interface function to decode encoded text in its packed form.
+   *
+   * @param encoding    The encoding scheme that was used to encode the plain
+   *                    text into the encoded binary format.
+   * @param encodedText The packed bits of the encoded text, followed by a 1
+   *                    and 0 to 7 filler zeros.
+   * @return The created instance of the huffman-encoding.
+   */
+  public static HuffmanEncoding fromEncoding(String encoding,
+                                             byte[] encodedText) {
+    return new HuffmanEncoding(CodeTable.of(parseEncoding(encoding)),
+                               encodedText);
+  }
+
+  /**
+   * Public interface function to decode encoded text in its packed form with
+   * the encoding given as binary header.
+   *
+   * @param encodingHeader The header of the encoding scheme, as written by
+   *                       {@link EncodingHeader#pack(Map)}.
+   * @param encodedText    The packed bits of the encoded text, followed by a
+   *                       1 and 0 to 7 filler zeros.
+   * @return The created instance of the huffman-encoding.
+   */
+  public static HuffmanEncoding fromEncoding(byte[] encodingHeader,
+                                             byte[] encodedText) {
+    return new HuffmanEncoding(
+        EncodingHeader.unpackTable(ByteBuffer.wrap(encodingHeader)),
+        encodedText);
+  }
+
+  /**
+   * Public interface function to create the encoding table for text that is
+   * read from a stream instead of being held in memory. The stream is read
+   * once to count occurrences, so the text can then be encoded in a second
+   * pass with {@link HuffmanEncoder#encode(Reader, OutputStream)}.
+   *
+   * @param plainText Reader of the text to encode.
+   * @return Map from character value to binary string encoding.
+   * @throws IOException If reading from the stream fails.
+   */
+  public static Map<Integer, String> computeEncoding(Reader plainText)
+      throws IOException {
+    return computeEncoding(Histogram.ofText(plainText));
+  }
+
+  /**
+   * Public interface function to create the encoding table from a histogram
+   * that has already been counted, so it doesn't have to be counted again
+   * for every encoding.
+   *
+   * @param histogram Occurrence count of every symbol.
+   * @return Map from symbol value to binary string encoding.
+   */
+  public static Map<Integer, String> computeEncoding(Histogram histogram) {
+    return computeEncoding(histogram, DEFAULT_MAX_CODE_LENGTH);
+  }
+
+  /**
+   * Public interface function to create an encoding table whose codes are no
+   * longer than the given number of bits, see
+   * {@link #computeLimitedCodeLengths(List, int)}.
+   *
+   * @param histogram     Occurrence count of every symbol.
+   * @param maxCodeLength Maximum number of bits of a code.
+   * @return Map from symbol value to binary string encoding.
+   */
+  public static Map<Integer, String> computeEncoding(Histogram histogram,
+                                                     int maxCodeLength) {
+    return computeCodeTable(histogram, maxCodeLength).asMap();
+  }
+
+  /**
+   * Public interface function to create the code table from a histogram,
+   * with codes of at most DEFAULT_MAX_CODE_LENGTH bits.
+   *
+   * @param histogram Occurrence count of every symbol.
+   * @return Table of canonical codes indexed by symbol.
+   */
+  public static CodeTable computeCodeTable(Histogram histogram) {
+    return computeCodeTable(histogram, DEFAULT_MAX_CODE_LENGTH);
+  }
+
+  /**
+   * Public interface function to create the code table from a histogram
+   * with codes of at most maxCodeLength bits, without building the map form
+   * of the encoding.
+   *
+   * @param histogram     Occurrence count of every symbol.
+   * @param maxCodeLength Maximum number of bits of a code.
+   * @return Table of canonical codes indexed by symbol.
+   */
+  public static CodeTable computeCodeTable(Histogram histogram,
+                                           int maxCodeLength) {
+    long[] counts = histogram.getCounts();
+    int n = 0;
+    for (long count : counts) {
+      if (count > 0) {
+        n++;
+      }
+    }
+    int[] symbols = new int[n];
+    long[] symbolCounts = new long[n];
+    for (int symbol = 0, i = 0; symbol < counts.length; symbol++) {
+      if (counts[symbol] > 0) {
+        symbols[i] = symbol;
+        symbolCounts[i++] = counts[symbol];
+      }
+    }
+    return computeCodeTable(symbols, symbolCounts, counts.length,
+                            maxCodeLength);
+  }
+
+  /**
+   * Creates the encoding table for an occurrence table. The code lengths are
+   * taken from the Huffman tree, unless some of them exceed maxCodeLength;
+   * then the optimal lengths within that limit are used instead.
+   *
+   * @param o             Occurrence table.
+   * @param maxCodeLength Maximum number of bits of a code.
+   * @return Map from symbol value to binary string encoding.
+   */
+  static Map<Integer, String> computeEncoding(List<OccurrenceItem> o,
+                                              int maxCodeLength) {
+    int[] symbols = new int[o.size()];
+    long[] counts = new long[o.size()];
+    int symbolLimit = 0;
+    for (int i = 0; i < o.size(); i++) {
+      symbols[i] = o.get(i).node.c;
+      counts[i] = o.get(i).count;
+      symbolLimit = Math.max(symbolLimit, symbols[i] + 1);
+    }
+    return computeCodeTable(symbols, counts, symbolLimit, maxCodeLength)
+        .asMap();
+  }
+
+  /**
+   * Creates the code table for an occurrence table given as parallel arrays,
+   * see {@link #computeEncoding(List, int)}.
+   *
+   * @param symbols       Symbol of every item of the occurrence table.
+   * @param counts        Occurrence count of every item.
+   * @param symbolLimit   One more than the largest symbol.
+   * @param maxCodeLength Maximum number of bits of a code.
+   * @return Table of canonical codes indexed by symbol.
+   */
+  static CodeTable computeCodeTable(int[] symbols, long[] counts,
+                                    int symbolLimit, int maxCodeLength) {
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    int[] lengths;
+    if (symbols.length <= 1) {
+      // The tree of a single symbol is a lone leaf of depth 0. It still
+      // gets a code of one bit, so every occurrence takes up bits that the
+      // decoder can count. Without symbols, the table is empty and only
+      // encodes empty inputs.
+      lengths = new int[symbols.length];
+      Arrays.fill(lengths, 1);
+    } else {
+      lengths = computeTreeDepths(buildTree(counts));
+      for (int length : lengths) {
+        if (length > maxCodeLength) {
+          lengths = computeLimitedLengths(counts, maxCodeLength);
+          break;
+        }
+      }
+    }
+    byte[] bySymbol = new byte[symbolLimit];
+    Arrays.fill(bySymbol, (byte) -1);
+    for (int i = 0; i < symbols.length; i++) {
+      bySymbol[symbols[i]] = (byte) Math.min(lengths[i], Byte.MAX_VALUE);
+    }
+    start = recording.lap(Stage.TREE, start);
+    CodeTable table = CodeTable.canonical(bySymbol);
+    recording.lap(Stage.TABLE, start);
+    return table;
+  }
+
+  /**
+   * Parses an encoding scheme in the format of
+   * {@link #stringifyEncoding(Map)}.
+   *
+   * @param encoding String format of encoding.
+   * @return Map from character value to binary string encoding.
+   */
+  public static Map<Integer, String> parseEncoding(String encoding) {
     Map<Integer, String> encodingMap = new HashMap<>();
+    if (encoding.isEmpty()) {
+      // The encoding of an empty text has no codes.
+      return encodingMap;
+    }
     Arrays.stream(encoding.split("-")).forEach(e -> {
       String[] encodingPart = e.split(":");
       encodingMap.put(Integer.parseInt(encodingPart[0]), encodingPart[1]);
     });
-    return new HuffmanEncoding(encodingMap, encodedText);
+    return encodingMap;
   }
 
   /**
@@ -57,32 +270,51 @@ public class HuffmanEncoding {
    * @param plainText Text to be encoded.
    */
   private HuffmanEncoding(String plainText) {
-    this.plainText = plainText;
-    this.encoding =
-        computeEncodingTable(
-            computeEncodingTree(buildOccurrenceTable(plainText)));
-    this.encodedText = encodeInput(encoding, plainText);
+    try (Recording recording = Metrics.record(Operation.ENCODE)) {
+      long start = System.nanoTime();
+      Histogram histogram = Histogram.ofText(plainText);
+      recording.lap(Stage.COUNT, start);
+      this.plainText = plainText;
+      this.table = computeCodeTable(histogram);
+      start = System.nanoTime();
+      this.encodedText = new HuffmanEncoder(table).encode(plainText);
+      recording.lap(Stage.ENCODE, start);
+      recording.setTable(table);
+      recording.setSizes(plainText.length(), encodedText.length);
+    }
   }
 
   /**
    * Constructor for decoding text.
    *
-   * @param encoding    Encoding scheme used to decode encoded text.
-   * @param encodedText Encoded text.
+   * @param table       Code table used to decode encoded text.
+   * @param encodedText Packed encoded text including filler.
    */
-  private HuffmanEncoding(Map<Integer, String> encoding, String encodedText) {
-    this.encoding = encoding;
-    this.encodedText = encodedText;
-    this.plainText = decodeText(encoding, encodedText);
+  private HuffmanEncoding(CodeTable table, byte[] encodedText) {
+    try (Recording recording = Metrics.record(Operation.DECODE)) {
+      long start = System.nanoTime();
+      this.table = table;
+      this.encodedText = encodedText;
+      this.plainText = new HuffmanDecoder(table).decode(
+          encodedText, payloadBitLength(encodedText));
+      recording.lap(Stage.DECODE, start);
+      recording.setTable(table);
+      recording.setSizes(encodedText.length, plainText.length());
+    }
   }
 
   public String getPlainText() {
     return plainText;
   }
 
+  /**
+   * Returns the encoding as a read-only map view of its code table.
+   *
+   * @return Map from character value to binary string encoding.
+   */
   @VisibleForTesting
   Map<Integer, String> getEncoding() {
-    return encoding;
+    return table.asMap();
   }
 
   /**
@@ -91,13 +323,48 @@ public class HuffmanEncoding {
    * @return String format of encoding.
    */
   public String getStringifiedEncoding() {
-    return getEncoding().entrySet().parallelStream()
-                        .map(e -> String.format("%d:%s", e.getKey(),
-                                                e.getValue()))
-                        .collect(Collectors.joining("-"));
+    return stringifyEncoding(getEncoding());
+  }
+
+  /**
+   * Provides encoding in a compact binary format ready to be saved to file.
+   *
+   * @return Header holding the code lengths of the encoding.
+   */
+  public byte[] getEncodingHeader() {
+    return EncodingHeader.pack(table);
   }
 
+  /**
+   * Provides an encoding in a string format ready to be saved to file.
+   *
+   * @param encoding Map from character value to binary string encoding.
+   * @return String format of encoding.
+   */
+  public static String stringifyEncoding(Map<Integer, String> encoding) {
+    return encoding.entrySet().parallelStream()
+                   .map(e -> String.format("%d:%s", e.getKey(),
+                                           e.getValue()))
+                   .collect(Collectors.joining("-"));
+  }
+
+  /**
+   * Provides the encoded text as a string of binary digits without filler.
+   *
+   * @return Binary digits of the encoded text.
+   */
   public String getEncodedText() {
+    return BinaryDigits.expand(encodedText, payloadBitLength(encodedText));
+  }
+
+  /**
+   * Provides the packed encoded text, followed by a 1 and 0 to 7 filler
+   * zeros, ready to be saved to file. The array is shared with this instance
+   * to avoid copying large outputs and must not be modified.
+   *
+   * @return Packed bytes of the encoded text.
+   */
+  public byte[] getEncodedBytes() {
     return encodedText;
   }
 
@@ -111,24 +378,56 @@ public class HuffmanEncoding {
   @VisibleForTesting
   static String decodeText(Map<Integer, String> encoding,
                            String encodedText) {
-    Map<String, Integer> reverseEncoding =
-        encoding.entrySet().parallelStream()
-                .collect(toMap(Entry::getValue, Entry::getKey));
-    StringBuilder bitSeq = new StringBuilder(encodedText);
-    StringBuilder decodedText = new StringBuilder();
-    while (!bitSeq.isEmpty()) {
-      boolean seqFound = false;
-      for (int i = 1; i <= bitSeq.length() && !seqFound; i++) {
-        String potentialKey = bitSeq.substring(0, i);
-        if (reverseEncoding.containsKey(potentialKey)) {
-          decodedText.append(
-              (char) reverseEncoding.get(potentialKey).intValue());
-          bitSeq.delete(0, i);
-          seqFound = true;
-        }
-      }
+    return new HuffmanDecoder(encoding).decode(packBits(encodedText),
+                                               encodedText.length());
+  }
+
+  /**
+   * Packs a string of binary digits into bytes, most significant bit first,
+   * and appends a 1 followed by as many zeros as needed to fill the last
+   * byte.
+   *
+   * @param bitSeq String of binary digits.
+   * @return Packed bits including filler.
+   */
+  @VisibleForTesting
+  static byte[] packBits(String bitSeq) {
+    byte[] packed = new byte[bitSeq.length() / 8 + 1];
+    BinaryDigits.pack(bitSeq, packed);
+    packed[bitSeq.length() / 8] |= (byte) (0x80 >>> (bitSeq.length() & 7));
+    return packed;
+  }
+
+  /**
+   * Returns the number of bits in front of the filler of packed encoded text,
+   * which is the position of the last 1 bit.
+   *
+   * @param encodedText Packed encoded text including filler.
+   * @return Number of bits belonging to the encoded text.
+   */
+  @VisibleForTesting
+  static long payloadBitLength(byte[] encodedText) {
+    return payloadBitLength(ByteBuffer.wrap(encodedText));
+  }
+
+  /**
+   * Returns the number of bits in front of the filler of packed encoded text
+   * between the position and the limit of a buffer, without changing the
+   * position.
+   *
+   * @param encodedText Buffer of packed encoded text including filler.
+   * @return Number of bits belonging to the encoded text.
+   */
+  static long payloadBitLength(ByteBuffer encodedText) {
+    int i = encodedText.limit() - 1;
+    while (i >= encodedText.position() && encodedText.get(i) == 0) {
+      i--;
     }
-    return decodedText.toString();
+    if (i < encodedText.position()) {
+      throw new IllegalArgumentException("Encoded text has no filler.");
+    }
+    return 8L * (i - encodedText.position()) + 7 -
+               Integer.numberOfTrailingZeros(encodedText.get(i));
   }
 
   /**
@@ -140,9 +439,14 @@ public class HuffmanEncoding {
    */
   @VisibleForTesting
   static String encodeInput(Map<Integer, String> encoding, String input) {
+    CodeTable table = CodeTable.of(encoding);
     StringBuilder encodedT = new StringBuilder();
     for (int i = 0; i < input.length(); i++) {
-      encodedT.append(encoding.get((int) input.charAt(i)));
+      char c = input.charAt(i);
+      long code = table.code(c);
+      for (int bit = table.length(c) - 1; bit >= 0; bit--) {
+        encodedT.append((code >>> bit & 1) == 0 ? '0' : '1');
+      }
     }
     return encodedT.toString();
   }
@@ -155,79 +459,317 @@ public class HuffmanEncoding {
    */
   @VisibleForTesting
   static List<OccurrenceItem> buildOccurrenceTable(String input) {
-    Map<Integer, Integer> occurrences = new HashMap<>();
-    input.chars().forEach(c -> {
-      if (occurrences.containsKey(c)) {
-        occurrences.replace(c, occurrences.get(c) + 1);
-      } else {occurrences.put(c, 1);}
-    });
-    return occurrences.entrySet().parallelStream()
-                      .map(e -> new OccurrenceItem(e.getValue(),
-                                                   HuffmanNode.createLeaf(
-                                                       e.getKey()))).collect(
-            Collectors.toCollection(ArrayList::new));
+    return Histogram.ofText(input).toOccurrenceTable();
   }
 
   /**
    * Builds the encoding tree from the occurrence table. If there are multiple
    * elements with the same occurrence probability the order dictates which of
    * them are "less-likely"; the ones with a lower index are then considered
-   * less likely to occur.
+   * less likely to occur. A combined item takes the place of the less likely
+   * of its two parts, so it is ordered by that part's index. Items are kept
+   * in a binary heap ordered by count and index, which takes O(n log n)
+   * steps for n items.
    *
    * @param o Occurrence table.
    * @return The root node of the encoding tree.
    */
   @VisibleForTesting
   static HuffmanNode computeEncodingTree(List<OccurrenceItem> o) {
-    if (o.size() == 0) {
+    long[] counts = new long[o.size()];
+    for (int i = 0; i < o.size(); i++) {
+      counts[i] = o.get(i).count;
+    }
+    FlatTree tree = buildTree(counts);
+    HuffmanNode[] nodes = new HuffmanNode[2 * o.size() - 1];
+    for (int i = 0; i < o.size(); i++) {
+      nodes[i] = o.get(i).node;
+    }
+    for (int node = o.size(); node < nodes.length; node++) {
+      nodes[node] = HuffmanNode.createBranch(nodes[tree.left(node)],
+                                             nodes[tree.right(node)]);
+    }
+    return nodes[nodes.length - 1];
+  }
+
+  /**
+   * Builds the encoding tree as described for
+   * {@link #computeEncodingTree(List)}, held in flat arrays instead of node
+   * objects. The queue is a binary heap of node numbers.
+   *
+   * @param counts Occurrence count of every item of the occurrence table.
+   * @return The encoding tree.
+   */
+  private static FlatTree buildTree(long[] counts) {
+    int n = counts.length;
+    if (n == 0) {
       throw new IllegalArgumentException(
           "Can't calculate encoding tree with no occurrences.");
     }
-    while (o.size() > 1) {
-      int lowestI = 0;
-      for (int i = 1; i < o.size(); i++) { // skip [0]
-        if (o.get(i).count < o.get(lowestI).count) {
-          lowestI = i;
-        }
+    FlatTree tree = new FlatTree(n);
+    long[] weights = new long[2 * n - 1];
+    int[] ranks = new int[2 * n - 1];
+    int[] heap = new int[n];
+    for (int i = 0; i < n; i++) {
+      weights[i] = counts[i];
+      ranks[i] = i;
+      heap[i] = i;
+    }
+    // Leaves are already ordered by rank, so equal counts keep their order.
+    for (int i = n / 2 - 1; i >= 0; i--) {
+      siftDown(heap, n, i, weights, ranks);
+    }
+    int size = n;
+    for (int node = n; node < 2 * n - 1; node++) {
+      int lowest = heap[0];
+      heap[0] = heap[--size];
+      siftDown(heap, size, 0, weights, ranks);
+      int secondLowest = heap[0];
+      // Combine lowest occurrence items
+      weights[node] = weights[lowest] + weights[secondLowest];
+      ranks[node] = ranks[lowest];
+      tree.setChildren(node, lowest, secondLowest);
+      heap[0] = node;
+      siftDown(heap, size, 0, weights, ranks);
+    }
+    return tree;
+  }
+
+  private static void siftDown(int[] heap, int size, int i, long[] weights,
+                               int[] ranks) {
+    int node = heap[i];
+    while (2 * i + 1 < size) {
+      int child = 2 * i + 1;
+      if (child + 1 < size &&
+              precedes(heap[child + 1], heap[child], weights, ranks)) {
+        child++;
       }
-      int secondLowestI = lowestI == 0 ? 1 : 0;
-      for (int i = 1; i < o.size(); i++) { // skip [0]
-        if (lowestI != i && o.get(i).count < o.get(secondLowestI).count) {
-          secondLowestI = i;
-        }
+      if (!precedes(heap[child], node, weights, ranks)) {
+        break;
       }
-      // Combine lowest occurrence items
-      o.set(lowestI, new OccurrenceItem(
-          o.get(lowestI).count + o.get(secondLowestI).count,
-          HuffmanNode.createBranch(o.get(lowestI).node,
-                                   o.get(secondLowestI).node)));
-      o.remove(secondLowestI);
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = node;
+  }
+
+  private static boolean precedes(int a, int b, long[] weights,
+                                  int[] ranks) {
+    return weights[a] < weights[b] ||
+               weights[a] == weights[b] && ranks[a] < ranks[b];
+  }
+
+  /**
+   * Returns the depth of every leaf of a tree, which is the code length of
+   * its item. Parents are numbered above their children, so depths can be
+   * handed down from the root in descending order.
+   */
+  private static int[] computeTreeDepths(FlatTree tree) {
+    int n = tree.leaves;
+    int[] depths = new int[2 * n - 1];
+    for (int node = 2 * n - 2; node >= n; node--) {
+      depths[tree.left(node)] = depths[node] + 1;
+      depths[tree.right(node)] = depths[node] + 1;
     }
-    return o.get(0).node;
+    return Arrays.copyOf(depths, n);
   }
 
   /**
    * Computes the mapping of character to binary string for a given Huffman
-   * tree.
+   * tree. Only the depth of every leaf is taken from the tree; the codes are
+   * then assigned canonically, see {@link #canonicalEncoding(Map)}.
    *
    * @param node The root node of the encoding tree.
    * @return Map from ASCII value of character to binary string encoding.
    */
   @VisibleForTesting
   static Map<Integer, String> computeEncodingTable(HuffmanNode node) {
-    Map<Integer, String> encoding = new HashMap<>();
-    recComputeEncodingTable(node, encoding, "");
-    return encoding;
+    return canonicalEncoding(computeCodeLengths(node));
   }
 
-  private static void recComputeEncodingTable(HuffmanNode node,
-                                              Map<Integer, String> e,
-                                              String currE) {
+  private static Map<Integer, Integer> computeCodeLengths(HuffmanNode node) {
+    Map<Integer, Integer> codeLengths = new HashMap<>();
+    recComputeCodeLengths(node, codeLengths, 0);
+    return codeLengths;
+  }
+
+  private static void recComputeCodeLengths(HuffmanNode node,
+                                            Map<Integer, Integer> l,
+                                            int depth) {
     if (node.isLeaf()) {
-      e.put(node.c, currE);
+      l.put(node.c, depth);
     } else {
-      recComputeEncodingTable(node.left, e, currE + "0");
-      recComputeEncodingTable(node.right, e, currE + "1");
+      recComputeCodeLengths(node.left, l, depth + 1);
+      recComputeCodeLengths(node.right, l, depth + 1);
+    }
+  }
+
+  /**
+   * Computes optimal code lengths of at most maxCodeLength bits with the
+   * package-merge algorithm. Every item is a coin of its count; on each of
+   * maxCodeLength - 1 rounds, adjacent pairs of the cheapest coins are
+   * packaged and merged with the items again. Of the final list, the 2n - 2
+   * cheapest coins are taken, and the code length of an item is the number of
+   * times it is part of them. Takes O(n * maxCodeLength) steps for n items.
+   *
+   * @param o             Occurrence table.
+   * @param maxCodeLength Maximum number of bits of a code.
+   * @return Map from symbol value to code length.
+   */
+  @VisibleForTesting
+  static Map<Integer, Integer> computeLimitedCodeLengths(
+      List<OccurrenceItem> o, int maxCodeLength) {
+    long[] counts = new long[o.size()];
+    for (int i = 0; i < o.size(); i++) {
+      counts[i] = o.get(i).count;
+    }
+    int[] lengths = computeLimitedLengths(counts, maxCodeLength);
+    Map<Integer, Integer> codeLengths = new HashMap<>();
+    for (int i = 0; i < o.size(); i++) {
+      codeLengths.put(o.get(i).node.c, lengths[i]);
+    }
+    return codeLengths;
+  }
+
+  /**
+   * Computes the limited code lengths of
+   * {@link #computeLimitedCodeLengths(List, int)} for an occurrence table
+   * given by its counts.
+   *
+   * @return Code length of every item, in the order of counts.
+   */
+  private static int[] computeLimitedLengths(long[] counts,
+                                             int maxCodeLength) {
+    int n = counts.length;
+    if (maxCodeLength < 1 ||
+            maxCodeLength < Integer.SIZE - 1 && n > 1 << maxCodeLength) {
+      throw new IllegalArgumentException(
+          String.format("Can't fit %d symbols into codes of %d bits.", n,
+                        maxCodeLength));
+    }
+    if (n == 1) {
+      return new int[1];
+    }
+    // Nodes 0 to n - 1 are the items by ascending count, the others are
+    // packages of two nodes. The items are sorted as counts shifted left by
+    // indexBits with the index in the low bits, so equal counts keep their
+    // order.
+    int indexBits = Integer.SIZE - Integer.numberOfLeadingZeros(n - 1);
+    long[] items = new long[n];
+    for (int i = 0; i < n; i++) {
+      if (counts[i] >>> (Long.SIZE - 1 - indexBits) != 0) {
+        throw new IllegalArgumentException(
+            String.format("Count %d too large.", counts[i]));
+      }
+      items[i] = counts[i] << indexBits | i;
+    }
+    Arrays.sort(items);
+    int capacity = n + (maxCodeLength - 1) * (n - 1);
+    long[] weights = new long[capacity];
+    int[] lefts = new int[capacity];
+    int[] rights = new int[capacity];
+    for (int i = 0; i < n; i++) {
+      weights[i] = items[i] >>> indexBits;
+    }
+    int nodes = n;
+    int[] coins = new int[n];
+    for (int i = 0; i < n; i++) {
+      coins[i] = i;
+    }
+    for (int round = 1; round < maxCodeLength; round++) {
+      int packages = Math.min(coins.length, 2 * n - 2) / 2;
+      int[] merged = new int[n + packages];
+      int item = 0;
+      int pkg = 0;
+      for (int i = 0; i < merged.length; i++) {
+        if (pkg < packages && (item == n ||
+            weights[coins[2 * pkg]] + weights[coins[2 * pkg + 1]] <
+                weights[item])) {
+          weights[nodes] = weights[coins[2 * pkg]] +
+              weights[coins[2 * pkg + 1]];
+          lefts[nodes] = coins[2 * pkg];
+          rights[nodes] = coins[2 * pkg + 1];
+          merged[i] = nodes++;
+          pkg++;
+        } else {
+          merged[i] = item++;
+        }
+      }
+      coins = merged;
+    }
+    int[] lengths = new int[n];
+    int[] stack = new int[maxCodeLength + 1];
+    for (int i = 0; i < 2 * n - 2; i++) {
+      int top = 0;
+      stack[top++] = coins[i];
+      while (top > 0) {
+        int node = stack[--top];
+        if (node < n) {
+          lengths[node]++;
+        } else {
+          stack[top++] = lefts[node];
+          stack[top++] = rights[node];
+        }
+      }
+    }
+    int[] itemLengths = new int[n];
+    for (int i = 0; i < n; i++) {
+      itemLengths[(int) (items[i] & (1L << indexBits) - 1)] = lengths[i];
+    }
+    return itemLengths;
+  }
+
+  /**
+   * Assigns canonical codes to symbols of the given code lengths. Symbols are
+   * ordered by code length and then by value, and every symbol gets the code
+   * following the one of its predecessor, extended with zeros to its length.
+   * The codes are therefore fully defined by their lengths, which is all an
+   * encoding header needs to store.
+   *
+   * @param codeLengths Map from symbol value to code length.
+   * @return Map from symbol value to binary string encoding.
+   */
+  @VisibleForTesting
+  static Map<Integer, String> canonicalEncoding(
+      Map<Integer, Integer> codeLengths) {
+    int symbolLimit = 0;
+    for (int symbol : codeLengths.keySet()) {
+      symbolLimit = Math.max(symbolLimit, symbol + 1);
+    }
+    byte[] lengths = new byte[symbolLimit];
+    Arrays.fill(lengths, (byte) -1);
+    codeLengths.forEach((symbol, length) -> lengths[symbol] =
+        (byte) Math.min(length, Byte.MAX_VALUE));
+    return CodeTable.canonical(lengths).asMap();
+  }
+
+  /**
+   * Encoding tree of n leaves held in flat arrays. Nodes 0 to n - 1 are the
+   * leaves in the order of the occurrence table, and node n + i is the i-th
+   * combined item, so the root is node 2n - 2.
+   */
+  private static class FlatTree {
+    private final int leaves;
+    private final int[] lefts;
+    private final int[] rights;
+
+    FlatTree(int leaves) {
+      this.leaves = leaves;
+      this.lefts = new int[leaves - 1];
+      this.rights = new int[leaves - 1];
+    }
+
+    void setChildren(int node, int left, int right) {
+      lefts[node - leaves] = left;
+      rights[node - leaves] = right;
+    }
+
+    int left(int node) {
+      return lefts[node - leaves];
+    }
+
+    int right(int node) {
+      return rights[node - leaves];
     }
   }
 
@@ -0,0 +1,922 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.CodecMetrics.Stage;
+import ch.fhnw.huffman.Metrics.Recording;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static ch.fhnw.huffman.FileUtil.isLarge;
+import static ch.fhnw.huffman.FileUtil.newReader;
+import static ch.fhnw.huffman.FileUtil.newWriteChannel;
+
+/**
+ * Single file holding an encoding together with the text or bytes encoded
+ * with it:
+ * <pre>
+ * int    magic number
+ * byte   format version
+ * byte   alphabet, 0 for characters and 1 for bytes, plus 0x80 if the file
+ *        refers to a dictionary and 0x40 if the payload is followed by an
+ *        index
+ * long   number of encoded symbols
+ * long   number of payload bits in front of the filler
+ * int    CRC-32 of the payload including filler
+ * EncodingHeader of the encoding, or int ID of the dictionary
+ * payload: packed codes followed by a 1 and 0 to 7 filler zeros
+ * index:
+ *   int    number of symbols between sync points
+ *   int    number of sync points
+ *   long[] bit offset in the payload of every sync point
+ * </pre>
+ * Files encoded against a {@link Dictionary} only hold its ID, which saves
+ * the encoding for small inputs; decoding them takes a
+ * {@link DictionaryCache} to look the dictionary up.
+ * <p>
+ * Inputs of more than SYNC_INTERVAL symbols are indexed: a sync point is
+ * recorded every SYNC_INTERVAL symbols, where a code starts at a known bit
+ * offset. A range of symbols is then decoded from the last sync point in
+ * front of it, see {@link #decodeTextRange(Path, long, int)}, instead of
+ * from the start of the payload.
+ */
+public class HuffmanFile {
+  @VisibleForTesting static final int MAGIC = 0x48554646;
+  @VisibleForTesting static final byte VERSION = 1;
+  @VisibleForTesting static final byte TEXT = 0;
+  @VisibleForTesting static final byte BYTES = 1;
+  @VisibleForTesting static final byte DICTIONARY = (byte) 0x80;
+  @VisibleForTesting static final byte INDEXED = 0x40;
+  @VisibleForTesting static final byte STORED = 0x20;
+  /**
+   * Number of symbols between sync points, which costs 8 bytes of index per
+   * 64 KiB of input and bounds the symbols decoded in vain in front of a
+   * range.
+   */
+  @VisibleForTesting static final int SYNC_INTERVAL = 1 << 16;
+
+  private static final int CHECKSUM_OFFSET = 22;
+  private static final int FIXED_HEADER_SIZE = 26;
+  private static final int INDEX_HEADER_SIZE = 8;
+  /**
+   * Upper bound of the size of an encoding header over 2^16 symbols.
+   */
+  private static final int MAX_ENCODING_HEADER_SIZE = 1 << 20;
+
+  /**
+   * Encodes a text file into a single encoded file. The text is read twice,
+   * once to count occurrences and once to encode it.
+   *
+   * @param plainTextPath Path of the UTF-8 text to encode.
+   * @param outputPath    Path the encoded file is written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void encodeText(Path plainTextPath, Path outputPath)
+      throws IOException {
+    encodeText(plainTextPath, outputPath, null);
+  }
+
+  /**
+   * Encodes a text file against a dictionary, storing only the ID of the
+   * dictionary instead of an encoding.
+   *
+   * @param plainTextPath Path of the UTF-8 text to encode.
+   * @param outputPath    Path the encoded file is written to.
+   * @param dictionary    Text dictionary covering all characters of the
+   *                      text.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void encodeText(Path plainTextPath, Path outputPath,
+                                Dictionary dictionary) throws IOException {
+    try (Recording recording = Metrics.record(Operation.ENCODE)) {
+      long start = System.nanoTime();
+      Histogram histogram;
+      try (Reader plainText = newReader(plainTextPath)) {
+        histogram = Histogram.ofText(plainText);
+      }
+      recording.lap(Stage.COUNT, start);
+      Encoding encoding = chooseEncoding(TEXT, histogram, dictionary);
+      if (encoding.getPayloadSize() >= Files.size(plainTextPath)) {
+        try (FileChannel plainText = FileChannel.open(plainTextPath);
+             FileChannel output = newWriteChannel(outputPath)) {
+          start = System.nanoTime();
+          writeStored(output, TEXT, encoding.symbols, plainText);
+          recording.lap(Stage.IO, start);
+          recording.setSizes(plainText.size(), output.size());
+        }
+        return;
+      }
+      try (Reader plainText = newReader(plainTextPath);
+           FileChannel output = newWriteChannel(outputPath)) {
+        HuffmanEncoder encoder = writeHeader(output, encoding);
+        ChecksumChannel payload = new ChecksumChannel(output);
+        start = System.nanoTime();
+        long[] syncPoints =
+            encoder.encode(plainText, payload, SYNC_INTERVAL);
+        start = recording.lap(Stage.ENCODE, start);
+        writeChecksum(output, payload.getChecksum());
+        writeIndex(output, syncPoints);
+        recording.lap(Stage.IO, start);
+        recording.setSizes(Files.size(plainTextPath), output.size());
+      }
+    }
+  }
+
+  /**
+   * Encodes any file into a single encoded file, treating every byte as a
+   * symbol. The file is read twice, once to count occurrences and once to
+   * encode it; large files are read through memory mappings.
+   *
+   * @param plainBytesPath Path of the file to encode.
+   * @param outputPath     Path the encoded file is written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void encodeBytes(Path plainBytesPath, Path outputPath)
+      throws IOException {
+    encodeBytes(plainBytesPath, outputPath, null);
+  }
+
+  /**
+   * Encodes any file against a dictionary, storing only the ID of the
+   * dictionary instead of an encoding.
+   *
+   * @param plainBytesPath Path of the file to encode.
+   * @param outputPath     Path the encoded file is written to.
+   * @param dictionary     Byte dictionary.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void encodeBytes(Path plainBytesPath, Path outputPath,
+                                 Dictionary dictionary) throws IOException {
+    try (Recording recording = Metrics.record(Operation.ENCODE);
+         FileChannel plainBytes = FileChannel.open(plainBytesPath);
+         FileChannel output = newWriteChannel(outputPath)) {
+      long start = System.nanoTime();
+      boolean large = isLarge(plainBytesPath);
+      Encoding encoding = null;
+      Compressibility sample = Compressibility.sample(plainBytes);
+      if (sample.favorsRunLength() || !sample.isIncompressible()) {
+        Histogram histogram = large ? countMapped(plainBytes)
+                                    : Histogram.ofBytes(plainBytes);
+        encoding = chooseEncoding(BYTES, histogram, dictionary);
+      }
+      start = recording.lap(Stage.COUNT, start);
+      if (encoding == null || encoding.getPayloadSize() >= plainBytes.size()) {
+        writeStored(output, BYTES, plainBytes.size(), plainBytes);
+        recording.lap(Stage.IO, start);
+        recording.setSizes(plainBytes.size(), output.size());
+        return;
+      }
+      HuffmanEncoder encoder = writeHeader(output, encoding);
+      ChecksumChannel payload = new ChecksumChannel(output);
+      start = System.nanoTime();
+      long[] syncPoints = large
+          ? encoder.encode(FileUtil.map(plainBytes), payload, SYNC_INTERVAL)
+          : encoder.encode(plainBytes.position(0), payload, SYNC_INTERVAL);
+      start = recording.lap(Stage.ENCODE, start);
+      writeChecksum(output, payload.getChecksum());
+      writeIndex(output, syncPoints);
+      recording.lap(Stage.IO, start);
+      recording.setSizes(plainBytes.size(), output.size());
+    }
+  }
+
+  /**
+   * Decodes an encoded file written by {@link #encodeText(Path, Path)} into
+   * a UTF-8 text file.
+   *
+   * @param encodedPath Path of the encoded file.
+   * @param outputPath  Path the decoded text is written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void decodeText(Path encodedPath, Path outputPath)
+      throws IOException {
+    decodeText(encodedPath, outputPath, null);
+  }
+
+  /**
+   * Decodes an encoded text file that may refer to a dictionary.
+   *
+   * @param encodedPath  Path of the encoded file.
+   * @param outputPath   Path the decoded text is written to.
+   * @param dictionaries Cache the dictionary is looked up in, or null if the
+   *                     file must hold its encoding.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void decodeText(Path encodedPath, Path outputPath,
+                                DictionaryCache dictionaries)
+      throws IOException {
+    try (Recording recording = Metrics.record(Operation.DECODE)) {
+      try (FileChannel input = FileChannel.open(encodedPath)) {
+        Header header = readHeader(input, TEXT, dictionaries);
+        long start = System.nanoTime();
+        Iterator<ByteBuffer> payload =
+            readPayload(input, encodedPath, header);
+        if (header.isStored()) {
+          try (FileChannel output = newWriteChannel(outputPath)) {
+            writeAll(output, payload);
+          }
+          recording.lap(Stage.IO, start);
+        } else {
+          try (Writer output = Files.newBufferedWriter(outputPath)) {
+            start = recording.lap(Stage.IO, start);
+            checkSymbols(header,
+                         header.decoder.decode(payload, header.bitLength,
+                                               output));
+            recording.lap(Stage.DECODE, start);
+          }
+        }
+      }
+      recording.setSizes(Files.size(encodedPath), Files.size(outputPath));
+    }
+  }
+
+  /**
+   * Decodes an encoded file written by {@link #encodeBytes(Path, Path)}.
+   *
+   * @param encodedPath Path of the encoded file.
+   * @param outputPath  Path the decoded bytes are written to.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void decodeBytes(Path encodedPath, Path outputPath)
+      throws IOException {
+    decodeBytes(encodedPath, outputPath, null);
+  }
+
+  /**
+   * Decodes an encoded file of bytes that may refer to a dictionary.
+   *
+   * @param encodedPath  Path of the encoded file.
+   * @param outputPath   Path the decoded bytes are written to.
+   * @param dictionaries Cache the dictionary is looked up in, or null if the
+   *                     file must hold its encoding.
+   * @throws IOException If reading or writing fails.
+   */
+  public static void decodeBytes(Path encodedPath, Path outputPath,
+                                 DictionaryCache dictionaries)
+      throws IOException {
+    try (Recording recording = Metrics.record(Operation.DECODE);
+         FileChannel input = FileChannel.open(encodedPath);
+         FileChannel output = newWriteChannel(outputPath)) {
+      Header header = readHeader(input, BYTES, dictionaries);
+      long start = System.nanoTime();
+      Iterator<ByteBuffer> payload = readPayload(input, encodedPath, header);
+      if (header.isStored()) {
+        writeAll(output, payload);
+        recording.lap(Stage.IO, start);
+      } else {
+        start = recording.lap(Stage.IO, start);
+        checkSymbols(header,
+                     header.decoder.decode(payload, header.bitLength,
+                                           output));
+        recording.lap(Stage.DECODE, start);
+      }
+      recording.setSizes(input.size(), output.size());
+    }
+  }
+
+  /**
+   * Decodes a range of characters of an encoded text file, such as a few
+   * lines at the end of a large log. Only the part of the payload from the
+   * last sync point in front of the range up to the first one behind it is
+   * read, so the checksum of the payload isn't verified.
+   *
+   * @param encodedPath Path of the encoded file.
+   * @param offset      Index of the first character of the range.
+   * @param length      Number of characters in the range.
+   * @return The decoded characters.
+   * @throws IOException If reading fails.
+   */
+  public static String decodeTextRange(Path encodedPath, long offset,
+                                       int length) throws IOException {
+    return decodeTextRange(encodedPath, offset, length, null);
+  }
+
+  /**
+   * Decodes a range of characters of an encoded text file that may refer to
+   * a dictionary.
+   *
+   * @param encodedPath  Path of the encoded file.
+   * @param offset       Index of the first character of the range.
+   * @param length       Number of characters in the range.
+   * @param dictionaries Cache the dictionary is looked up in, or null if the
+   *                     file must hold its encoding.
+   * @return The decoded characters.
+   * @throws IOException If reading fails.
+   */
+  public static String decodeTextRange(Path encodedPath, long offset,
+                                       int length,
+                                       DictionaryCache dictionaries)
+      throws IOException {
+    try (Recording recording = Metrics.record(Operation.DECODE);
+         FileChannel input = FileChannel.open(encodedPath)) {
+      Header header = readHeader(input, TEXT, dictionaries);
+      long start = System.nanoTime();
+      if (header.isStored()) {
+        String plainText = readStoredText(input, header, offset, length);
+        recording.lap(Stage.IO, start);
+        recording.setSizes(header.payloadSize, length);
+        return plainText;
+      }
+      Range range = readRange(input, header, offset, length);
+      start = recording.lap(Stage.IO, start);
+      String plainText =
+          header.decoder.decode(range.encodedText, range.skip, length);
+      recording.lap(Stage.DECODE, start);
+      recording.setSizes(range.size, length);
+      return plainText;
+    }
+  }
+
+  /**
+   * Decodes a range of bytes of an encoded file, like
+   * {@link #decodeTextRange(Path, long, int)} does for text.
+   *
+   * @param encodedPath Path of the encoded file.
+   * @param offset      Index of the first byte of the range.
+   * @param length      Number of bytes in the range.
+   * @return The decoded bytes.
+   * @throws IOException If reading fails.
+   */
+  public static byte[] decodeBytesRange(Path encodedPath, long offset,
+                                        int length) throws IOException {
+    return decodeBytesRange(encodedPath, offset, length, null);
+  }
+
+  /**
+   * Decodes a range of bytes of an encoded file that may refer to a
+   * dictionary.
+   *
+   * @param encodedPath  Path of the encoded file.
+   * @param offset       Index of the first byte of the range.
+   * @param length       Number of bytes in the range.
+   * @param dictionaries Cache the dictionary is looked up in, or null if the
+   *                     file must hold its encoding.
+   * @return The decoded bytes.
+   * @throws IOException If reading fails.
+   */
+  public static byte[] decodeBytesRange(Path encodedPath, long offset,
+                                        int length,
+                                        DictionaryCache dictionaries)
+      throws IOException {
+    try (Recording recording = Metrics.record(Operation.DECODE);
+         FileChannel input = FileChannel.open(encodedPath)) {
+      Header header = readHeader(input, BYTES, dictionaries);
+      long start = System.nanoTime();
+      if (header.isStored()) {
+        checkRange(header, offset, length);
+        ByteBuffer plainBytes = ByteBuffer.allocate(length);
+        readFully(input, plainBytes, input.position() + offset);
+        recording.lap(Stage.IO, start);
+        recording.setSizes(length, length);
+        return plainBytes.array();
+      }
+      Range range = readRange(input, header, offset, length);
+      start = recording.lap(Stage.IO, start);
+      byte[] plainBytes =
+          header.decoder.decodeBytes(range.encodedText, range.skip, length);
+      recording.lap(Stage.DECODE, start);
+      recording.setSizes(range.size, length);
+      return plainBytes;
+    }
+  }
+
+  private static Histogram countMapped(FileChannel plainBytes) {
+    Iterator<ByteBuffer> windows = FileUtil.map(plainBytes);
+    Histogram histogram = Histogram.ofBytes(windows.next());
+    while (windows.hasNext()) {
+      histogram = histogram.merge(Histogram.ofBytes(windows.next()));
+    }
+    return histogram;
+  }
+
+  /**
+   * Chooses the codes a histogram is encoded with. Without a dictionary, a
+   * new encoding is computed from the histogram.
+   */
+  private static Encoding chooseEncoding(byte alphabet, Histogram histogram,
+                                         Dictionary dictionary) {
+    Recording recording = Metrics.current();
+    CodeTable table;
+    byte[] encodingHeader;
+    if (dictionary == null) {
+      table = HuffmanEncoding.computeCodeTable(histogram);
+      long start = System.nanoTime();
+      encodingHeader = EncodingHeader.pack(table);
+      recording.lap(Stage.PACK, start);
+    } else {
+      if (dictionary.getAlphabet() != alphabet) {
+        throw new IllegalArgumentException(
+            alphabet == TEXT ? "Dictionary is for bytes."
+                             : "Dictionary is for text.");
+      }
+      table = dictionary.getTable();
+      for (int symbol = 0; symbol < histogram.getAlphabetSize(); symbol++) {
+        if (histogram.count(symbol) > 0 && !table.hasCode(symbol)) {
+          throw new IllegalArgumentException(String.format(
+              "Symbol %d isn't covered by dictionary %s.", symbol,
+              Dictionary.formatId(dictionary.getId())));
+        }
+      }
+      encodingHeader =
+          ByteBuffer.allocate(4).putInt(dictionary.getId()).array();
+      alphabet |= DICTIONARY;
+    }
+    long symbols = 0;
+    long bitLength = 0;
+    for (int symbol = 0; symbol < table.getSymbolLimit(); symbol++) {
+      if (table.hasCode(symbol)) {
+        long count = histogram.count(symbol);
+        symbols += count;
+        bitLength += count * table.length(symbol);
+      }
+    }
+    if (symbols > SYNC_INTERVAL) {
+      alphabet |= INDEXED;
+    }
+    return new Encoding(alphabet, table, encodingHeader, symbols, bitLength,
+                        dictionary);
+  }
+
+  /**
+   * Writes the header with a checksum of 0, to be filled in by
+   * {@link #writeChecksum(FileChannel, int)} once the payload is written.
+   *
+   * @return Encoder of the encoding the header refers to.
+   */
+  private static HuffmanEncoder writeHeader(FileChannel output,
+                                            Encoding encoding)
+      throws IOException {
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    ByteBuffer header = ByteBuffer.allocate(
+        FIXED_HEADER_SIZE + encoding.encodingHeader.length);
+    header.putInt(MAGIC).put(VERSION).put(encoding.flags)
+          .putLong(encoding.symbols).putLong(encoding.bitLength).putInt(0)
+          .put(encoding.encodingHeader).flip();
+    while (header.hasRemaining()) {
+      output.write(header);
+    }
+    recording.lap(Stage.IO, start);
+    recording.setTable(encoding.table);
+    return encoding.dictionary == null ? new HuffmanEncoder(encoding.table)
+                                       : encoding.dictionary.getEncoder();
+  }
+
+  /**
+   * Writes a file that stores the plain bytes as they are, for inputs that
+   * Huffman codes wouldn't make smaller. The bytes are mapped into memory
+   * and handed to the output without being decoded.
+   */
+  private static void writeStored(FileChannel output, byte alphabet,
+                                  long symbols, FileChannel plain)
+      throws IOException {
+    long size = plain.size();
+    ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_SIZE);
+    header.putInt(MAGIC).put(VERSION).put((byte) (alphabet | STORED))
+          .putLong(symbols).putLong(8 * size).putInt(0).flip();
+    while (header.hasRemaining()) {
+      output.write(header);
+    }
+    ChecksumChannel payload = new ChecksumChannel(output);
+    writeAll(payload, FileUtil.map(plain.position(0), size));
+    writeChecksum(output, payload.getChecksum());
+  }
+
+  private static void writeAll(WritableByteChannel output,
+                               Iterator<ByteBuffer> buffers)
+      throws IOException {
+    while (buffers.hasNext()) {
+      ByteBuffer buffer = buffers.next();
+      while (buffer.hasRemaining()) {
+        output.write(buffer);
+      }
+    }
+  }
+
+  private static void writeChecksum(FileChannel output, int checksum)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(4).putInt(checksum).flip();
+    while (buffer.hasRemaining()) {
+      output.write(buffer, CHECKSUM_OFFSET + buffer.position());
+    }
+  }
+
+  /**
+   * Appends the index behind the payload, if there are sync points. There
+   * are sync points exactly if the header is flagged INDEXED, as both
+   * depend on the input having more than SYNC_INTERVAL symbols.
+   */
+  private static void writeIndex(FileChannel output, long[] syncPoints)
+      throws IOException {
+    if (syncPoints.length == 0) {
+      return;
+    }
+    ByteBuffer index =
+        ByteBuffer.allocate(INDEX_HEADER_SIZE + 8 * syncPoints.length);
+    index.putInt(SYNC_INTERVAL).putInt(syncPoints.length);
+    index.asLongBuffer().put(syncPoints);
+    index.clear();
+    while (index.hasRemaining()) {
+      output.write(index);
+    }
+  }
+
+  /**
+   * Reads the header and leaves the position of the channel at the start of
+   * the payload. The decoder of a dictionary is taken from the cache.
+   */
+  private static Header readHeader(FileChannel input, byte alphabet,
+                                   DictionaryCache dictionaries)
+      throws IOException {
+    Recording recording = Metrics.current();
+    long start = System.nanoTime();
+    long size = input.size();
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(
+        size, FIXED_HEADER_SIZE + MAX_ENCODING_HEADER_SIZE));
+    while (buffer.hasRemaining()) {
+      if (input.read(buffer, buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    if (buffer.remaining() < FIXED_HEADER_SIZE ||
+            buffer.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a Huffman-encoded file.");
+    }
+    byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException(
+          String.format("Unsupported format version %d.", version));
+    }
+    byte flags = buffer.get();
+    if ((flags & ~(DICTIONARY | INDEXED | STORED)) != alphabet) {
+      throw new IllegalArgumentException(alphabet == TEXT
+                                             ? "File holds encoded bytes."
+                                             : "File holds encoded text.");
+    }
+    long symbols = buffer.getLong();
+    long bitLength = buffer.getLong();
+    int checksum = buffer.getInt();
+    start = recording.lap(Stage.IO, start);
+    if ((flags & STORED) != 0) {
+      if (flags != (alphabet | STORED) || symbols < 0 || bitLength % 8 != 0 ||
+              size - buffer.position() != bitLength / 8) {
+        throw new IllegalArgumentException(
+            "Payload length doesn't match header.");
+      }
+      input.position(buffer.position());
+      return new Header(symbols, bitLength, checksum, null, bitLength / 8,
+                        0, 0);
+    }
+    CodeTable table;
+    HuffmanDecoder decoder;
+    if ((flags & DICTIONARY) == 0) {
+      table = EncodingHeader.unpackTable(buffer);
+      decoder = new HuffmanDecoder(
+          table, HuffmanDecoder.prefersMultiSymbol(symbols, bitLength));
+    } else if (buffer.remaining() < 4) {
+      throw new IllegalArgumentException("Encoded file truncated.");
+    } else {
+      int id = buffer.getInt();
+      if (dictionaries == null) {
+        throw new IllegalArgumentException(String.format(
+            "File refers to dictionary %s.", Dictionary.formatId(id)));
+      }
+      Dictionary dictionary = dictionaries.get(id);
+      if (dictionary.getAlphabet() != alphabet) {
+        throw new IllegalArgumentException(alphabet == TEXT
+                                               ? "Dictionary is for bytes."
+                                               : "Dictionary is for text.");
+      }
+      table = dictionary.getTable();
+      decoder = dictionary.getDecoder();
+    }
+    recording.lap(Stage.TABLE, start);
+    recording.setTable(table);
+    if (symbols < 0 || bitLength < 0 ||
+            size - buffer.position() < bitLength / 8 + 1) {
+      throw new IllegalArgumentException(
+          "Payload length doesn't match header.");
+    }
+    long payloadSize = bitLength / 8 + 1;
+    long indexSize = size - buffer.position() - payloadSize;
+    int syncInterval = 0;
+    int syncPoints = 0;
+    if ((flags & INDEXED) != 0) {
+      ByteBuffer index = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+      readFully(input, index, buffer.position() + payloadSize);
+      syncInterval = index.getInt(0);
+      syncPoints = index.getInt(4);
+      if (syncInterval <= 0 || symbols == 0 ||
+              syncPoints != (symbols - 1) / syncInterval) {
+        throw new IllegalArgumentException("Index doesn't match header.");
+      }
+    }
+    if (indexSize != (syncPoints == 0 ? 0 : INDEX_HEADER_SIZE +
+                                                8L * syncPoints)) {
+      throw new IllegalArgumentException(
+          "Payload length doesn't match header.");
+    }
+    input.position(buffer.position());
+    return new Header(symbols, bitLength, checksum, decoder, payloadSize,
+                      syncInterval, syncPoints);
+  }
+
+  /**
+   * Reads the part of the payload a range of symbols is decoded from. It
+   * starts at the last sync point in front of the range, or at the start of
+   * the payload, and ends at the first sync point behind the range, or at
+   * the end of the payload. The position of the channel is expected at the
+   * start of the payload.
+   */
+  private static Range readRange(FileChannel input, Header header,
+                                 long offset, int length)
+      throws IOException {
+    checkRange(header, offset, length);
+    long payloadStart = input.position();
+    // Sync point k, counted from 1, is at symbol k * syncInterval.
+    int first = 0;
+    int last = 1;
+    long[] bitOffsets = new long[0];
+    if (header.syncPoints > 0) {
+      long end = offset + length;
+      first = (int) Math.min(offset / header.syncInterval,
+                             header.syncPoints);
+      last = (int) Math.min((end + header.syncInterval - 1) /
+                                header.syncInterval, header.syncPoints + 1);
+      bitOffsets = readSyncPoints(input, header, first, last);
+    }
+    long fromBit = first == 0 ? 0 : bitOffsets[0];
+    long toBit = last == 0 ? 0
+                 : last > header.syncPoints ? header.bitLength
+                 : bitOffsets[last - Math.max(first, 1)];
+    if (fromBit > toBit || toBit > header.bitLength) {
+      throw new IllegalArgumentException("Index doesn't match payload.");
+    }
+    long fromByte = fromBit / 8;
+    ByteBuffer encodedText = ByteBuffer.allocate(
+        Math.toIntExact((toBit + 7) / 8 - fromByte));
+    readFully(input, encodedText, payloadStart + fromByte);
+    BitReader in = new BitReader(encodedText, toBit - 8 * fromByte);
+    if (fromBit % 8 > 0) {
+      in.read((int) (fromBit % 8));
+    }
+    return new Range(in, offset - (long) first * header.syncInterval,
+                     encodedText.capacity());
+  }
+
+  private static void checkRange(Header header, long offset, int length) {
+    if (offset < 0 || length < 0 || offset > header.symbols - length) {
+      throw new IllegalArgumentException(String.format(
+          "Range [%d, %d) out of %d symbols.", offset, offset + length,
+          header.symbols));
+    }
+  }
+
+  /**
+   * Reads a range of characters of a stored text. Their byte offsets aren't
+   * known, so the text is decoded from its start, which is cheap as stored
+   * texts are short or rare.
+   */
+  private static String readStoredText(FileChannel input, Header header,
+                                       long offset, int length)
+      throws IOException {
+    checkRange(header, offset, length);
+    Reader plainText = new InputStreamReader(
+        Channels.newInputStream(input), StandardCharsets.UTF_8);
+    for (long skipped = 0; skipped < offset; ) {
+      long n = plainText.skip(offset - skipped);
+      if (n <= 0) {
+        throw new IllegalArgumentException("Encoded file truncated.");
+      }
+      skipped += n;
+    }
+    char[] chars = new char[length];
+    for (int read = 0; read < length; ) {
+      int n = plainText.read(chars, read, length - read);
+      if (n < 0) {
+        throw new IllegalArgumentException("Encoded file truncated.");
+      }
+      read += n;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Reads the bit offsets of the sync points from first to last, counted
+   * from 1, where 0 stands for the start of the payload and is skipped.
+   */
+  private static long[] readSyncPoints(FileChannel input, Header header,
+                                       int first, int last)
+      throws IOException {
+    int from = Math.max(first, 1);
+    int to = Math.min(last, header.syncPoints);
+    if (from > to) {
+      return new long[0];
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(8 * (to - from + 1));
+    readFully(input, buffer, input.position() + header.payloadSize +
+                                 INDEX_HEADER_SIZE + 8L * (from - 1));
+    long[] bitOffsets = new long[to - from + 1];
+    buffer.asLongBuffer().get(bitOffsets);
+    for (int i = 1; i < bitOffsets.length; i++) {
+      if (bitOffsets[i] < bitOffsets[i - 1]) {
+        throw new IllegalArgumentException("Index out of order.");
+      }
+    }
+    return bitOffsets;
+  }
+
+  /**
+   * Fills a buffer with the bytes at a position of the file and flips it.
+   */
+  private static void readFully(FileChannel input, ByteBuffer buffer,
+                                long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (input.read(buffer, position + buffer.position()) < 0) {
+        throw new IllegalArgumentException("Encoded file truncated.");
+      }
+    }
+    buffer.flip();
+  }
+
+  /**
+   * Reads the payload and checks its checksum before it is decoded. Large
+   * files are mapped into memory instead of being read.
+   */
+  private static Iterator<ByteBuffer> readPayload(FileChannel input,
+                                                  Path encodedPath,
+                                                  Header header)
+      throws IOException {
+    if (isLarge(encodedPath)) {
+      checkChecksum(header,
+                    checksum(FileUtil.map(input, header.payloadSize)));
+      return FileUtil.map(input, header.payloadSize);
+    }
+    ByteBuffer payload = ByteBuffer.allocate((int) header.payloadSize);
+    while (payload.hasRemaining()) {
+      if (input.read(payload) < 0) {
+        throw new IllegalArgumentException("Encoded file truncated.");
+      }
+    }
+    List<ByteBuffer> buffers = List.of(payload.flip());
+    checkChecksum(header, checksum(buffers.iterator()));
+    return buffers.iterator();
+  }
+
+  private static int checksum(Iterator<ByteBuffer> payload) {
+    CRC32 crc = new CRC32();
+    while (payload.hasNext()) {
+      crc.update(payload.next().duplicate());
+    }
+    return (int) crc.getValue();
+  }
+
+  private static void checkChecksum(Header header, int checksum) {
+    if (header.checksum != checksum) {
+      throw new IllegalArgumentException("Checksum mismatch.");
+    }
+  }
+
+  private static void checkSymbols(Header header, long symbols) {
+    if (header.symbols != symbols) {
+      throw new IllegalArgumentException(String.format(
+          "Decoded %d instead of %d symbols.", symbols, header.symbols));
+    }
+  }
+
+  /**
+   * Fields of the header of an encoded file.
+   */
+  private static class Header {
+    final long symbols;
+    final long bitLength;
+    final int checksum;
+    final HuffmanDecoder decoder;
+    final long payloadSize;
+    /**
+     * Number of symbols between sync points, 0 if there is no index.
+     */
+    final int syncInterval;
+    final int syncPoints;
+
+    /**
+     * Returns whether the payload holds the plain bytes as they are, in
+     * which case there is no decoder.
+     */
+    boolean isStored() {
+      return decoder == null;
+    }
+
+    Header(long symbols, long bitLength, int checksum,
+           HuffmanDecoder decoder, long payloadSize, int syncInterval,
+           int syncPoints) {
+      this.symbols = symbols;
+      this.bitLength = bitLength;
+      this.checksum = checksum;
+      this.decoder = decoder;
+      this.payloadSize = payloadSize;
+      this.syncInterval = syncInterval;
+      this.syncPoints = syncPoints;
+    }
+  }
+
+  /**
+   * Codes chosen for an input, together with the fields of the header
+   * that depend on them.
+   */
+  private static class Encoding {
+    final byte flags;
+    final CodeTable table;
+    final byte[] encodingHeader;
+    final long symbols;
+    final long bitLength;
+    final Dictionary dictionary;
+
+    Encoding(byte flags, CodeTable table, byte[] encodingHeader,
+             long symbols, long bitLength, Dictionary dictionary) {
+      this.flags = flags;
+      this.table = table;
+      this.encodingHeader = encodingHeader;
+      this.symbols = symbols;
+      this.bitLength = bitLength;
+      this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns the number of bytes behind the fixed header: the encoding
+     * header, the payload including filler and the index. A stored file has
+     * as many bytes behind its header as the input has.
+     */
+    long getPayloadSize() {
+      long syncPoints = symbols == 0 ? 0 : (symbols - 1) / SYNC_INTERVAL;
+      return encodingHeader.length + bitLength / 8 + 1 +
+                 (syncPoints == 0 ? 0 : INDEX_HEADER_SIZE + 8 * syncPoints);
+    }
+  }
+
+  /**
+   * Part of the payload a range is decoded from.
+   */
+  private static class Range {
+    final BitReader encodedText;
+    /**
+     * Number of symbols in front of the range.
+     */
+    final long skip;
+    /**
+     * Number of bytes read.
+     */
+    final long size;
+
+    Range(BitReader encodedText, long skip, long size) {
+      this.encodedText = encodedText;
+      this.skip = skip;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Passes bytes on to a file channel while computing their CRC-32.
+   */
+  private static class ChecksumChannel implements WritableByteChannel {
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+
+    ChecksumChannel(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override public int write(ByteBuffer src) throws IOException {
+      ByteBuffer written = src.duplicate();
+      int n = channel.write(src);
+      crc.update(written.limit(written.position() + n));
+      return n;
+    }
+
+    int getChecksum() {
+      return (int) crc.getValue();
+    }
+
+    @Override public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
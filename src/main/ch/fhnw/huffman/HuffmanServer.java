@@ -0,0 +1,414 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.Metrics.Recording;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a JVM running to encode and decode requests sent over a local TCP or
+ * Unix domain socket, so callers pay neither JVM startup nor JIT warmup per
+ * request. Every connection is served by a thread of a fixed pool and may
+ * send any number of requests in turn; once all threads are busy, further
+ * connections wait to be accepted. A request is:
+ * <pre>
+ * byte  operation
+ * int   dictionary ID, ignored by ENCODE and DECODE
+ * int   length of the payload
+ * bytes payload
+ * </pre>
+ * and is answered with:
+ * <pre>
+ * byte  OK or ERROR
+ * int   length of the payload
+ * bytes payload, the result or a UTF-8 error message
+ * </pre>
+ * ENCODE encodes bytes into an int plain length followed by a block of
+ * {@link BlockHuffmanCodec}, and DECODE reverses it. ENCODE_TEXT and
+ * DECODE_TEXT encode UTF-8 text against a dictionary of the
+ * {@link DictionaryCache} given to the server, which keeps the encoders and
+ * decoders of the dictionaries in use. Every connection reuses its request
+ * buffer, which grows to the largest request received, up to
+ * MAX_REQUEST_SIZE bytes. An error in a request is answered and doesn't
+ * close the connection.
+ */
+@ThreadSafe
+public class HuffmanServer implements Closeable {
+  /**
+   * Operation encoding bytes.
+   */
+  public static final byte ENCODE = 1;
+  /**
+   * Operation decoding bytes encoded with ENCODE.
+   */
+  public static final byte DECODE = 2;
+  /**
+   * Operation encoding UTF-8 text against a dictionary.
+   */
+  public static final byte ENCODE_TEXT = 3;
+  /**
+   * Operation decoding text encoded with ENCODE_TEXT into UTF-8.
+   */
+  public static final byte DECODE_TEXT = 4;
+  /**
+   * Status of a response holding a result.
+   */
+  public static final byte OK = 0;
+  /**
+   * Status of a response holding an error message.
+   */
+  public static final byte ERROR = 1;
+  /**
+   * Maximum payload length of a request.
+   */
+  public static final int MAX_REQUEST_SIZE = 1 << 26;
+
+  @VisibleForTesting static final int REQUEST_HEADER_SIZE = 9;
+  @VisibleForTesting static final int RESPONSE_HEADER_SIZE = 5;
+  private static final int WARMUP_ROUNDS = 20;
+  private static final int WARMUP_LENGTH = 1 << 16;
+
+  private final ServerSocketChannel server;
+  private final SocketAddress address;
+  private final DictionaryCache dictionaries;
+  private final ExecutorService executor;
+  private final Semaphore idleThreads;
+  private final Set<SocketChannel> connections =
+      ConcurrentHashMap.newKeySet();
+  private final Thread acceptor;
+
+  private HuffmanServer(ServerSocketChannel server,
+                        DictionaryCache dictionaries, int threads)
+      throws IOException {
+    this.server = server;
+    this.address = server.getLocalAddress();
+    this.dictionaries = dictionaries;
+    this.executor = Executors.newFixedThreadPool(threads);
+    this.idleThreads = new Semaphore(threads);
+    this.acceptor = new Thread(this::accept, "huffman-server-" + address);
+  }
+
+  /**
+   * Binds a server to an address and starts accepting connections, after
+   * running the codecs on generated input, so the first requests already
+   * find them compiled.
+   *
+   * @param address      Address to listen on, an {@link InetSocketAddress}
+   *                     or a {@link UnixDomainSocketAddress}. A socket file
+   *                     left over from an earlier server is replaced.
+   * @param threads      Number of connections served at once.
+   * @param dictionaries Dictionaries for ENCODE_TEXT and DECODE_TEXT, or
+   *                     null to reject those operations.
+   * @return The running server.
+   * @throws IOException If binding fails.
+   */
+  public static HuffmanServer start(SocketAddress address, int threads,
+                                    DictionaryCache dictionaries)
+      throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+          String.format("Invalid number of threads %d.", threads));
+    }
+    ServerSocketChannel server;
+    if (address instanceof UnixDomainSocketAddress) {
+      Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+      server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    } else {
+      server = ServerSocketChannel.open();
+    }
+    try {
+      server.bind(address);
+    } catch (IOException e) {
+      server.close();
+      throw e;
+    }
+    warmUp();
+    HuffmanServer huffmanServer =
+        new HuffmanServer(server, dictionaries, threads);
+    huffmanServer.acceptor.start();
+    return huffmanServer;
+  }
+
+  /**
+   * Parses the address of a server: a port on the loopback interface, a
+   * host and port separated by a colon, or the path of a Unix domain socket.
+   *
+   * @param address Address in one of the forms above.
+   * @return The socket address.
+   */
+  public static SocketAddress parseAddress(String address) {
+    int colon = address.lastIndexOf(':');
+    String port = address.substring(colon + 1);
+    if (port.isEmpty() || !port.chars().allMatch(Character::isDigit)) {
+      return UnixDomainSocketAddress.of(address);
+    } else if (colon < 0) {
+      return new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                   Integer.parseInt(port));
+    }
+    return new InetSocketAddress(address.substring(0, colon),
+                                 Integer.parseInt(port));
+  }
+
+  /**
+   * Returns the address the server is bound to, with the actual port if it
+   * was bound to port 0.
+   *
+   * @return Local address of the server.
+   */
+  public SocketAddress getAddress() {
+    return address;
+  }
+
+  /**
+   * Waits until the server is closed.
+   *
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public void join() throws InterruptedException {
+    acceptor.join();
+  }
+
+  /**
+   * Stops accepting connections, closes the open ones and waits for their
+   * threads to end. A Unix domain socket file is deleted.
+   *
+   * @throws IOException If closing the server socket fails.
+   */
+  @Override public void close() throws IOException {
+    server.close();
+    for (SocketChannel connection : connections) {
+      try {
+        connection.close();
+      } catch (IOException ignored) {
+        // The connection ends either way.
+      }
+    }
+    executor.shutdown();
+    awaitTermination(executor);
+    if (address instanceof UnixDomainSocketAddress) {
+      Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+    }
+  }
+
+  /**
+   * Handles a single request.
+   *
+   * @param operation    Operation of the request.
+   * @param dictionaryId ID of the dictionary of text operations.
+   * @param payload      Payload of the request.
+   * @return Payload of the response.
+   * @throws IOException If loading a dictionary fails.
+   */
+  @VisibleForTesting
+  ByteBuffer handle(byte operation, int dictionaryId, ByteBuffer payload)
+      throws IOException {
+    boolean encode = operation == ENCODE || operation == ENCODE_TEXT;
+    try (Recording recording = Metrics.record(
+        encode ? Operation.ENCODE : Operation.DECODE)) {
+      int length = payload.remaining();
+      ByteBuffer response = apply(operation, dictionaryId, payload);
+      recording.setSizes(length, response.remaining());
+      return response;
+    }
+  }
+
+  private ByteBuffer apply(byte operation, int dictionaryId,
+                           ByteBuffer payload) throws IOException {
+    switch (operation) {
+      case ENCODE: {
+        ByteBuffer block = BlockHuffmanCodec.encodeBlock(payload, true);
+        return ByteBuffer.allocate(4 + block.remaining())
+                         .putInt(payload.remaining()).put(block).flip();
+      }
+      case DECODE: {
+        int plainLength = payload.getInt();
+        if (plainLength < 0 || plainLength > MAX_REQUEST_SIZE) {
+          throw new IllegalArgumentException(
+              String.format("Invalid plain length %d.", plainLength));
+        }
+        return BlockHuffmanCodec.decodeBlock(payload, plainLength);
+      }
+      case ENCODE_TEXT:
+        return ByteBuffer.wrap(dictionary(dictionaryId).encode(
+            StandardCharsets.UTF_8.decode(payload)));
+      case DECODE_TEXT: {
+        byte[] encodedText = new byte[payload.remaining()];
+        payload.get(encodedText);
+        return StandardCharsets.UTF_8.encode(
+            dictionary(dictionaryId).decode(encodedText));
+      }
+      default:
+        throw new IllegalArgumentException(
+            String.format("Unknown operation %d.", operation));
+    }
+  }
+
+  private Dictionary dictionary(int id) throws IOException {
+    if (dictionaries == null) {
+      throw new IllegalArgumentException("Server has no dictionaries.");
+    }
+    return dictionaries.get(id);
+  }
+
+  /**
+   * Accepts connections while a thread is idle to serve them, until the
+   * server is closed.
+   */
+  private void accept() {
+    try {
+      while (true) {
+        idleThreads.acquireUninterruptibly();
+        SocketChannel connection = server.accept();
+        connections.add(connection);
+        try {
+          executor.execute(() -> {
+            try {
+              serve(connection);
+            } finally {
+              connections.remove(connection);
+              idleThreads.release();
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          // The server was closed right after accepting the connection.
+          connection.close();
+          return;
+        }
+      }
+    } catch (IOException ignored) {
+      // The server socket was closed.
+    }
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    boolean interrupted = false;
+    while (!executor.isTerminated()) {
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Answers the requests of a connection until the client closes it.
+   */
+  private void serve(SocketChannel connection) {
+    ByteBuffer header = ByteBuffer.allocate(REQUEST_HEADER_SIZE);
+    ByteBuffer payload = ByteBuffer.allocate(0);
+    ByteBuffer responseHeader = ByteBuffer.allocate(RESPONSE_HEADER_SIZE);
+    try (connection) {
+      while (readFully(connection, header.clear())) {
+        header.flip();
+        byte operation = header.get();
+        int dictionaryId = header.getInt();
+        int length = header.getInt();
+        if (length < 0 || length > MAX_REQUEST_SIZE) {
+          // The payload can't be skipped, so the connection ends.
+          respond(connection, responseHeader, ERROR, error(
+              String.format("Invalid request length %d.", length)));
+          return;
+        }
+        if (payload.capacity() < length) {
+          payload = ByteBuffer.allocate(length);
+        }
+        if (!readFully(connection, payload.clear().limit(length))) {
+          return;
+        }
+        ByteBuffer response;
+        byte status = OK;
+        try {
+          response = handle(operation, dictionaryId, payload.flip());
+        } catch (IOException | RuntimeException e) {
+          status = ERROR;
+          response = error(String.valueOf(e.getMessage()));
+        }
+        respond(connection, responseHeader, status, response);
+      }
+    } catch (IOException ignored) {
+      // The client went away or the server was closed.
+    }
+  }
+
+  private static ByteBuffer error(String message) {
+    return StandardCharsets.UTF_8.encode(message);
+  }
+
+  private static void respond(SocketChannel connection, ByteBuffer header,
+                              byte status, ByteBuffer payload)
+      throws IOException {
+    header.clear().put(status).putInt(payload.remaining()).flip();
+    ByteBuffer[] buffers = {header, payload};
+    while (payload.hasRemaining()) {
+      connection.write(buffers);
+    }
+    while (header.hasRemaining()) {
+      connection.write(header);
+    }
+  }
+
+  /**
+   * Fills the remaining room of a buffer.
+   *
+   * @return False if the channel ended before the first byte.
+   * @throws IOException If the channel ends within the buffer or reading
+   *                     fails.
+   */
+  static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer)
+      throws IOException {
+    int start = buffer.position();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        if (buffer.position() == start) {
+          return false;
+        }
+        throw new IOException("Connection closed within a message.");
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs the codecs of the operations on generated text, so they are
+   * compiled before the first requests arrive.
+   */
+  private static void warmUp() {
+    byte[] plainBytes = new byte[WARMUP_LENGTH];
+    Random random = new Random(0);
+    for (int i = 0; i < plainBytes.length; i++) {
+      plainBytes[i] = (byte) ('a' + Integer.numberOfTrailingZeros(
+          random.nextInt() | 1 << 25));
+    }
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      ByteBuffer block =
+          BlockHuffmanCodec.encodeBlock(ByteBuffer.wrap(plainBytes), true);
+      BlockHuffmanCodec.decodeBlock(block, plainBytes.length);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package ch.fhnw.huffman;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static ch.fhnw.huffman.FileUtil.MAP_WINDOW_SIZE;
+
+/**
+ * Reader decoding UTF-8 text straight from memory-mapped windows of a file,
+ * so the content of the file isn't copied onto the heap before decoding.
+ * Malformed input is reported the same way as by
+ * {@link java.nio.file.Files#newBufferedReader(Path)}.
+ */
+class MappedFileReader extends Reader {
+  private static final int CHAR_BUFFER_SIZE = 1 << 13;
+
+  private final FileChannel channel;
+  private final long size;
+  private final long windowSize;
+  private final CharsetDecoder decoder =
+      StandardCharsets.UTF_8.newDecoder();
+  private final CharBuffer chars =
+      CharBuffer.allocate(CHAR_BUFFER_SIZE).flip();
+  private ByteBuffer window;
+  private long windowStart = 0;
+  private boolean flushed = false;
+
+  /**
+   * Opens the file at filePath for reading.
+   *
+   * @param filePath Path to the file to read.
+   * @throws IOException If the file can't be opened or mapped.
+   */
+  MappedFileReader(Path filePath) throws IOException {
+    this(filePath, MAP_WINDOW_SIZE);
+  }
+
+  @VisibleForTesting
+  MappedFileReader(Path filePath, long windowSize) throws IOException {
+    this.channel = FileChannel.open(filePath, StandardOpenOption.READ);
+    this.size = channel.size();
+    this.windowSize = windowSize;
+    this.window = mapWindow();
+  }
+
+  @Override public int read(char[] cbuf, int off, int len)
+      throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!chars.hasRemaining() && !fill()) {
+      return -1;
+    }
+    int n = Math.min(len, chars.remaining());
+    chars.get(cbuf, off, n);
+    return n;
+  }
+
+  @Override public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Decodes the next characters into the char buffer, moving on to the next
+   * window whenever the current one is used up. Bytes of a character that is
+   * cut off at the end of a window are mapped again with the next window.
+   *
+   * @return False if the end of the file has been reached.
+   */
+  private boolean fill() throws IOException {
+    chars.clear();
+    while (chars.position() == 0 && !flushed) {
+      boolean lastWindow = windowStart + window.limit() == size;
+      CoderResult result = decoder.decode(window, chars, lastWindow);
+      if (result.isError()) {
+        result.throwException();
+      }
+      if (result.isUnderflow()) {
+        if (lastWindow) {
+          decoder.flush(chars);
+          flushed = true;
+        } else {
+          windowStart += window.position();
+          window = mapWindow();
+        }
+      }
+    }
+    chars.flip();
+    return chars.hasRemaining();
+  }
+
+  private ByteBuffer mapWindow() throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                       Math.min(windowSize, size - windowStart));
+  }
+}
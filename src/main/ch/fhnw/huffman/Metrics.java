@@ -0,0 +1,205 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.CodecMetrics.Stage;
+import jdk.jfr.EventType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Measures encode and decode operations and hands the measurements to the
+ * listeners added here and to the flight recorder as a {@link CodecEvent}.
+ * An operation is measured by a {@link Recording} bound to its thread, so
+ * helpers it calls, such as
+ * {@link HuffmanEncoding#computeCodeTable(Histogram)}, add their stages to
+ * it without being passed a recording. As long as there are no listeners
+ * and the event isn't enabled, nothing is recorded or allocated, and
+ * measuring only costs a few reads of the clock per operation.
+ */
+public class Metrics {
+  private static final List<MetricsListener> listeners =
+      new CopyOnWriteArrayList<>();
+  private static final ThreadLocal<Recording> active = new ThreadLocal<>();
+  private static final EventType eventType =
+      EventType.getEventType(CodecEvent.class);
+
+  private Metrics() {
+  }
+
+  /**
+   * Adds a listener called with the measurements of every operation.
+   *
+   * @param listener The listener.
+   */
+  public static void addListener(MetricsListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener added before.
+   *
+   * @param listener The listener.
+   */
+  public static void removeListener(MetricsListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Starts measuring an operation on the current thread, to be ended by
+   * closing the recording. If an operation is already measured on the
+   * thread, its recording is returned and the inner operation counts
+   * towards it.
+   *
+   * @param operation Kind of operation.
+   * @return The recording of the operation.
+   */
+  static Recording record(Operation operation) {
+    Recording outer = active.get();
+    if (outer != null) {
+      return outer.nest();
+    }
+    boolean eventEnabled = eventType.isEnabled();
+    if (listeners.isEmpty() && !eventEnabled) {
+      return Recording.DISABLED;
+    }
+    Recording recording =
+        new Recording(operation, eventEnabled ? new CodecEvent() : null);
+    active.set(recording);
+    return recording;
+  }
+
+  /**
+   * Returns the recording of the operation measured on the current thread.
+   *
+   * @return The recording, which ignores everything if no operation is
+   *     measured.
+   */
+  static Recording current() {
+    Recording recording = active.get();
+    return recording == null ? Recording.DISABLED : recording;
+  }
+
+  /**
+   * Measurements of an operation in progress.
+   */
+  static class Recording implements AutoCloseable {
+    /**
+     * Recording that ignores everything, used when nothing is measured.
+     */
+    static final Recording DISABLED = new Recording(null, null);
+
+    private final Operation operation;
+    private final CodecEvent event;
+    private final long start = System.nanoTime();
+    private final long[] stageNanos = new long[Stage.values().length];
+    private int depth = 0;
+    private long bytesIn = 0;
+    private long bytesOut = 0;
+    private int distinctSymbols = 0;
+    private int maxCodeLength = 0;
+
+    private Recording(Operation operation, CodecEvent event) {
+      this.operation = operation;
+      this.event = event;
+      if (event != null) {
+        event.begin();
+      }
+    }
+
+    /**
+     * Adds the time since a point in time to a stage.
+     *
+     * @param stage The stage.
+     * @param since Value of {@link System#nanoTime()} when the stage began.
+     * @return The current value of {@link System#nanoTime()}, from which
+     *     the next stage can be measured.
+     */
+    long lap(Stage stage, long since) {
+      long now = System.nanoTime();
+      if (this != DISABLED) {
+        stageNanos[stage.ordinal()] += now - since;
+      }
+      return now;
+    }
+
+    /**
+     * Sets the sizes of input and output.
+     *
+     * @param in  Size of the input.
+     * @param out Size of the output.
+     */
+    void setSizes(long in, long out) {
+      if (this != DISABLED) {
+        bytesIn = in;
+        bytesOut = out;
+      }
+    }
+
+    /**
+     * Sets the encoding used.
+     *
+     * @param table Codes of the encoding.
+     */
+    void setTable(CodeTable table) {
+      if (this != DISABLED) {
+        distinctSymbols = table.size();
+        maxCodeLength = Math.max(0, table.getMaxLength());
+      }
+    }
+
+    private Recording nest() {
+      if (this != DISABLED) {
+        depth++;
+      }
+      return this;
+    }
+
+    /**
+     * Ends the operation and hands its measurements to the listeners and
+     * the flight recorder, unless this recording was nested into another
+     * one.
+     */
+    @Override public void close() {
+      if (this == DISABLED) {
+        return;
+      } else if (depth > 0) {
+        depth--;
+        return;
+      }
+      active.remove();
+      CodecMetrics metrics =
+          new CodecMetrics(operation, stageNanos.clone(),
+                           System.nanoTime() - start, bytesIn, bytesOut,
+                           distinctSymbols, maxCodeLength);
+      commit(metrics);
+      for (MetricsListener listener : listeners) {
+        listener.onOperation(metrics);
+      }
+    }
+
+    private void commit(CodecMetrics metrics) {
+      if (event == null) {
+        return;
+      }
+      event.end();
+      if (!event.shouldCommit()) {
+        return;
+      }
+      event.operation = operation.name();
+      event.countNanos = metrics.getNanos(Stage.COUNT);
+      event.treeNanos = metrics.getNanos(Stage.TREE);
+      event.tableNanos = metrics.getNanos(Stage.TABLE);
+      event.encodeNanos = metrics.getNanos(Stage.ENCODE);
+      event.packNanos = metrics.getNanos(Stage.PACK);
+      event.ioNanos = metrics.getNanos(Stage.IO);
+      event.decodeNanos = metrics.getNanos(Stage.DECODE);
+      event.bytesIn = metrics.getBytesIn();
+      event.bytesOut = metrics.getBytesOut();
+      event.ratio = metrics.getRatio();
+      event.distinctSymbols = metrics.getDistinctSymbols();
+      event.maxCodeLength = metrics.getMaxCodeLength();
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package ch.fhnw.huffman;
+
+/**
+ * Receives the measurements of every encode and decode operation, once
+ * added with {@link Metrics#addListener(MetricsListener)}. Listeners are
+ * called on the thread that ran the operation, right after it ends, so they
+ * should return quickly.
+ */
+@FunctionalInterface
+public interface MetricsListener {
+  /**
+   * Called when an operation has ended.
+   *
+   * @param metrics Measurements of the operation.
+   */
+  void onOperation(CodecMetrics metrics);
+}
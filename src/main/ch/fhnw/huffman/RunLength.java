@@ -0,0 +1,96 @@
+package ch.fhnw.huffman;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Run-length encoding of bytes, for inputs made of long runs of equal bytes
+ * such as sparse files or images with flat areas. Every run is stored as
+ * its byte value followed by a {@link Varint} of its length minus one.
+ */
+class RunLength {
+  private RunLength() {
+  }
+
+  /**
+   * Computes the size of the run-length encoding of the remaining bytes of
+   * a buffer without encoding them. The position of the buffer isn't
+   * changed.
+   *
+   * @param plainBytes The bytes to encode.
+   * @return Number of bytes of the encoding.
+   */
+  static long encodedSize(ByteBuffer plainBytes) {
+    long size = 0;
+    int end = plainBytes.limit();
+    for (int i = plainBytes.position(); i < end; ) {
+      int run = runLength(plainBytes, i, end);
+      size += 1 + Varint.size(run - 1);
+      i += run;
+    }
+    return size;
+  }
+
+  /**
+   * Appends the run-length encoding of the remaining bytes of a buffer to
+   * another buffer. The position of the input isn't changed.
+   *
+   * @param plainBytes The bytes to encode.
+   * @param output     Buffer with room for {@link #encodedSize(ByteBuffer)}
+   *                   bytes.
+   */
+  static void encode(ByteBuffer plainBytes, ByteBuffer output) {
+    int end = plainBytes.limit();
+    for (int i = plainBytes.position(); i < end; ) {
+      int run = runLength(plainBytes, i, end);
+      output.put(plainBytes.get(i));
+      Varint.put(output, run - 1);
+      i += run;
+    }
+  }
+
+  /**
+   * Decodes the run-length encoding in the remaining bytes of a buffer.
+   *
+   * @param encodedBytes The encoding, which must end with the last run.
+   * @param plainLength  Number of bytes it decodes to.
+   * @return The decoded bytes.
+   */
+  static byte[] decode(ByteBuffer encodedBytes, int plainLength) {
+    byte[] plainBytes = new byte[plainLength];
+    int i = 0;
+    try {
+      while (encodedBytes.hasRemaining()) {
+        byte value = encodedBytes.get();
+        int rest = Varint.get(encodedBytes);
+        if (rest < 0) {
+          throw new IllegalArgumentException("Corrupt run length.");
+        }
+        long run = rest + 1L;
+        if (run > plainLength - i) {
+          throw new IllegalArgumentException(String.format(
+              "Runs exceed %d bytes.", plainLength));
+        }
+        Arrays.fill(plainBytes, i, i + (int) run, value);
+        i += (int) run;
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Run-length encoding truncated.");
+    }
+    if (i != plainLength) {
+      throw new IllegalArgumentException(String.format(
+          "Runs decoded to %d instead of %d bytes.", i, plainLength));
+    }
+    return plainBytes;
+  }
+
+  private static int runLength(ByteBuffer bytes, int from, int end) {
+    byte value = bytes.get(from);
+    int i = from + 1;
+    while (i < end && bytes.get(i) == value) {
+      i++;
+    }
+    return i - from;
+  }
+}
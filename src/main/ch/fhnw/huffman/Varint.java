@@ -0,0 +1,58 @@
+package ch.fhnw.huffman;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Variable-length coding of non-negative ints, as used by
+ * {@link EncodingHeader} and {@link RunLength}. Varints hold seven bits per
+ * byte, least significant group first, with the high bit set on all but the
+ * last byte, so values below 128 take a single byte.
+ */
+class Varint {
+  private Varint() {
+  }
+
+  /**
+   * Returns the number of bytes of a varint.
+   *
+   * @param value Non-negative value.
+   * @return Number of bytes {@link #put(ByteBuffer, int)} writes, 1 to 5.
+   */
+  static int size(int value) {
+    return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+  }
+
+  /**
+   * Writes a varint.
+   *
+   * @param buffer Buffer the varint is put into.
+   * @param value  Non-negative value.
+   */
+  static void put(ByteBuffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) (value & 0x7F | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  /**
+   * Reads a varint. Callers turn a -1 into an error of their format.
+   *
+   * @param buffer Buffer the varint is read from.
+   * @return The value, or -1 if the varint doesn't hold a non-negative int.
+   * @throws java.nio.BufferUnderflowException If the buffer ends within the
+   *                                           varint.
+   */
+  static int get(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value >= 0 ? value : -1;
+      }
+    }
+    return -1;
+  }
+}
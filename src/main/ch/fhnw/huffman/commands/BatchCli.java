@@ -0,0 +1,438 @@
+package ch.fhnw.huffman.commands;
+
+import ch.fhnw.huffman.AdaptiveHuffmanInputStream;
+import ch.fhnw.huffman.AdaptiveHuffmanOutputStream;
+import ch.fhnw.huffman.BatchCodec;
+import ch.fhnw.huffman.BatchCodec.FileCodec;
+import ch.fhnw.huffman.BatchCodec.Job;
+import ch.fhnw.huffman.BatchCodec.Summary;
+import ch.fhnw.huffman.CodecStats;
+import ch.fhnw.huffman.HuffmanFile;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs encode and decode without the interactive menu, for use from scripts
+ * and pipelines:
+ * <pre>
+ * encode [--binary|--adaptive] [-j THREADS] [-o OUTPUT] INPUT...
+ * decode [--binary|--adaptive] [-j THREADS] [-o OUTPUT] INPUT...
+ * </pre>
+ * An input is a file, a directory whose files are processed recursively, a
+ * glob pattern, or - for standard input. Without -o, every output is written
+ * next to its input, with ".huf" appended when encoding and removed when
+ * decoding, and standard input is written to standard output. For a single
+ * file, OUTPUT is the output file, or - for standard output; otherwise it is
+ * the directory the outputs are written to, keeping the layout below
+ * directories and glob bases. All inputs are processed in one run, so the
+ * JVM is only started once. Files are processed by a {@link BatchCodec} on
+ * THREADS threads, by default one per processor, and a summary is printed
+ * on standard error when they are done. While they are processed, the
+ * totals of every stage can be watched over JMX as {@link CodecStats}.
+ * <p>
+ * With --adaptive, bytes are encoded in a single pass by
+ * {@link AdaptiveHuffmanOutputStream}, which needs neither a header nor the
+ * whole input. Standard streams are then passed through directly, and every
+ * chunk read from standard input is flushed to standard output, so live
+ * streams such as logs are encoded and decoded with bounded latency.
+ */
+public class BatchCli {
+  @VisibleForTesting static final String SUFFIX = ".huf";
+  static final int EXIT_OK = 0;
+  static final int EXIT_FAILED = 1;
+  static final int EXIT_USAGE = 2;
+
+  private static final String STD_STREAM = "-";
+  private static final String USAGE =
+      "Usage: (encode|decode) [--binary|--adaptive] [-j THREADS] " +
+          "[-o OUTPUT] INPUT...";
+
+  private final InputStream stdin;
+  private final PrintStream stdout;
+  private final PrintStream stderr;
+
+  /**
+   * Creates a command line interface on the given standard streams.
+   *
+   * @param stdin  Stream read for the input -.
+   * @param stdout Stream written for the output -.
+   * @param stderr Stream errors are reported on.
+   */
+  public BatchCli(InputStream stdin, PrintStream stdout, PrintStream stderr) {
+    this.stdin = stdin;
+    this.stdout = stdout;
+    this.stderr = stderr;
+  }
+
+  /**
+   * Encodes or decodes all inputs given by the arguments. A failing input is
+   * reported and doesn't stop the others from being processed.
+   *
+   * @param args Command line arguments.
+   * @return Exit code: 0 if all inputs were processed, 1 if some failed and
+   *     2 if the arguments are invalid.
+   */
+  public int run(String... args) {
+    Arguments arguments;
+    List<Job> jobs;
+    try {
+      arguments = Arguments.parse(args);
+      jobs = arguments.jobs();
+    } catch (IllegalArgumentException e) {
+      stderr.println(e.getMessage());
+      stderr.println(USAGE);
+      return EXIT_USAGE;
+    } catch (IOException e) {
+      stderr.printf("Failed to list inputs: %s%n", e.getMessage());
+      return EXIT_FAILED;
+    }
+    FileCodec codec = arguments.codec();
+    if (jobs.size() == 1 && (jobs.get(0).getInput() == null ||
+                                 jobs.get(0).getOutput() == null)) {
+      try {
+        if (arguments.adaptive) {
+          processAdaptive(jobs.get(0), arguments.encode);
+        } else {
+          processStandardStreams(jobs.get(0), codec);
+        }
+        return EXIT_OK;
+      } catch (IOException | RuntimeException e) {
+        reportFailure(jobs.get(0).getInput(), e);
+        return EXIT_FAILED;
+      }
+    }
+    CodecStats.register();
+    Summary summary = new BatchCodec(codec, arguments.threads)
+        .run(jobs, this::reportFailure);
+    stderr.println(summary);
+    return summary.getFailed() == 0 ? EXIT_OK : EXIT_FAILED;
+  }
+
+  /**
+   * Parses the number of threads given with -j.
+   */
+  static int parseThreads(String threads) {
+    int parsed;
+    try {
+      parsed = Integer.parseInt(threads);
+    } catch (NumberFormatException ignored) {
+      parsed = 0;
+    }
+    if (parsed < 1) {
+      throw new IllegalArgumentException(
+          String.format("Invalid number of threads %s.", threads));
+    }
+    return parsed;
+  }
+
+  private void reportFailure(Path input, Exception e) {
+    stderr.printf("Failed to process %s: %s%n",
+                  input == null ? STD_STREAM : input, e.getMessage());
+  }
+
+  /**
+   * Runs the adaptive codec on a job whose input or output, given as null,
+   * is a standard stream, flushing the output after every chunk of input.
+   */
+  private void processAdaptive(Job job, boolean encode) throws IOException {
+    if (job.getOutput() != null &&
+            job.getOutput().toAbsolutePath().getParent() != null) {
+      Files.createDirectories(job.getOutput().toAbsolutePath().getParent());
+    }
+    InputStream input = job.getInput() == null
+                        ? stdin : Files.newInputStream(job.getInput());
+    try {
+      OutputStream output = job.getOutput() == null
+                            ? stdout : Files.newOutputStream(job.getOutput());
+      try {
+        if (encode) {
+          pipe(input, new AdaptiveHuffmanOutputStream(output));
+        } else {
+          pipe(new AdaptiveHuffmanInputStream(input), output);
+        }
+      } finally {
+        if (output != stdout) {
+          output.close();
+        }
+      }
+    } finally {
+      if (input != stdin) {
+        input.close();
+      }
+    }
+  }
+
+  /**
+   * Copies input to output, flushing the output whenever a read returns.
+   */
+  private static void pipe(InputStream input, OutputStream output)
+      throws IOException {
+    byte[] buffer = new byte[1 << 13];
+    int n;
+    while ((n = input.read(buffer)) >= 0) {
+      output.write(buffer, 0, n);
+      output.flush();
+    }
+    output.flush();
+  }
+
+  private static void encodeAdaptive(Path input, Path output)
+      throws IOException {
+    try (InputStream plain = Files.newInputStream(input);
+         OutputStream encoded =
+             new AdaptiveHuffmanOutputStream(Files.newOutputStream(output))) {
+      plain.transferTo(encoded);
+    }
+  }
+
+  private static void decodeAdaptive(Path input, Path output)
+      throws IOException {
+    try (InputStream encoded =
+             new AdaptiveHuffmanInputStream(Files.newInputStream(input));
+         OutputStream plain = Files.newOutputStream(output)) {
+      encoded.transferTo(plain);
+    }
+  }
+
+  /**
+   * Runs the codec on a job whose input or output, given as null, is a
+   * standard stream. Standard streams are buffered in temporary files, since
+   * the codecs read their input twice and fill in the header of their output
+   * last.
+   */
+  private void processStandardStreams(Job job, FileCodec codec)
+      throws IOException {
+    Path input = job.getInput();
+    Path output = job.getOutput();
+    try {
+      if (input == null) {
+        input = Files.createTempFile("huffman", null);
+        Files.copy(stdin, input, StandardCopyOption.REPLACE_EXISTING);
+      }
+      if (output == null) {
+        output = Files.createTempFile("huffman", null);
+      } else if (output.toAbsolutePath().getParent() != null) {
+        Files.createDirectories(output.toAbsolutePath().getParent());
+      }
+      codec.apply(input, output);
+      if (job.getOutput() == null) {
+        Files.copy(output, stdout);
+        stdout.flush();
+      }
+    } finally {
+      if (job.getInput() == null && input != null) {
+        Files.deleteIfExists(input);
+      }
+      if (job.getOutput() == null && output != null) {
+        Files.deleteIfExists(output);
+      }
+    }
+  }
+
+  /**
+   * Parsed command line arguments.
+   */
+  private static class Arguments {
+    private final boolean encode;
+    private final boolean binary;
+    private final boolean adaptive;
+    private final int threads;
+    private final String output;
+    private final List<String> inputs;
+
+    private Arguments(boolean encode, boolean binary, boolean adaptive,
+                      int threads, String output, List<String> inputs) {
+      this.encode = encode;
+      this.binary = binary;
+      this.adaptive = adaptive;
+      this.threads = threads;
+      this.output = output;
+      this.inputs = inputs;
+    }
+
+    static Arguments parse(String[] args) {
+      if (args.length == 0 ||
+              !args[0].equals("encode") && !args[0].equals("decode")) {
+        throw new IllegalArgumentException("Expected encode or decode.");
+      }
+      boolean binary = false;
+      boolean adaptive = false;
+      int threads = Runtime.getRuntime().availableProcessors();
+      String output = null;
+      List<String> inputs = new ArrayList<>();
+      for (int i = 1; i < args.length; i++) {
+        switch (args[i]) {
+          case "-b":
+          case "--binary":
+            binary = true;
+            break;
+          case "-a":
+          case "--adaptive":
+            adaptive = true;
+            break;
+          case "-o":
+          case "--output":
+            if (++i == args.length) {
+              throw new IllegalArgumentException("Missing output after -o.");
+            }
+            output = args[i];
+            break;
+          case "-j":
+          case "--threads":
+            if (++i == args.length) {
+              throw new IllegalArgumentException("Missing threads after -j.");
+            }
+            threads = parseThreads(args[i]);
+            break;
+          default:
+            if (args[i].startsWith("-") && !args[i].equals(STD_STREAM)) {
+              throw new IllegalArgumentException(
+                  String.format("Unknown option %s.", args[i]));
+            }
+            inputs.add(args[i]);
+        }
+      }
+      if (inputs.isEmpty()) {
+        throw new IllegalArgumentException("Missing input.");
+      }
+      if (binary && adaptive) {
+        throw new IllegalArgumentException(
+            "--adaptive always encodes bytes and can't be combined with " +
+                "--binary.");
+      }
+      return new Arguments(args[0].equals("encode"), binary, adaptive,
+                           threads, output, inputs);
+    }
+
+    FileCodec codec() {
+      if (adaptive) {
+        return encode ? BatchCli::encodeAdaptive : BatchCli::decodeAdaptive;
+      } else if (encode) {
+        return binary ? HuffmanFile::encodeBytes : HuffmanFile::encodeText;
+      }
+      return binary ? HuffmanFile::decodeBytes : HuffmanFile::decodeText;
+    }
+
+    List<Job> jobs() throws IOException {
+      if (inputs.size() == 1 && isSingleFile(inputs.get(0))) {
+        String input = inputs.get(0);
+        Path inputPath = input.equals(STD_STREAM) ? null : Path.of(input);
+        Path outputPath;
+        if (output != null) {
+          outputPath = output.equals(STD_STREAM) ? null : Path.of(output);
+        } else {
+          outputPath = inputPath == null ? null : outputName(inputPath);
+        }
+        return List.of(new Job(inputPath, outputPath));
+      }
+      if (STD_STREAM.equals(output)) {
+        throw new IllegalArgumentException(
+            "Standard output only takes a single input.");
+      }
+      List<Job> jobs = new ArrayList<>();
+      for (String input : inputs) {
+        if (input.equals(STD_STREAM)) {
+          throw new IllegalArgumentException(
+              "Standard input can't be combined with other inputs.");
+        } else if (isGlob(input)) {
+          Path base = globBase(input);
+          for (Path file : expandGlob(input, base)) {
+            jobs.add(job(file, base.relativize(file)));
+          }
+        } else if (Files.isDirectory(Path.of(input))) {
+          Path dir = Path.of(input);
+          for (Path file : listFiles(dir)) {
+            jobs.add(job(file, dir.relativize(file)));
+          }
+        } else {
+          Path file = Path.of(input);
+          jobs.add(job(file, file.getFileName()));
+        }
+      }
+      return jobs;
+    }
+
+    private boolean isSingleFile(String input) {
+      return input.equals(STD_STREAM) ||
+                 !isGlob(input) && !Files.isDirectory(Path.of(input));
+    }
+
+    private Job job(Path file, Path relative) {
+      return new Job(file, output == null
+                           ? outputName(file)
+                           : outputName(Path.of(output).resolve(relative)));
+    }
+
+    private Path outputName(Path input) {
+      String name = input.getFileName().toString();
+      if (encode) {
+        return input.resolveSibling(name + SUFFIX);
+      } else if (name.endsWith(SUFFIX) && name.length() > SUFFIX.length()) {
+        return input.resolveSibling(
+            name.substring(0, name.length() - SUFFIX.length()));
+      }
+      return input.resolveSibling(name + ".out");
+    }
+
+    /**
+     * Lists the files below a directory that are to be processed: encoded
+     * files when decoding and all others when encoding.
+     */
+    private List<Path> listFiles(Path dir) throws IOException {
+      try (Stream<Path> paths = Files.walk(dir)) {
+        return paths.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(SUFFIX) != encode)
+                    .sorted()
+                    .collect(Collectors.toList());
+      }
+    }
+
+    private static boolean isGlob(String input) {
+      return input.chars().anyMatch(c -> "*?[{".indexOf(c) >= 0);
+    }
+
+    /**
+     * Returns the directory up to the first path element holding glob
+     * characters.
+     */
+    private static Path globBase(String pattern) {
+      int firstGlob = 0;
+      while ("*?[{".indexOf(pattern.charAt(firstGlob)) < 0) {
+        firstGlob++;
+      }
+      int separator = Math.max(pattern.lastIndexOf('/', firstGlob),
+                               pattern.lastIndexOf(File.separatorChar,
+                                                   firstGlob));
+      return separator < 0 ? Path.of("")
+                           : Path.of(pattern.substring(0, separator + 1));
+    }
+
+    private static List<Path> expandGlob(String pattern, Path base)
+        throws IOException {
+      PathMatcher matcher =
+          FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+      Path root = base.toString().isEmpty() ? Path.of(".") : base;
+      try (Stream<Path> paths = Files.walk(root)) {
+        return paths.filter(Files::isRegularFile)
+                    .map(p -> base.resolve(root.relativize(p)))
+                    .filter(matcher::matches)
+                    .sorted()
+                    .collect(Collectors.toList());
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package ch.fhnw.huffman.commands;
+
+import ch.fhnw.huffman.BlockHuffmanCodec;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+import static ch.fhnw.huffman.FileUtil.newWriteChannel;
+import static ch.fhnw.huffman.commands.CommandUtil.askForExistingPath;
+import static ch.fhnw.huffman.commands.CommandUtil.askForOutputPath;
+
+public class DecodeBlocksCommand implements Command {
+  @Override public boolean execute(Scanner s) {
+    Path containerPath = askForExistingPath(s, "block container");
+    Path outputPath = askForOutputPath(s, "decoded file");
+
+    BlockHuffmanCodec codec =
+        new BlockHuffmanCodec(BlockHuffmanCodec.DEFAULT_BLOCK_SIZE,
+                              ForkJoinPool.commonPool());
+    try (FileChannel container = FileChannel.open(containerPath);
+         FileChannel decoded = newWriteChannel(outputPath)) {
+      codec.decode(container, decoded);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return true;
+  }
+}
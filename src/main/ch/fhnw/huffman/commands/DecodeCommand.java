@@ -1,44 +1,31 @@
 package ch.fhnw.huffman.commands;
 
-import ch.fhnw.huffman.HuffmanEncoding;
+import ch.fhnw.huffman.BinaryDigits;
+import ch.fhnw.huffman.HuffmanFile;
 import com.google.common.annotations.VisibleForTesting;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Scanner;
 
-import static ch.fhnw.huffman.FileUtil.readBytes;
-import static ch.fhnw.huffman.FileUtil.readString;
-import static ch.fhnw.huffman.FileUtil.write;
 import static ch.fhnw.huffman.commands.CommandUtil.askForExistingPath;
 import static ch.fhnw.huffman.commands.CommandUtil.askForOutputPath;
 
 public class DecodeCommand implements Command {
   @Override public boolean execute(Scanner s) {
-    Path encodingSchemePath = askForExistingPath(s, "encoding scheme");
-    Path encodedTextPath = askForExistingPath(s, "encoded text");
+    Path encodedPath = askForExistingPath(s, "encoded file");
     Path outputPath = askForOutputPath(s, "decoded text");
 
-    String stringifiedEncodedText =
-        stringifyEncodedText(readBytes(encodedTextPath));
-    String cleanedEncodedText = removeFiller(stringifiedEncodedText);
-
-    write(outputPath,
-          HuffmanEncoding.fromEncoding(readString(encodingSchemePath),
-                                       cleanedEncodedText).getPlainText());
+    try {
+      HuffmanFile.decodeText(encodedPath, outputPath);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
     return true;
   }
 
   @VisibleForTesting
   static String stringifyEncodedText(byte[] encodedText) {
-    StringBuilder bitSeq = new StringBuilder();
-    for (byte b : encodedText) {
-      bitSeq.append(String.format("%8s", Integer.toBinaryString(b & 0xFF)));
-    }
-    return bitSeq.toString().replace(' ', '0');
-  }
-
-  @VisibleForTesting
-  static String removeFiller(String encodedText) {
-    return encodedText.substring(0, encodedText.lastIndexOf('1'));
+    return BinaryDigits.expand(encodedText, 8L * encodedText.length);
   }
 }
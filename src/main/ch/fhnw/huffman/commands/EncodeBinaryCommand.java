@@ -0,0 +1,24 @@
+package ch.fhnw.huffman.commands;
+
+import ch.fhnw.huffman.HuffmanFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+import static ch.fhnw.huffman.commands.CommandUtil.askForExistingPath;
+import static ch.fhnw.huffman.commands.CommandUtil.askForOutputPath;
+
+public class EncodeBinaryCommand implements Command {
+  @Override public boolean execute(Scanner s) {
+    Path inputPath = askForExistingPath(s, "binary file");
+    Path outputPath = askForOutputPath(s, "encoded file");
+
+    try {
+      HuffmanFile.encodeBytes(inputPath, outputPath);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return true;
+  }
+}
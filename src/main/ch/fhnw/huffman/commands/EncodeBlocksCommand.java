@@ -0,0 +1,31 @@
+package ch.fhnw.huffman.commands;
+
+import ch.fhnw.huffman.BlockHuffmanCodec;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+import static ch.fhnw.huffman.FileUtil.newWriteChannel;
+import static ch.fhnw.huffman.commands.CommandUtil.askForExistingPath;
+import static ch.fhnw.huffman.commands.CommandUtil.askForOutputPath;
+
+public class EncodeBlocksCommand implements Command {
+  @Override public boolean execute(Scanner s) {
+    Path plainPath = askForExistingPath(s, "file");
+    Path containerOutPath = askForOutputPath(s, "block container");
+
+    BlockHuffmanCodec codec =
+        new BlockHuffmanCodec(BlockHuffmanCodec.DEFAULT_BLOCK_SIZE,
+                              ForkJoinPool.commonPool(), true);
+    try (FileChannel plain = FileChannel.open(plainPath);
+         FileChannel container = newWriteChannel(containerOutPath)) {
+      codec.encode(plain, container);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return true;
+  }
+}
@@ -1,27 +1,26 @@
 package ch.fhnw.huffman.commands;
 
-import ch.fhnw.huffman.HuffmanEncoding;
+import ch.fhnw.huffman.BinaryDigits;
+import ch.fhnw.huffman.HuffmanFile;
 import com.google.common.annotations.VisibleForTesting;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Scanner;
 
-import static ch.fhnw.huffman.FileUtil.readString;
-import static ch.fhnw.huffman.FileUtil.write;
 import static ch.fhnw.huffman.commands.CommandUtil.askForExistingPath;
 import static ch.fhnw.huffman.commands.CommandUtil.askForOutputPath;
 
 public class EncodeCommand implements Command {
   @Override public boolean execute(Scanner s) {
     Path plainTextPath = askForExistingPath(s, "text");
-    Path encodingSchemeOutPath = askForOutputPath(s, "encoding scheme");
-    Path encodedTextOutPath = askForOutputPath(s, "encoded text");
+    Path encodedOutPath = askForOutputPath(s, "encoded file");
 
-    HuffmanEncoding encoding =
-        HuffmanEncoding.fromPlainText(readString(plainTextPath));
-    write(encodingSchemeOutPath, encoding.getStringifiedEncoding());
-    write(encodedTextOutPath,
-          binStringToByteArr(padEncodedText(encoding.getEncodedText())));
+    try {
+      HuffmanFile.encodeText(plainTextPath, encodedOutPath);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
     return true;
   }
 
@@ -34,11 +33,7 @@ public class EncodeCommand implements Command {
   @VisibleForTesting
   static byte[] binStringToByteArr(String paddedEncodedText) {
     byte[] encodedBytes = new byte[paddedEncodedText.length() / 8];
-    for (int i = 0; i < encodedBytes.length; i++) {
-      encodedBytes[i] =
-          (byte) Integer.parseInt(paddedEncodedText.substring(0, 8), 2);
-      paddedEncodedText = paddedEncodedText.substring(8);
-    }
+    BinaryDigits.pack(paddedEncodedText, encodedBytes);
     return encodedBytes;
   }
 }
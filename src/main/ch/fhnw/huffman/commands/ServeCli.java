@@ -0,0 +1,130 @@
+package ch.fhnw.huffman.commands;
+
+import ch.fhnw.huffman.CodecStats;
+import ch.fhnw.huffman.DictionaryCache;
+import ch.fhnw.huffman.HuffmanServer;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs a {@link HuffmanServer} until the JVM is stopped:
+ * <pre>
+ * serve [-j THREADS] [-d DICTIONARIES] ADDRESS
+ * </pre>
+ * ADDRESS is a port on the loopback interface, HOST:PORT, or the path of a
+ * Unix domain socket. THREADS connections are served at once, by default
+ * one per processor. With -d, text requests are encoded against the
+ * dictionaries saved in the directory DICTIONARIES, of which the
+ * DICTIONARY_CAPACITY most recently used are kept in memory. The totals of
+ * all requests served can be watched over JMX as {@link CodecStats}.
+ */
+public class ServeCli {
+  @VisibleForTesting static final int DICTIONARY_CAPACITY = 64;
+
+  private static final String USAGE =
+      "Usage: serve [-j THREADS] [-d DICTIONARIES] ADDRESS";
+
+  private final PrintStream stderr;
+
+  /**
+   * Creates a command line interface reporting on the given stream.
+   *
+   * @param stderr Stream the address and errors are reported on.
+   */
+  public ServeCli(PrintStream stderr) {
+    this.stderr = stderr;
+  }
+
+  /**
+   * Starts a server as given by the arguments and waits until it is closed
+   * by a shutdown hook when the JVM is stopped.
+   *
+   * @param args Command line arguments, starting with serve.
+   * @return Exit code: 0 once the server is closed, 1 if it can't be
+   *     started and 2 if the arguments are invalid.
+   */
+  public int run(String... args) {
+    HuffmanServer server;
+    try {
+      server = start(args);
+    } catch (IllegalArgumentException e) {
+      stderr.println(e.getMessage());
+      stderr.println(USAGE);
+      return BatchCli.EXIT_USAGE;
+    } catch (IOException e) {
+      stderr.printf("Failed to start server: %s%n", e.getMessage());
+      return BatchCli.EXIT_FAILED;
+    }
+    stderr.printf("Serving on %s%n", server.getAddress());
+    CodecStats.register();
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        server.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }));
+    try {
+      server.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return BatchCli.EXIT_OK;
+  }
+
+  /**
+   * Parses the arguments and starts the server they describe.
+   *
+   * @param args Command line arguments, starting with serve.
+   * @return The running server.
+   * @throws IOException If the server can't be started.
+   */
+  @VisibleForTesting
+  static HuffmanServer start(String... args) throws IOException {
+    if (args.length == 0 || !args[0].equals("serve")) {
+      throw new IllegalArgumentException("Expected serve.");
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    DictionaryCache dictionaries = null;
+    SocketAddress address = null;
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "-j":
+        case "--threads":
+          if (++i == args.length) {
+            throw new IllegalArgumentException("Missing threads after -j.");
+          }
+          threads = BatchCli.parseThreads(args[i]);
+          break;
+        case "-d":
+        case "--dictionaries":
+          if (++i == args.length) {
+            throw new IllegalArgumentException(
+                "Missing dictionaries after -d.");
+          }
+          Path directory = Path.of(args[i]);
+          if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException(
+                String.format("No directory %s.", directory));
+          }
+          dictionaries = new DictionaryCache(directory, DICTIONARY_CAPACITY);
+          break;
+        default:
+          if (address != null) {
+            throw new IllegalArgumentException("Expected a single address.");
+          }
+          address = HuffmanServer.parseAddress(args[i]);
+      }
+    }
+    if (address == null) {
+      throw new IllegalArgumentException("Missing address.");
+    }
+    return HuffmanServer.start(address, threads, dictionaries);
+  }
+}
@@ -0,0 +1,103 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AdaptiveHuffmanInputStreamTest {
+  @Test
+  public void testRead_randomBytes_sameBytes() throws IOException {
+    byte[] input = new byte[200_000];
+    Random random = new Random(42);
+    for (int i = 0; i < input.length; i++) {
+      input[i] = (byte) (random.nextGaussian() * (i < 100_000 ? 5 : 50));
+    }
+
+    assertArrayEquals(input, decode(encode(input)));
+  }
+
+  @Test
+  public void testRead_empty_endOfStream() throws IOException {
+    InputStream in = new AdaptiveHuffmanInputStream(
+        new ByteArrayInputStream(new byte[0]));
+
+    assertEquals(-1, in.read());
+    assertEquals(-1, in.read(new byte[4]));
+  }
+
+  @Test
+  public void testRead_flushedParts_returnedSeparately() throws IOException {
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    OutputStream out = new AdaptiveHuffmanOutputStream(encoded);
+    out.write(new byte[] {1, 2, 3});
+    out.flush();
+    out.write(new byte[] {4, 5});
+    out.close();
+    InputStream in = new AdaptiveHuffmanInputStream(
+        new ByteArrayInputStream(encoded.toByteArray()));
+    byte[] buffer = new byte[10];
+
+    int first = in.read(buffer);
+    int second = in.read(buffer, first, buffer.length - first);
+
+    assertEquals(3, first);
+    assertEquals(2, second);
+    assertEquals(-1, in.read(buffer));
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5},
+                      Arrays.copyOf(buffer, first + second));
+  }
+
+  @Test
+  public void testRead_manyFlushes_sameBytes() throws IOException {
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    try (OutputStream out = new AdaptiveHuffmanOutputStream(encoded)) {
+      for (int i = 0; i < 10_000; i++) {
+        out.write(i % 7);
+        expected.write(i % 7);
+        if (i % 13 == 0) {
+          out.flush();
+        }
+      }
+    }
+
+    assertArrayEquals(expected.toByteArray(),
+                      decode(encoded.toByteArray()));
+  }
+
+  @Test
+  public void testRead_truncated_throwsIAE() throws IOException {
+    byte[] encoded = encode("Hello World!".getBytes());
+    InputStream in = new AdaptiveHuffmanInputStream(
+        new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 2)));
+
+    IllegalArgumentException iae = assertThrows(
+        IllegalArgumentException.class, in::readAllBytes);
+    assertEquals("Adaptive stream ends within a code.", iae.getMessage());
+  }
+
+  private static byte[] encode(byte[] input) throws IOException {
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    try (OutputStream out = new AdaptiveHuffmanOutputStream(encoded)) {
+      out.write(input);
+    }
+    return encoded.toByteArray();
+  }
+
+  private static byte[] decode(byte[] encoded) throws IOException {
+    try (InputStream in = new AdaptiveHuffmanInputStream(
+        new ByteArrayInputStream(encoded))) {
+      return in.readAllBytes();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AdaptiveHuffmanOutputStreamTest {
+  @Test
+  public void testClose_nothingWritten_empty() throws IOException {
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+
+    new AdaptiveHuffmanOutputStream(res).close();
+
+    assertEquals(0, res.size());
+  }
+
+  @Test
+  public void testFlush_twice_secondWritesNothing() throws IOException {
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+    OutputStream out = new AdaptiveHuffmanOutputStream(res);
+
+    out.write('a');
+    out.flush();
+    int flushed = res.size();
+    out.flush();
+
+    assertEquals(2, flushed);
+    assertEquals(flushed, res.size());
+  }
+
+  @Test
+  public void testWrite_skewedInput_compressed() throws IOException {
+    byte[] input = new byte[100_000];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = (byte) (i % 10 == 0 ? 'b' : 'a');
+    }
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+
+    try (OutputStream out = new AdaptiveHuffmanOutputStream(res)) {
+      out.write(input);
+    }
+
+    assertThat(res.size(), lessThan(input.length / 6));
+  }
+}
@@ -0,0 +1,134 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.BatchCodec.Job;
+import ch.fhnw.huffman.BatchCodec.Summary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static ch.fhnw.huffman.FileUtil.MAPPED_IO_THRESHOLD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchCodecTest {
+  private Path dir;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("batch");
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) paths.sorted(
+          Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testRun_manyFiles_roundTrip() throws IOException {
+    List<Job> encodeJobs = new ArrayList<>();
+    List<Job> decodeJobs = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      Path plain = dir.resolve("plain/" + i + ".txt");
+      Files.createDirectories(plain.getParent());
+      Files.writeString(plain, "file " + i + " " + "ab".repeat(i));
+      encodeJobs.add(new Job(plain, dir.resolve("enc/" + i + ".huf")));
+      decodeJobs.add(new Job(dir.resolve("enc/" + i + ".huf"),
+                             dir.resolve("dec/" + i + ".txt")));
+    }
+
+    Summary encoded = new BatchCodec(HuffmanFile::encodeText, 4)
+        .run(encodeJobs, (input, e) -> { throw new AssertionError(e); });
+    Summary decoded = new BatchCodec(HuffmanFile::decodeText, 4)
+        .run(decodeJobs, (input, e) -> { throw new AssertionError(e); });
+
+    assertEquals(50, encoded.getFiles());
+    assertEquals(0, encoded.getFailed());
+    assertEquals(encoded.getBytesOut(), decoded.getBytesIn());
+    assertEquals(encoded.getBytesIn(), decoded.getBytesOut());
+    for (int i = 0; i < 50; i++) {
+      assertEquals("file " + i + " " + "ab".repeat(i),
+                   Files.readString(dir.resolve("dec/" + i + ".txt")));
+    }
+  }
+
+  @Test
+  public void testRun_failingFile_reportedAndOthersProcessed()
+      throws IOException {
+    Path plain = dir.resolve("a.txt");
+    Files.writeString(plain, "abc");
+    Path missing = dir.resolve("missing.txt");
+    Map<Path, Exception> failures = new ConcurrentHashMap<>();
+
+    Summary summary = new BatchCodec(HuffmanFile::encodeText, 2).run(
+        List.of(new Job(missing, dir.resolve("missing.huf")),
+                new Job(plain, dir.resolve("a.huf"))),
+        failures::put);
+
+    assertEquals(2, summary.getFiles());
+    assertEquals(1, summary.getFailed());
+    assertEquals(3, summary.getBytesIn());
+    assertEquals(Files.size(dir.resolve("a.huf")), summary.getBytesOut());
+    assertEquals(List.of(missing), new ArrayList<>(failures.keySet()));
+  }
+
+  @Test
+  public void testRun_smallMemoryBudget_filesProcessedOneAtATime()
+      throws IOException {
+    List<Job> jobs = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Path plain = dir.resolve(i + ".txt");
+      Files.writeString(plain, "x".repeat(4096));
+      jobs.add(new Job(plain, dir.resolve(i + ".out")));
+    }
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    new BatchCodec((input, output) -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Files.copy(input, output);
+      running.decrementAndGet();
+    }, 4, 5 << 10).run(jobs, (input, e) -> { throw new AssertionError(e); });
+
+    assertEquals(1, maxRunning.get());
+  }
+
+  @Test
+  public void testMemoryKib_largeFile_cappedAtThresholdAndBudget() {
+    assertEquals(1, BatchCodec.memoryKib(0, 100));
+    assertEquals(5, BatchCodec.memoryKib(4096, 100));
+    assertEquals(100, BatchCodec.memoryKib(1L << 40, 100));
+    assertEquals((int) (MAPPED_IO_THRESHOLD >> 10) + 1,
+                 BatchCodec.memoryKib(1L << 40, Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void testConstructor_noThreads_throws() {
+    assertThrows(IllegalArgumentException.class,
+                 () -> new BatchCodec(HuffmanFile::encodeText, 0));
+  }
+
+  @Test
+  public void testSummary_getRatio() {
+    assertEquals(0.25, new Summary(1, 0, 400, 100, 0).getRatio());
+    assertEquals(1, new Summary(0, 0, 0, 0, 0).getRatio());
+    assertTrue(new Summary(2, 1, 400, 100, 1_500_000_000).toString()
+                   .contains("2 files, 1 failed"));
+  }
+}
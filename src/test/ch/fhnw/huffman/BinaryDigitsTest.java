@@ -0,0 +1,45 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryDigitsTest {
+
+  @Test
+  public void testPack_partialLastByte_paddedWithZeros() {
+    byte[] packed = new byte[3];
+
+    BinaryDigits.pack("11110000" + "00000001" + "101", packed);
+
+    assertArrayEquals(new byte[]{(byte) 0xF0, 0x01, (byte) 0xA0}, packed);
+  }
+
+  @Test
+  public void testPack_moreDigitsThanRoom_extraDigitsIgnored() {
+    byte[] packed = new byte[1];
+
+    BinaryDigits.pack("0000001111", packed);
+
+    assertArrayEquals(new byte[]{0x03}, packed);
+  }
+
+  @Test
+  public void testExpand_bitLength_digitsOfFirstBits() {
+    String digits = "01".repeat(100) + "110";
+    byte[] packed = new byte[26];
+    BinaryDigits.pack(digits, packed);
+
+    String res = BinaryDigits.expand(packed, digits.length());
+
+    assertEquals(digits, res);
+  }
+
+  @Test
+  public void testExpand_tooManyBits_throwsException() {
+    assertThrows(IllegalArgumentException.class,
+                 () -> BinaryDigits.expand(new byte[2], 17));
+  }
+}
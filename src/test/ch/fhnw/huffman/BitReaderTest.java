@@ -0,0 +1,110 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitReaderTest {
+  @Test
+  public void testPeek_notConsumed_sameBits() throws IOException {
+    BitReader in = new BitReader(new byte[] {(byte) 0b1011_0000}, 8);
+
+    assertEquals(0b101, in.peek(3));
+    assertEquals(0b1011, in.peek(4));
+    assertEquals(0, in.position());
+  }
+
+  @Test
+  public void testRead_acrossBuffers_bitsInOrder() throws IOException {
+    BitReader in = new BitReader(
+        List.of(ByteBuffer.wrap(new byte[] {0x12, 0x34}),
+                ByteBuffer.wrap(new byte[] {0x56})).iterator(), 24);
+
+    assertEquals(0x1, in.read(4));
+    assertEquals(0x2345, in.read(16));
+    assertEquals(0x6, in.read(4));
+    assertFalse(in.hasMore());
+  }
+
+  @Test
+  public void testRead_56Bits_allBits() throws IOException {
+    byte[] bytes = {1, 2, 3, 4, 5, 6, 7, 8};
+    BitReader in = new BitReader(bytes, 64);
+
+    assertEquals(0x0102_0304_0506_07L, in.read(56));
+    assertEquals(0x08, in.read(8));
+  }
+
+  @Test
+  public void testPeek_pastInput_readsZeros() throws IOException {
+    BitReader in = new BitReader(new byte[] {(byte) 0xFF}, 8);
+
+    assertEquals(0b1111_1111_00L, in.peek(10));
+  }
+
+  @Test
+  public void testConsume_pastBitLength_throwsException() throws IOException {
+    BitReader in = new BitReader(new byte[] {(byte) 0xFF}, 3);
+    in.peek(4);
+
+    assertThrows(IllegalArgumentException.class, () -> in.consume(4));
+  }
+
+  @Test
+  public void testHasMore_channelWithFiller_endsAtFiller() throws IOException {
+    byte[] bytes = {(byte) 0xAB, (byte) 0b1110_0000};
+    BitReader in = new BitReader(
+        Channels.newChannel(new ByteArrayInputStream(bytes)));
+
+    assertEquals(0xAB, in.read(8));
+    assertEquals(0b11, in.read(2));
+    assertFalse(in.hasMore());
+  }
+
+  @Test
+  public void testHasMore_channelWithoutFiller_throwsException()
+      throws IOException {
+    BitReader in = new BitReader(
+        Channels.newChannel(new ByteArrayInputStream(new byte[2])));
+    in.read(8);
+
+    assertThrows(IllegalArgumentException.class, in::hasMore);
+  }
+
+  @Test
+  public void testAlignToByte_stream_restOfByteSkipped() throws IOException {
+    BitReader in = new BitReader(new ByteArrayInputStream(
+        new byte[] {(byte) 0b1011_1111, 0x42}));
+
+    assertEquals(0b10, in.read(2));
+    in.alignToByte();
+
+    assertEquals(0x42, in.read(8));
+    assertFalse(in.hasMore());
+  }
+
+  @Test
+  public void testHasMore_stream_onlyReadsWhenNeeded() throws IOException {
+    InputStream stream = new ByteArrayInputStream(new byte[] {1, 2}) {
+      @Override public synchronized int read(byte[] b, int off, int len) {
+        // Hands out one byte per call, like a pipe written byte by byte.
+        return super.read(b, off, Math.min(len, 1));
+      }
+    };
+    BitReader in = new BitReader(stream);
+
+    assertTrue(in.hasMore());
+    assertEquals(1, in.read(8));
+    assertEquals(1, stream.available());
+  }
+}
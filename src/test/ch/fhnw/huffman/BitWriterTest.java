@@ -0,0 +1,101 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BitWriterTest {
+  @Test
+  public void testWrite_codesAcrossBytes_packedMsbFirst() throws IOException {
+    byte[] res = new byte[2];
+    BitWriter out = new BitWriter(res);
+
+    out.write(0b101, 3);
+    out.write(0b0000111, 7);
+    out.write(0b110011, 6);
+
+    assertArrayEquals(new byte[] {(byte) 0b1010_0001, (byte) 0b1111_0011},
+                      res);
+    assertEquals(16, out.position());
+  }
+
+  @Test
+  public void testWrite_bitsAboveLength_ignored() throws IOException {
+    byte[] res = new byte[1];
+    BitWriter out = new BitWriter(res);
+
+    out.write(-1L << 4 | 0b0101, 4);
+    out.padToByte();
+
+    assertArrayEquals(new byte[] {0b0101_0000}, res);
+  }
+
+  @Test
+  public void testWrite_64BitCode_allBitsWritten() throws IOException {
+    byte[] res = new byte[9];
+    BitWriter out = new BitWriter(res);
+
+    out.write(1, 1);
+    out.write(0x8000_0000_0000_0001L, 64);
+    out.padToByte();
+
+    assertArrayEquals(
+        new byte[] {(byte) 0xC0, 0, 0, 0, 0, 0, 0, 0, (byte) 0x80}, res);
+  }
+
+  @Test
+  public void testFinish_bitsWritten_fillerAppended() throws IOException {
+    ByteBuffer res = ByteBuffer.allocate(2);
+    BitWriter out = new BitWriter(res);
+
+    out.write(0b11, 2);
+    out.finish();
+
+    assertEquals(1, res.position());
+    assertEquals((byte) 0b1110_0000, res.get(0));
+  }
+
+  @Test
+  public void testFinish_fullByte_fillerInOwnByte() throws IOException {
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+    BitWriter out = new BitWriter(res);
+
+    out.write(0xAB, 8);
+    out.finish();
+
+    assertArrayEquals(new byte[] {(byte) 0xAB, (byte) 0x80},
+                      res.toByteArray());
+  }
+
+  @Test
+  public void testFlush_channel_completeBytesOnly() throws IOException {
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+    BitWriter out = new BitWriter(Channels.newChannel(res));
+
+    out.write(0xFFF, 12);
+    out.flush();
+
+    assertArrayEquals(new byte[] {(byte) 0xFF}, res.toByteArray());
+  }
+
+  @Test
+  public void testWrite_moreThanBuffer_handedToStream() throws IOException {
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+    BitWriter out = new BitWriter(res);
+
+    for (int i = 0; i < 3 * HuffmanEncoding.STREAM_BUFFER_SIZE; i++) {
+      out.write(i & 0xFF, 8);
+    }
+    out.flush();
+
+    byte[] bytes = res.toByteArray();
+    assertEquals(3 * HuffmanEncoding.STREAM_BUFFER_SIZE, bytes.length);
+    assertEquals((byte) 0xFF, bytes[bytes.length - 1]);
+  }
+}
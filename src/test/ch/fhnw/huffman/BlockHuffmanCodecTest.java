@@ -0,0 +1,216 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static ch.fhnw.huffman.BlockHuffmanCodec.decodeBlock;
+import static ch.fhnw.huffman.BlockHuffmanCodec.encodeBlock;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BlockHuffmanCodecTest {
+
+  @Test
+  public void testEncodeBlock_singleValue_fillBlock() {
+    ByteBuffer res = encodeBlock(ByteBuffer.wrap(new byte[] {7, 7, 7, 7}));
+
+    assertEquals(2, res.remaining());
+    assertArrayEquals(new byte[] {7, 7, 7, 7},
+                      decodeBlock(res, 4).array());
+  }
+
+  @Test
+  public void testEncodeBlock_roundTrip() {
+    byte[] plainBytes = "abracadabra, simsalabim".getBytes();
+
+    ByteBuffer res = decodeBlock(encodeBlock(ByteBuffer.wrap(plainBytes)),
+                                 plainBytes.length);
+
+    assertArrayEquals(plainBytes, res.array());
+  }
+
+  @Test
+  public void testRoundTrip_manyBlocks() throws IOException {
+    byte[] plainBytes = new byte[100_003];
+    for (int i = 0; i < plainBytes.length; i++) {
+      plainBytes[i] = (byte) (i < 30_000 ? 0 : i % 13 * i % 7);
+    }
+
+    assertArrayEquals(plainBytes, roundTrip(plainBytes, 4096));
+  }
+
+  @Test
+  public void testRoundTrip_emptyInput() throws IOException {
+    assertArrayEquals(new byte[0], roundTrip(new byte[0], 4096));
+  }
+
+  @Test
+  public void testDecode_notAContainer_throwsIAE() throws IOException {
+    Path in = Files.createTempFile("blocks", ".dat");
+    Path out = Files.createTempFile("blocks", ".out");
+    try {
+      Files.write(in, new byte[32]);
+      BlockHuffmanCodec codec =
+          new BlockHuffmanCodec(4096, ForkJoinPool.commonPool());
+
+      try (FileChannel input = FileChannel.open(in);
+           FileChannel output =
+               FileChannel.open(out, StandardOpenOption.WRITE)) {
+        IllegalArgumentException iae =
+            assertThrows(IllegalArgumentException.class,
+                         () -> codec.decode(input, output));
+        assertEquals("Not a block container.", iae.getMessage());
+      }
+    } finally {
+      Files.delete(in);
+      Files.delete(out);
+    }
+  }
+
+  @Test
+  public void testEncodeBlock_interleaved_roundTrip() {
+    byte[] plainBytes = skewedBytes(10_003);
+
+    ByteBuffer res = encodeBlock(ByteBuffer.wrap(plainBytes), true);
+
+    assertEquals(2, res.get(0));
+    assertArrayEquals(plainBytes, decodeBlock(res, plainBytes.length).array());
+  }
+
+  @Test
+  public void testEncodeBlock_interleavedShortBlock_singleStream() {
+    byte[] plainBytes =
+        skewedBytes(BlockHuffmanCodec.MIN_INTERLEAVED_LENGTH - 1);
+
+    ByteBuffer res = encodeBlock(ByteBuffer.wrap(plainBytes), true);
+
+    assertEquals(0, res.get(0));
+    assertArrayEquals(plainBytes, decodeBlock(res, plainBytes.length).array());
+  }
+
+  @Test
+  public void testDecodeBlock_corruptJumpTable_throwsIAE() {
+    byte[] header = EncodingHeader.pack(CodeTable.canonical(new byte[]{1, 1}));
+    ByteBuffer block = ByteBuffer.allocate(1 + header.length + 16)
+                                 .put((byte) 2).put(header).putInt(1)
+                                 .putInt(1).putInt(100).putInt(0).flip();
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> decodeBlock(block, 8));
+    assertEquals("Corrupt jump table.", iae.getMessage());
+  }
+
+  @Test
+  public void testRoundTrip_interleavedBlocks() throws IOException {
+    byte[] plainBytes = skewedBytes(100_003);
+
+    assertArrayEquals(plainBytes, roundTrip(plainBytes, 8192, true));
+  }
+
+
+  @Test
+  public void testEncodeBlock_randomBytes_storedBlock() {
+    byte[] plainBytes = new byte[10_000];
+    new Random(3).nextBytes(plainBytes);
+
+    ByteBuffer res = encodeBlock(ByteBuffer.wrap(plainBytes));
+
+    assertEquals(3, res.get(0));
+    assertEquals(plainBytes.length + 1, res.remaining());
+    assertArrayEquals(plainBytes, decodeBlock(res, plainBytes.length).array());
+  }
+
+  @Test
+  public void testEncodeBlock_runs_runLengthBlock() {
+    byte[] plainBytes = RunLengthTest.runs(100_000);
+
+    ByteBuffer res = encodeBlock(ByteBuffer.wrap(plainBytes));
+
+    assertEquals(4, res.get(0));
+    assertEquals(RunLength.encodedSize(ByteBuffer.wrap(plainBytes)) + 1,
+                 res.remaining());
+    assertArrayEquals(plainBytes, decodeBlock(res, plainBytes.length).array());
+  }
+
+  @Test
+  public void testDecodeBlock_storedBlockTooShort_throwsIAE() {
+    ByteBuffer block = ByteBuffer.wrap(new byte[] {3, 1, 2});
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> decodeBlock(block, 4));
+    assertEquals("Stored block holds 2 instead of 4 bytes.", iae.getMessage());
+  }
+
+  // --- HELPER METHODS ---
+
+  private static byte[] skewedBytes(int length) {
+    byte[] bytes = new byte[length];
+    Random random = new Random(length);
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) (random.nextGaussian() * 20);
+    }
+    return bytes;
+  }
+
+  /**
+   * Encodes bytes into a block container and decodes them again, going
+   * through temporary files.
+   *
+   * @param plainBytes Bytes to encode.
+   * @param blockSize  Number of plain bytes per block.
+   * @return The decoded bytes.
+   */
+  private static byte[] roundTrip(byte[] plainBytes, int blockSize)
+      throws IOException {
+    return roundTrip(plainBytes, blockSize, false);
+  }
+
+  /**
+   * Encodes bytes into a block container, optionally with interleaved
+   * blocks, and decodes them again, going through temporary files.
+   *
+   * @param plainBytes  Bytes to encode.
+   * @param blockSize   Number of plain bytes per block.
+   * @param interleaved Whether to encode blocks as interleaved streams.
+   * @return The decoded bytes.
+   */
+  private static byte[] roundTrip(byte[] plainBytes, int blockSize,
+                                  boolean interleaved) throws IOException {
+    Path plain = Files.createTempFile("blocks", ".in");
+    Path container = Files.createTempFile("blocks", ".dat");
+    Path decoded = Files.createTempFile("blocks", ".out");
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Files.write(plain, plainBytes);
+      BlockHuffmanCodec codec =
+          new BlockHuffmanCodec(blockSize, pool, interleaved);
+      try (FileChannel input = FileChannel.open(plain);
+           FileChannel output =
+               FileChannel.open(container, StandardOpenOption.WRITE)) {
+        codec.encode(input, output);
+      }
+      try (FileChannel input = FileChannel.open(container);
+           FileChannel output =
+               FileChannel.open(decoded, StandardOpenOption.WRITE)) {
+        codec.decode(input, output);
+      }
+      return Files.readAllBytes(decoded);
+    } finally {
+      pool.shutdown();
+      Files.delete(plain);
+      Files.delete(container);
+      Files.delete(decoded);
+    }
+  }
+}
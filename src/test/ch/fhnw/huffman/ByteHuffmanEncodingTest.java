@@ -0,0 +1,99 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.HuffmanEncoding.OccurrenceItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Map;
+
+import static ch.fhnw.huffman.ByteHuffmanEncoding.ALPHABET_SIZE;
+import static ch.fhnw.huffman.ByteHuffmanEncoding.buildOccurrenceTable;
+import static ch.fhnw.huffman.ByteHuffmanEncoding.countOccurrences;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ByteHuffmanEncodingTest {
+
+  @Test
+  public void testCountOccurrences_unsignedIndex() {
+    int[] occurrences = new int[ALPHABET_SIZE];
+    ByteBuffer input = ByteBuffer.wrap(new byte[] {0, -1, -1, 127, -128});
+
+    countOccurrences(input, occurrences);
+
+    assertEquals(1, occurrences[0]);
+    assertEquals(2, occurrences[255]);
+    assertEquals(1, occurrences[127]);
+    assertEquals(1, occurrences[128]);
+    assertEquals(0, input.position());
+  }
+
+  @Test
+  public void testBuildOccurrenceTable_leavesOutMissingBytes() {
+    int[] occurrences = new int[ALPHABET_SIZE];
+    occurrences[3] = 5;
+    occurrences[200] = 1;
+
+    List<OccurrenceItem> res = buildOccurrenceTable(occurrences);
+
+    assertEquals(2, res.size());
+    assertEquals(3, res.get(0).node.c);
+    assertEquals(5, res.get(0).count);
+    assertEquals(200, res.get(1).node.c);
+    assertEquals(1, res.get(1).count);
+  }
+
+  @Test
+  public void testRoundTrip_allByteValues() {
+    byte[] plainBytes = new byte[3 * ALPHABET_SIZE];
+    for (int i = 0; i < plainBytes.length; i++) {
+      plainBytes[i] = (byte) (i * i);
+    }
+    ByteHuffmanEncoding encoded =
+        ByteHuffmanEncoding.fromPlainBytes(plainBytes);
+
+    ByteHuffmanEncoding res = ByteHuffmanEncoding.fromEncoding(
+        encoded.getStringifiedEncoding(), encoded.getEncodedBytes());
+
+    assertArrayEquals(plainBytes, res.getPlainBytes());
+  }
+
+  @Test
+  public void testRoundTrip_malformedUtf8() {
+    byte[] plainBytes = {(byte) 0xC3, 'a', (byte) 0xFF, (byte) 0xC3, 0};
+    ByteHuffmanEncoding encoded =
+        ByteHuffmanEncoding.fromPlainBytes(plainBytes);
+
+    ByteHuffmanEncoding res = ByteHuffmanEncoding.fromEncoding(
+        encoded.getStringifiedEncoding(), encoded.getEncodedBytes());
+
+    assertArrayEquals(plainBytes, res.getPlainBytes());
+  }
+
+  @Test
+  public void testRoundTrip_channels() throws IOException {
+    byte[] plainBytes = new byte[200_000];
+    for (int i = 0; i < plainBytes.length; i++) {
+      plainBytes[i] = (byte) (i % 7 == 0 ? i : i % 3);
+    }
+    Map<Integer, String> encoding = ByteHuffmanEncoding.computeEncoding(
+        Channels.newChannel(new ByteArrayInputStream(plainBytes)));
+    ByteArrayOutputStream encodedBytes = new ByteArrayOutputStream();
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+
+    new HuffmanEncoder(encoding).encode(
+        Channels.newChannel(new ByteArrayInputStream(plainBytes)),
+        Channels.newChannel(encodedBytes));
+    new HuffmanDecoder(encoding).decode(
+        Channels.newChannel(
+            new ByteArrayInputStream(encodedBytes.toByteArray())),
+        Channels.newChannel(res));
+
+    assertArrayEquals(plainBytes, res.toByteArray());
+  }
+}
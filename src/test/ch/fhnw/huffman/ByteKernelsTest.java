@@ -0,0 +1,121 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ByteKernelsTest {
+  private final ByteKernels scalar = new ByteKernels();
+
+  @Test
+  public void testCount_arrayRange_countsRangeOnly() {
+    byte[] bytes = {1, 2, 2, (byte) 255, 2, 1, 7, 7, 7, 9};
+    int[] counts = new int[256];
+    counts[9] = 5;
+
+    scalar.count(ByteBuffer.wrap(bytes), 1, 9, counts);
+
+    assertEquals(1, counts[1]);
+    assertEquals(3, counts[2]);
+    assertEquals(1, counts[255]);
+    assertEquals(3, counts[7]);
+    assertEquals(5, counts[9]);
+  }
+
+  @Test
+  public void testCount_directAndSlicedBuffers_sameCounts() {
+    byte[] bytes = randomBytes(1001);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+    ByteBuffer sliced = ByteBuffer.wrap(bytes, 3, 998).slice();
+    int[] expected = new int[256];
+    for (int i = 3; i < 1001; i++) {
+      expected[bytes[i] & 0xFF]++;
+    }
+
+    int[] res = new int[256];
+    scalar.count(direct, 3, 1001, res);
+    int[] slicedRes = new int[256];
+    scalar.count(sliced, 0, 998, slicedRes);
+
+    assertArrayEquals(expected, res);
+    assertArrayEquals(expected, slicedRes);
+  }
+
+  @Test
+  public void testPack_digits_mostSignificantBitFirst() {
+    byte[] digits = "x1000000011111110".getBytes();
+    byte[] packed = new byte[3];
+
+    scalar.pack(digits, 1, packed, 1, 2);
+
+    assertArrayEquals(new byte[]{0, (byte) 0x80, (byte) 0xFE}, packed);
+  }
+
+  @Test
+  public void testExpand_bytes_digits() {
+    byte[] packed = {(byte) 0xA5, 0x01};
+    byte[] digits = new byte[16];
+
+    scalar.expand(packed, 0, digits, 0, 2);
+
+    assertEquals("1010010100000001", new String(digits));
+  }
+
+  @Test
+  public void testGet_loadedKernels_matchScalar() {
+    ByteKernels kernels = ByteKernels.get();
+    for (int n : new int[]{0, 1, 7, 8, 9, 63, 64, 65, 200}) {
+      byte[] packed = randomBytes(n);
+      byte[] digits = new byte[8 * n + 5];
+      byte[] expectedDigits = new byte[8 * n + 5];
+      kernels.expand(packed, 0, digits, 5, n);
+      scalar.expand(packed, 0, expectedDigits, 5, n);
+      byte[] repacked = new byte[n];
+      kernels.pack(digits, 5, repacked, 0, n);
+
+      assertArrayEquals(expectedDigits, digits);
+      assertArrayEquals(packed, repacked);
+    }
+  }
+
+  @Test
+  public void testGet_vectorKernels_matchScalarAtRandomOffsets() {
+    assumeTrue(Boolean.getBoolean(ByteKernels.VECTOR_PROPERTY),
+               "Vector kernels not enabled.");
+    ByteKernels kernels = ByteKernels.get();
+    assertTrue(kernels.isVectorized());
+    Random random = new Random(21);
+    for (int run = 0; run < 500; run++) {
+      int n = random.nextInt(300);
+      int from = random.nextInt(70);
+      int offset = random.nextInt(70);
+      byte[] packed = randomBytes(from + n);
+      byte[] digits = new byte[offset + 8 * n + random.nextInt(70)];
+      byte[] expectedDigits = digits.clone();
+      kernels.expand(packed, from, digits, offset, n);
+      scalar.expand(packed, from, expectedDigits, offset, n);
+      byte[] repacked = new byte[offset + n];
+      byte[] expectedPacked = new byte[offset + n];
+      kernels.pack(digits, offset, repacked, offset, n);
+      scalar.pack(digits, offset, expectedPacked, offset, n);
+
+      assertArrayEquals(expectedDigits, digits);
+      assertArrayEquals(expectedPacked, repacked);
+      assertArrayEquals(Arrays.copyOfRange(packed, from, from + n),
+                        Arrays.copyOfRange(repacked, offset, offset + n));
+    }
+  }
+
+  private static byte[] randomBytes(int n) {
+    byte[] bytes = new byte[n];
+    new Random(n).nextBytes(bytes);
+    return bytes;
+  }
+}
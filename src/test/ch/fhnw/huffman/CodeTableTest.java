@@ -0,0 +1,79 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CodeTableTest {
+
+  @Test
+  public void testCanonical_lengths_codesInLengthAndSymbolOrder() {
+    byte[] lengths = {2, -1, 1, 3, 3};
+
+    CodeTable res = CodeTable.canonical(lengths);
+
+    assertEquals(0b0, res.code(2));
+    assertEquals(0b10, res.code(0));
+    assertEquals(0b110, res.code(3));
+    assertEquals(0b111, res.code(4));
+    assertEquals(4, res.size());
+    assertEquals(3, res.getMaxLength());
+    assertFalse(res.hasCode(1));
+    assertEquals(-1, res.length(1));
+    assertEquals(-1, res.length(5));
+  }
+
+  @Test
+  public void testCanonical_tooManyShortCodes_throwsException() {
+    byte[] lengths = {1, 1, 1};
+
+    assertThrows(IllegalArgumentException.class,
+                 () -> CodeTable.canonical(lengths));
+  }
+
+  @Test
+  public void testAsMap_table_equalsEncoding() {
+    CodeTable table = CodeTable.canonical(new byte[]{2, -1, 1, 2});
+
+    Map<Integer, String> res = table.asMap();
+
+    assertEquals(Map.of(0, "10", 2, "0", 3, "11"), res);
+    assertEquals(Map.of(0, "10", 2, "0", 3, "11").hashCode(),
+                 res.hashCode());
+    assertTrue(res.containsKey(3));
+    assertFalse(res.containsKey(1));
+  }
+
+  @Test
+  public void testOf_nonCanonicalEncoding_sameCodes() {
+    Map<Integer, String> encoding = Map.of(7, "1", 97, "01", 1000, "00");
+
+    CodeTable res = CodeTable.of(encoding);
+
+    assertEquals(encoding, res.asMap());
+    assertEquals(1001, res.getSymbolLimit());
+  }
+
+  @Test
+  public void testOf_mapView_sameTable() {
+    CodeTable table = CodeTable.canonical(new byte[]{1, 1});
+
+    CodeTable res = CodeTable.of(table.asMap());
+
+    assertSame(table, res);
+  }
+
+  @Test
+  public void testOf_tooLongCode_throwsException() {
+    Map<Integer, String> encoding = Map.of(0, "0".repeat(64), 1, "1");
+
+    assertThrows(IllegalArgumentException.class,
+                 () -> CodeTable.of(encoding));
+  }
+}
@@ -0,0 +1,57 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CodecStatsTest {
+  @Test
+  public void testOnOperation_severalOperations_totals() {
+    CodecStats stats = new CodecStats();
+    Metrics.addListener(stats);
+    try {
+      HuffmanEncoding encoding = HuffmanEncoding.fromPlainText("banana");
+      HuffmanEncoding.fromEncoding(encoding.getStringifiedEncoding(),
+                                   encoding.getEncodedText());
+    } finally {
+      Metrics.removeListener(stats);
+    }
+
+    assertEquals(1, stats.getEncodeOperations());
+    assertEquals(1, stats.getDecodeOperations());
+    assertThat(stats.getBytesIn(), greaterThan(6L));
+    assertEquals(2, stats.getMaxCodeLength());
+    assertThat(stats.getStageMillis().get("encode"), greaterThan(0.0));
+    assertThat(stats.getLastOperation(), containsString("decode"));
+
+    stats.reset();
+
+    assertEquals(0, stats.getEncodeOperations());
+    assertEquals(0, stats.getBytesIn());
+    assertEquals("", stats.getLastOperation());
+  }
+
+  @Test
+  public void testRegister_platformServer_attributesVisible()
+      throws JMException {
+    CodecStats stats = CodecStats.register();
+    stats.reset();
+
+    HuffmanEncoding.fromPlainText("registered");
+
+    assertSame(stats, CodecStats.register());
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(CodecStats.OBJECT_NAME);
+    assertThat((Long) server.getAttribute(name, "EncodeOperations"),
+               greaterThan(0L));
+  }
+}
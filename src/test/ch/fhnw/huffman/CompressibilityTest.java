@@ -0,0 +1,88 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressibilityTest {
+
+  @Test
+  public void testSample_randomBytes_incompressible() {
+    byte[] bytes = new byte[1 << 20];
+    new Random(1).nextBytes(bytes);
+
+    Compressibility res = Compressibility.sample(ByteBuffer.wrap(bytes));
+
+    assertTrue(res.isIncompressible());
+    assertFalse(res.favorsRunLength());
+  }
+
+  @Test
+  public void testSample_runs_favorsRunLength() {
+    byte[] bytes = RunLengthTest.runs(1 << 20);
+
+    Compressibility res = Compressibility.sample(ByteBuffer.wrap(bytes));
+
+    assertTrue(res.favorsRunLength());
+    assertThat(res.getAverageRunLength(), greaterThan(100.0));
+  }
+
+  @Test
+  public void testSample_text_huffman() {
+    byte[] bytes = "The quick brown fox jumps over the lazy dog. "
+        .repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+    Compressibility res = Compressibility.sample(ByteBuffer.wrap(bytes));
+
+    assertFalse(res.isIncompressible());
+    assertFalse(res.favorsRunLength());
+  }
+
+  @Test
+  public void testSample_singleValue_noEntropy() {
+    Compressibility res = Compressibility.sample(ByteBuffer.allocate(100));
+
+    assertEquals(0, res.getBitsPerByte());
+    assertEquals(100, res.getAverageRunLength());
+  }
+
+  @Test
+  public void testSample_file_sameAsBuffer() throws IOException {
+    byte[] bytes = new byte[100_000];
+    Random random = new Random(2);
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (random.nextGaussian() * 10);
+    }
+    Path path = Files.createTempFile("sample", ".bin");
+    try {
+      Files.write(path, bytes);
+
+      Compressibility res;
+      try (FileChannel channel = FileChannel.open(path)) {
+        res = Compressibility.sample(channel);
+        assertEquals(0, channel.position());
+      }
+
+      Compressibility expected = Compressibility.sample(ByteBuffer.wrap(bytes));
+      assertThat(res.getBitsPerByte(),
+                 closeTo(expected.getBitsPerByte(), 1e-9));
+      assertThat(res.getAverageRunLength(),
+                 closeTo(expected.getAverageRunLength(), 1e-9));
+    } finally {
+      Files.delete(path);
+    }
+  }
+}
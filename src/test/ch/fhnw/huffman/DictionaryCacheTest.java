@@ -0,0 +1,95 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DictionaryCacheTest {
+  private Path dir;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("dictionaries");
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(dir);
+  }
+
+  @Test
+  public void testPut_savedUnderId() throws IOException {
+    Dictionary dictionary = Dictionary.train(Histogram.ofText("abc"));
+
+    Path res = new DictionaryCache(dir, 2).put(dictionary);
+
+    assertEquals(dir.resolve(Dictionary.fileName(dictionary.getId())), res);
+    assertTrue(Files.exists(res));
+  }
+
+  @Test
+  public void testGet_loadedOnce() throws IOException {
+    Dictionary dictionary = Dictionary.train(Histogram.ofText("abc"));
+    new DictionaryCache(dir, 2).put(dictionary);
+    DictionaryCache cache = new DictionaryCache(dir, 2);
+
+    Dictionary first = cache.get(dictionary.getId());
+    Dictionary second = cache.get(dictionary.getId());
+
+    assertNotSame(dictionary, first);
+    assertSame(first, second);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testGet_overCapacity_leastRecentlyUsedDropped()
+      throws IOException {
+    DictionaryCache cache = new DictionaryCache(dir, 2);
+    Dictionary a = Dictionary.train(Histogram.ofText("a"));
+    Dictionary b = Dictionary.train(Histogram.ofText("b"));
+    Dictionary c = Dictionary.train(Histogram.ofText("c"));
+    cache.put(a);
+    cache.put(b);
+
+    cache.get(a.getId());
+    cache.put(c);
+
+    assertEquals(2, cache.size());
+    assertSame(a, cache.get(a.getId()));
+    assertSame(c, cache.get(c.getId()));
+    assertNotSame(b, cache.get(b.getId()));
+  }
+
+  @Test
+  public void testGet_unknownId_throwsIOException() {
+    DictionaryCache cache = new DictionaryCache(dir, 2);
+
+    assertThrows(NoSuchFileException.class, () -> cache.get(42));
+  }
+
+  @Test
+  public void testGet_fileOfOtherDictionary_throwsIAE() throws IOException {
+    Dictionary dictionary = Dictionary.train(Histogram.ofText("abc"));
+    dictionary.save(dir.resolve(Dictionary.fileName(42)));
+    DictionaryCache cache = new DictionaryCache(dir, 2);
+
+    assertThrows(IllegalArgumentException.class, () -> cache.get(42));
+  }
+}
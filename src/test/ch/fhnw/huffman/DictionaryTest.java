@@ -0,0 +1,128 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DictionaryTest {
+  private static final String SAMPLE =
+      "Hello World! Hello again, World. Hello, hello, hello!";
+
+  @Test
+  public void testTrain_text_coversSampleAndLatin1() {
+    Dictionary res = Dictionary.train(Histogram.ofText(SAMPLE + "\u20ac"));
+
+    assertEquals(HuffmanFile.TEXT, res.getAlphabet());
+    assertEquals(257, res.getEncoding().size());
+    assertTrue(res.getEncoding().containsKey(0x20AC));
+  }
+
+  @Test
+  public void testTrain_bytes_coversAllBytes() {
+    Dictionary res = Dictionary.train(
+        Histogram.ofBytes(ByteBuffer.wrap(new byte[] {1, 1, 2})));
+
+    assertEquals(HuffmanFile.BYTES, res.getAlphabet());
+    assertEquals(256, res.getEncoding().size());
+  }
+
+  @Test
+  public void testTrain_frequentSymbols_shorterCodes() {
+    Dictionary res = Dictionary.train(Histogram.ofText(SAMPLE));
+
+    assertThat(res.getEncoding().get((int) 'l').length(),
+               lessThan(res.getEncoding().get((int) 'x').length()));
+  }
+
+  @Test
+  public void testEncode_decode_sameText() {
+    Dictionary dictionary = Dictionary.train(Histogram.ofText(SAMPLE));
+
+    byte[] encoded = dictionary.encode("Hello World!");
+
+    assertEquals("Hello World!", dictionary.decode(encoded));
+    assertThat(encoded.length, lessThan("Hello World!".length()));
+  }
+
+  @Test
+  public void testEncode_symbolNotCovered_throwsIAE() {
+    Dictionary dictionary = Dictionary.train(Histogram.ofText(SAMPLE));
+
+    assertThrows(IllegalArgumentException.class,
+                 () -> dictionary.encode("\u20ac"));
+  }
+
+  @Test
+  public void testSave_load_sameDictionary() throws IOException {
+    Dictionary dictionary = Dictionary.train(Histogram.ofText(SAMPLE));
+    Path file = Files.createTempFile("dictionary", Dictionary.FILE_SUFFIX);
+    try {
+      dictionary.save(file);
+
+      Dictionary res = Dictionary.load(file);
+
+      assertEquals(dictionary.getId(), res.getId());
+      assertEquals(dictionary.getEncoding(), res.getEncoding());
+      assertEquals("Hello World!",
+                   res.decode(dictionary.encode("Hello World!")));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testLoad_wrongId_throwsIAE() throws IOException {
+    Dictionary dictionary = Dictionary.train(Histogram.ofText(SAMPLE));
+    Path file = Files.createTempFile("dictionary", Dictionary.FILE_SUFFIX);
+    try {
+      dictionary.save(file);
+      byte[] bytes = Files.readAllBytes(file);
+      bytes[6] ^= 1;
+      Files.write(file, bytes);
+
+      IllegalArgumentException iae = assertThrows(
+          IllegalArgumentException.class, () -> Dictionary.load(file));
+      assertTrue(iae.getMessage().endsWith("doesn't match its content."));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testGetId_differentSamples_differentIds() {
+    assertNotEquals(Dictionary.train(Histogram.ofText(SAMPLE)).getId(),
+                    Dictionary.train(Histogram.ofText("abc")).getId());
+    assertEquals(Dictionary.train(Histogram.ofText(SAMPLE)).getId(),
+                 Dictionary.train(Histogram.ofText(SAMPLE)).getId());
+  }
+
+  @Test
+  public void testFileName() {
+    assertEquals("0000abcd.hufd", Dictionary.fileName(0xABCD));
+    assertEquals("ffffffff.hufd", Dictionary.fileName(-1));
+  }
+
+  @Test
+  public void testEncode_bytesDictionary_encodedBytes() {
+    Dictionary dictionary = Dictionary.train(
+        Histogram.ofBytes(ByteBuffer.wrap(new byte[] {7, 7, 7, 8})));
+
+    byte[] res = dictionary.getEncoder().encode(
+        ByteBuffer.wrap(new byte[] {7, 8, (byte) 0x80}));
+
+    assertArrayEquals(new byte[] {7, 8, (byte) 0x80},
+                      dictionary.getDecoder().decodeBytes(
+                          res, HuffmanEncoding.payloadBitLength(res)));
+  }
+}
@@ -0,0 +1,99 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ch.fhnw.huffman.HuffmanEncoding.canonicalEncoding;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EncodingHeaderTest {
+
+  @Test
+  public void testPack_consecutiveSymbols_singleRun() {
+    Map<Integer, String> encoding = canonicalEncoding(
+        Map.of((int) 'a', 1, (int) 'b', 2, (int) 'c', 2));
+
+    byte[] res = EncodingHeader.pack(encoding);
+
+    // 3 symbols, run of 3 at 'a', 2 bits per length, lengths 01 10 10
+    assertArrayEquals(new byte[]{3, 'a', 3, 2, 0b01101000}, res);
+  }
+
+  @Test
+  public void testUnpack_packedEncoding_sameEncoding() {
+    Map<Integer, Integer> codeLengths = new HashMap<>();
+    for (int c = 'a'; c <= 'z'; c++) {
+      codeLengths.put(c, c < 'q' ? 6 : 5);
+    }
+    codeLengths.put((int) ' ', 5);
+    codeLengths.put(0xFFFF, 6);
+    codeLengths.put(1000, 6);
+    Map<Integer, String> encoding = canonicalEncoding(codeLengths);
+    ByteBuffer header = ByteBuffer.wrap(EncodingHeader.pack(encoding));
+
+    Map<Integer, String> res = EncodingHeader.unpack(header);
+
+    assertEquals(encoding, res);
+    assertEquals(0, header.remaining());
+  }
+
+  @Test
+  public void testUnpack_trailingBytes_positionBehindHeader() {
+    Map<Integer, String> encoding = Map.of(7, "");
+    byte[] header = EncodingHeader.pack(encoding);
+    ByteBuffer buffer =
+        ByteBuffer.allocate(header.length + 1).put(header).put((byte) 42)
+                  .flip();
+
+    Map<Integer, String> res = EncodingHeader.unpack(buffer);
+
+    assertEquals(encoding, res);
+    assertEquals(42, buffer.get());
+  }
+
+  @Test
+  public void testPack_nonCanonicalEncoding_throwsIAE() {
+    Map<Integer, String> encoding = Map.of((int) 'a', "1", (int) 'b', "0");
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> EncodingHeader.pack(encoding));
+    assertEquals("Encoding isn't canonical.", iae.getMessage());
+  }
+
+  @Test
+  public void testUnpack_truncatedHeader_throwsIAE() {
+    ByteBuffer header = ByteBuffer.wrap(new byte[]{3, 'a', 3, 2});
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> EncodingHeader.unpack(header));
+    assertEquals("Encoding header truncated.", iae.getMessage());
+  }
+
+  @Test
+  public void testUnpack_runBeyondAlphabet_throwsIAE() {
+    ByteBuffer header =
+        ByteBuffer.wrap(new byte[]{2, (byte) 0xFF, (byte) 0xFF, 3, 2, 1, 0});
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> EncodingHeader.unpack(header));
+    assertEquals("Corrupt encoding header.", iae.getMessage());
+  }
+
+  @Test
+  public void testUnpack_emptyEncoding_emptyTable() {
+    byte[] header = EncodingHeader.pack(Map.of());
+
+    CodeTable res = EncodingHeader.unpackTable(ByteBuffer.wrap(header));
+
+    assertEquals(0, res.size());
+    assertEquals(Map.of(), EncodingHeader.unpack(ByteBuffer.wrap(header)));
+  }
+}
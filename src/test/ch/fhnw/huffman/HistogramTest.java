@@ -0,0 +1,69 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import static ch.fhnw.huffman.Histogram.MIN_CHUNK_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HistogramTest {
+
+  @Test
+  public void testOfText_splitIntoChunks() {
+    String text = "abcab".repeat(MIN_CHUNK_SIZE) + '\uffff';
+
+    Histogram res = Histogram.ofText(text);
+
+    assertEquals(2L * MIN_CHUNK_SIZE, res.count('a'));
+    assertEquals(2L * MIN_CHUNK_SIZE, res.count('b'));
+    assertEquals(MIN_CHUNK_SIZE, res.count('c'));
+    assertEquals(1, res.count('\uffff'));
+    assertEquals(4, res.getDistinctSymbols());
+  }
+
+  @Test
+  public void testOfText_reader_matchesInMemory() throws IOException {
+    String text = "The quick brown fox jumps over the lazy dog.";
+
+    Histogram res = Histogram.ofText(new StringReader(text));
+
+    Histogram expected = Histogram.ofText(text);
+    for (int c = 0; c < Histogram.CHAR_ALPHABET_SIZE; c++) {
+      assertEquals(expected.count(c), res.count(c));
+    }
+    assertEquals(8, res.count(' '));
+  }
+
+  @Test
+  public void testOfBytes_countsFromPosition() {
+    ByteBuffer bytes = ByteBuffer.wrap(new byte[] {1, 1, -1, -1, -1, 1});
+    bytes.position(2);
+
+    Histogram res = Histogram.ofBytes(bytes);
+
+    assertEquals(ByteHuffmanEncoding.ALPHABET_SIZE, res.getAlphabetSize());
+    assertEquals(1, res.count(1));
+    assertEquals(3, res.count(255));
+    assertEquals(2, bytes.position());
+  }
+
+  @Test
+  public void testMerge_addsCounts() {
+    Histogram res = Histogram.ofText("aab").merge(Histogram.ofText("bc"));
+
+    assertEquals(2, res.count('a'));
+    assertEquals(2, res.count('b'));
+    assertEquals(1, res.count('c'));
+  }
+
+  @Test
+  public void testMerge_differentAlphabets_throwsIAE() {
+    assertThrows(IllegalArgumentException.class,
+                 () -> Histogram.ofText("a").merge(
+                     Histogram.ofBytes(ByteBuffer.wrap(new byte[] {1}))));
+  }
+}
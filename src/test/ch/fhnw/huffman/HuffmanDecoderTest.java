@@ -0,0 +1,196 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HuffmanDecoderTest {
+
+  @Test
+  public void testDecode_packedBytes() {
+    Map<Integer, String> encoding =
+        Map.of((int) 'a', "1", (int) 'b', "01", (int) 'c', "001", (int) 'd',
+               "0001");
+    // 10100100 01000100 1011
+    byte[] encodedText = {(byte) 0b1010_0100, 0b0100_0100, (byte) 0b1011_0000};
+
+    String res = new HuffmanDecoder(encoding).decode(encodedText, 20);
+
+    assertEquals("abcddcba", res);
+  }
+
+  @Test
+  public void testDecode_codesLongerThanRootTable() {
+    // Degenerate tree: symbol i is encoded as i zeros followed by a one.
+    Map<Integer, String> encoding = new HashMap<>();
+    int symbols = HuffmanDecoder.ROOT_BITS + 2 * HuffmanDecoder.SUB_BITS + 3;
+    for (int i = 0; i < symbols; i++) {
+      encoding.put('a' + i, "0".repeat(i) + "1");
+    }
+    encoding.put('a' + symbols, "0".repeat(symbols));
+    StringBuilder plainText = new StringBuilder();
+    StringBuilder bitSeq = new StringBuilder();
+    for (int i = symbols; i >= 0; i--) {
+      plainText.append((char) ('a' + i));
+      bitSeq.append(encoding.get('a' + i));
+    }
+
+    String res = HuffmanEncoding.decodeText(encoding, bitSeq.toString());
+
+    assertEquals(plainText.toString(), res);
+  }
+
+  @Test
+  public void testDecode_channel_largerThanBuffer() throws IOException {
+    String plainText = "The quick brown fox jumps over the lazy dog.\n"
+                           .repeat(5000);
+    HuffmanEncoding encoding = HuffmanEncoding.fromPlainText(plainText);
+    StringWriter res = new StringWriter();
+
+    new HuffmanDecoder(encoding.getEncoding()).decode(
+        Channels.newChannel(
+            new ByteArrayInputStream(encoding.getEncodedBytes())), res);
+
+    assertEquals(plainText, res.toString());
+  }
+
+  @Test
+  public void testDecodeMapped() throws IOException {
+    String plainText = "The quick brown fox jumps over the lazy dog.\n"
+                           .repeat(5000);
+    HuffmanEncoding encoding = HuffmanEncoding.fromPlainText(plainText);
+    Path file = Files.createTempFile("encoded", ".dat");
+    try {
+      Files.write(file, encoding.getEncodedBytes());
+      StringWriter res = new StringWriter();
+
+      try (FileChannel channel = FileChannel.open(file)) {
+        new HuffmanDecoder(encoding.getEncoding()).decodeMapped(channel, res);
+      }
+
+      assertEquals(plainText, res.toString());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testDecode_channel_noFiller_throwsIAE() {
+    Map<Integer, String> encoding = Map.of((int) 'a', "0", (int) 'b', "1");
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> new HuffmanDecoder(encoding).decode(
+                         Channels.newChannel(
+                             new ByteArrayInputStream(new byte[] {1, 0})),
+                         new StringWriter()));
+    assertEquals("Encoded text has no filler.", iae.getMessage());
+  }
+
+  @Test
+  public void testDecode_emptyInput() {
+    Map<Integer, String> encoding = Map.of((int) 'a', "0", (int) 'b', "1");
+
+    String res = new HuffmanDecoder(encoding).decode(new byte[] {0}, 0);
+
+    assertEquals("", res);
+  }
+
+  @Test
+  public void testDecode_endsWithinCode_throwsIAE() {
+    Map<Integer, String> encoding =
+        Map.of((int) 'a', "1", (int) 'b', "01", (int) 'c', "00");
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> new HuffmanDecoder(encoding).decode(
+                         new byte[] {(byte) 0b1000_0000}, 2));
+    assertEquals("Encoded text ends within a code.", iae.getMessage());
+  }
+
+  @Test
+  public void testDecode_invalidCode_throwsIAE() {
+    Map<Integer, String> encoding = Map.of((int) 'a', "1", (int) 'b', "01");
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> new HuffmanDecoder(encoding).decode(
+                         new byte[] {(byte) 0b1000_0000}, 3));
+    assertEquals("Invalid code at bit 1.", iae.getMessage());
+  }
+
+  @Test
+  public void testDecode_multiSymbol_sameAsSingleSymbol() throws IOException {
+    StringBuilder text = new StringBuilder();
+    Random random = new Random(7);
+    for (int i = 0; i < 100_000; i++) {
+      // Mostly short codes, with a tail of codes longer than the key.
+      text.append((char) ('a' + Math.min(Math.abs(random.nextGaussian()) * 3,
+                                         25)));
+      if (i % 1000 == 0) {
+        text.append((char) (0x100 + i / 1000));
+      }
+    }
+    String plainText = text.toString();
+    HuffmanEncoding encoding = HuffmanEncoding.fromPlainText(plainText);
+    byte[] encodedText = encoding.getEncodedBytes();
+    long bitLength = HuffmanEncoding.payloadBitLength(encodedText);
+    CodeTable table = CodeTable.of(encoding.getEncoding());
+    HuffmanDecoder decoder = new HuffmanDecoder(table, true);
+    StringWriter res = new StringWriter();
+
+    decoder.decode(Channels.newChannel(new ByteArrayInputStream(encodedText)),
+                   res);
+
+    assertEquals(plainText, decoder.decode(encodedText, bitLength));
+    assertEquals(plainText, res.toString());
+  }
+
+  @Test
+  public void testDecode_multiSymbol_endsWithinCode_throwsIAE() {
+    CodeTable table = CodeTable.of(
+        Map.of((int) 'a', "1", (int) 'b', "01", (int) 'c', "00"));
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> new HuffmanDecoder(table, true).decode(
+                         new byte[] {(byte) 0b1000_0000}, 2));
+    assertEquals("Encoded text ends within a code.", iae.getMessage());
+  }
+
+  @Test
+  public void testDecode_multiSymbol_keyPastEnd_lastSymbolsDecoded() {
+    CodeTable table = CodeTable.of(
+        Map.of((int) 'a', "1", (int) 'b', "01", (int) 'c', "00"));
+
+    String res = new HuffmanDecoder(table, true).decode(
+        new byte[] {(byte) 0b1011_0000}, 4);
+
+    assertEquals("aba", res);
+  }
+
+  @Test
+  public void testPrefersMultiSymbol_shortCodes_true() {
+    assertTrue(HuffmanDecoder.prefersMultiSymbol(1 << 20, 4L << 20));
+  }
+
+  @Test
+  public void testPrefersMultiSymbol_longCodesOrShortInput_false() {
+    assertFalse(HuffmanDecoder.prefersMultiSymbol(1 << 20, 7L << 20));
+    assertFalse(HuffmanDecoder.prefersMultiSymbol(100, 200));
+  }
+}
@@ -0,0 +1,75 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HuffmanEncoderTest {
+  private static final Map<Integer, String> ENCODING =
+      Map.of((int) 'a', "1", (int) 'b', "01", (int) 'c', "001", (int) 'd',
+             "0001");
+
+  @Test
+  public void testEncode_packsBitsAndFiller() {
+    byte[] res = new HuffmanEncoder(ENCODING).encode("abcddcba");
+
+    // 10100100 01000100 1011 + 1000
+    assertArrayEquals(
+        new byte[] {(byte) 0b1010_0100, 0b0100_0100, (byte) 0b1011_1000},
+        res);
+  }
+
+  @Test
+  public void testEncode_fullByteFiller() {
+    byte[] res = new HuffmanEncoder(ENCODING).encode("dd");
+
+    assertArrayEquals(new byte[] {0b0001_0001, (byte) 0b1000_0000}, res);
+  }
+
+  @Test
+  public void testEncode_stream_matchesInMemory() throws IOException {
+    String input = "abcddcba".repeat(20000);
+    ByteArrayOutputStream res = new ByteArrayOutputStream();
+
+    new HuffmanEncoder(ENCODING).encode(new StringReader(input), res);
+
+    assertArrayEquals(new HuffmanEncoder(ENCODING).encode(input),
+                      res.toByteArray());
+  }
+
+  @Test
+  public void testEncode_emptyInput() {
+    byte[] res = new HuffmanEncoder(ENCODING).encode("");
+
+    assertArrayEquals(new byte[] {(byte) 0b1000_0000}, res);
+  }
+
+  @Test
+  public void testEncode_longCodes_matchesEncodeInput() {
+    Map<Integer, String> encoding =
+        Map.of((int) 'a', "1", (int) 'b', "0".repeat(60),
+               (int) 'c', "0".repeat(59) + "1");
+    String input = "abcacbba";
+
+    byte[] res = new HuffmanEncoder(encoding).encode(input);
+
+    assertArrayEquals(
+        HuffmanEncoding.packBits(HuffmanEncoding.encodeInput(encoding, input)),
+        res);
+  }
+
+  @Test
+  public void testEncode_unknownCharacter_throwsIAE() {
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> new HuffmanEncoder(ENCODING).encode("abe"));
+    assertEquals("No code for symbol 101.", iae.getMessage());
+  }
+}
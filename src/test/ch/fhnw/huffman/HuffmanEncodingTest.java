@@ -11,13 +11,18 @@ import java.util.Map;
 import static ch.fhnw.huffman.HuffmanEncoding.HuffmanNode.createBranch;
 import static ch.fhnw.huffman.HuffmanEncoding.HuffmanNode.createLeaf;
 import static ch.fhnw.huffman.HuffmanEncoding.buildOccurrenceTable;
+import static ch.fhnw.huffman.HuffmanEncoding.canonicalEncoding;
 import static ch.fhnw.huffman.HuffmanEncoding.computeEncodingTable;
 import static ch.fhnw.huffman.HuffmanEncoding.computeEncodingTree;
+import static ch.fhnw.huffman.HuffmanEncoding.computeLimitedCodeLengths;
 import static ch.fhnw.huffman.HuffmanEncoding.decodeText;
 import static ch.fhnw.huffman.HuffmanEncoding.encodeInput;
+import static ch.fhnw.huffman.HuffmanEncoding.packBits;
+import static ch.fhnw.huffman.HuffmanEncoding.payloadBitLength;
 import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
@@ -49,6 +54,46 @@ public class HuffmanEncodingTest {
     assertEquals("abcddcba", res);
   }
 
+  @Test
+  public void testFromEncoding_packedEncodedText() {
+    byte[] encodedText = {(byte) 0b1010_0100, 0b0100_0100, (byte) 0b1011_1000};
+
+    HuffmanEncoding res =
+        HuffmanEncoding.fromEncoding("97:1-98:01-99:001-100:0001",
+                                     encodedText);
+
+    assertEquals("abcddcba", res.getPlainText());
+    assertEquals("10100100010001001011", res.getEncodedText());
+  }
+
+  @Test
+  public void testPackBits_appendsFiller() {
+    byte[] res = packBits("1010010001");
+
+    assertArrayEquals(new byte[] {(byte) 0b1010_0100, 0b0110_0000}, res);
+  }
+
+  @Test
+  public void testPackBits_fullByteFiller() {
+    byte[] res = packBits("11111111");
+
+    assertArrayEquals(new byte[] {(byte) 0b1111_1111, (byte) 0b1000_0000},
+                      res);
+  }
+
+  @Test
+  public void testPayloadBitLength() {
+    assertEquals(0, payloadBitLength(new byte[] {(byte) 0b1000_0000}));
+    assertEquals(7, payloadBitLength(new byte[] {0b0000_0001}));
+    assertEquals(10, payloadBitLength(new byte[] {1, 0b0010_0000, 0}));
+  }
+
+  @Test
+  public void testPayloadBitLength_noFiller_throwsIAE() {
+    assertThrows(IllegalArgumentException.class,
+                 () -> payloadBitLength(new byte[] {0, 0}));
+  }
+
   @Test
   public void testEncodeInput() {
     Map<Integer, String> encoding =
@@ -130,6 +175,40 @@ public class HuffmanEncodingTest {
     assertEquals('c', res.right.c);
   }
 
+  @Test
+  public void testComputeEncodingTree_combinedItemTied_orderOfLowerPartDictates() {
+    List<OccurrenceItem> occurrences = new ArrayList<>(
+        List.of(
+            new OccurrenceItem(1, createLeaf((int) 'a')),
+            new OccurrenceItem(1, createLeaf((int) 'b')),
+            new OccurrenceItem(2, createLeaf((int) 'c')),
+            new OccurrenceItem(2, createLeaf((int) 'd'))));
+
+    HuffmanNode res = computeEncodingTree(occurrences);
+
+    assertEquals('a', res.right.left.left.c);
+    assertEquals('b', res.right.left.right.c);
+    assertEquals('c', res.right.right.c);
+    assertEquals('d', res.left.c);
+  }
+
+  @Test
+  public void testComputeEncodingTree_fullCharAlphabetEquallyLikely_balancedTree() {
+    List<OccurrenceItem> occurrences = new ArrayList<>();
+    for (int c = 0; c < Histogram.CHAR_ALPHABET_SIZE; c++) {
+      occurrences.add(new OccurrenceItem(1, createLeaf(c)));
+    }
+
+    Map<Integer, String> res =
+        computeEncodingTable(computeEncodingTree(occurrences));
+
+    assertEquals(Histogram.CHAR_ALPHABET_SIZE, res.size());
+    res.values().forEach(code -> assertEquals(16, code.length()));
+    assertEquals("0000000000000000", res.get(0));
+    assertEquals("1111111111111111",
+                 res.get(Histogram.CHAR_ALPHABET_SIZE - 1));
+  }
+
   @Test
   public void testComputeEncodingTable_oneSidedTree() {
     HuffmanNode a = createLeaf((int) 'a');
@@ -140,9 +219,9 @@ public class HuffmanEncodingTest {
     Map<Integer, String> res = computeEncodingTable(root);
 
     assertEquals(3, res.size());
-    assertEquals("00", res.get((int) 'a'));
-    assertEquals("01", res.get((int) 'b'));
-    assertEquals("1", res.get((int) 'c'));
+    assertEquals("10", res.get((int) 'a'));
+    assertEquals("11", res.get((int) 'b'));
+    assertEquals("0", res.get((int) 'c'));
   }
 
   @Test
@@ -162,6 +241,136 @@ public class HuffmanEncodingTest {
     assertEquals("11", res.get((int) 'd'));
   }
 
+  @Test
+  public void testCanonicalEncoding_mixedLengths_orderedByLengthAndSymbol() {
+    Map<Integer, String> res = canonicalEncoding(
+        Map.of((int) 'a', 3, (int) 'b', 2, (int) 'c', 3, (int) 'd', 1));
+
+    assertEquals(4, res.size());
+    assertEquals("0", res.get((int) 'd'));
+    assertEquals("10", res.get((int) 'b'));
+    assertEquals("110", res.get((int) 'a'));
+    assertEquals("111", res.get((int) 'c'));
+  }
+
+  @Test
+  public void testCanonicalEncoding_singleSymbol_emptyCode() {
+    Map<Integer, String> res = canonicalEncoding(Map.of((int) 'a', 0));
+
+    assertEquals(Map.of((int) 'a', ""), res);
+  }
+
+  @Test
+  public void testCanonicalEncoding_oversubscribedLengths_throwsIAE() {
+    Map<Integer, Integer> codeLengths =
+        Map.of((int) 'a', 1, (int) 'b', 1, (int) 'c', 1);
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> canonicalEncoding(codeLengths));
+    assertEquals("Code lengths don't form a prefix code.", iae.getMessage());
+  }
+
+  @Test
+  public void testEncodingHeader_roundTrip_sameEncoding() {
+    HuffmanEncoding enc = HuffmanEncoding.fromPlainText("Hello World!");
+
+    HuffmanEncoding res = HuffmanEncoding.fromEncoding(
+        enc.getEncodingHeader(), enc.getEncodedBytes());
+
+    assertEquals(enc.getEncoding(), res.getEncoding());
+    assertEquals("Hello World!", res.getPlainText());
+  }
+
+  @Test
+  public void testComputeLimitedCodeLengths_treeTooDeep_optimalWithinLimit() {
+    List<OccurrenceItem> occurrences = List.of(
+        new OccurrenceItem(8, createLeaf((int) 'e')),
+        new OccurrenceItem(1, createLeaf((int) 'a')),
+        new OccurrenceItem(4, createLeaf((int) 'd')),
+        new OccurrenceItem(1, createLeaf((int) 'b')),
+        new OccurrenceItem(2, createLeaf((int) 'c')));
+
+    Map<Integer, Integer> res = computeLimitedCodeLengths(occurrences, 3);
+
+    assertEquals(Map.of((int) 'a', 3, (int) 'b', 3, (int) 'c', 3, (int) 'd',
+                        3, (int) 'e', 1), res);
+  }
+
+  @Test
+  public void testComputeLimitedCodeLengths_tooManySymbols_throwsIAE() {
+    List<OccurrenceItem> occurrences = List.of(
+        new OccurrenceItem(1, createLeaf((int) 'a')),
+        new OccurrenceItem(1, createLeaf((int) 'b')),
+        new OccurrenceItem(1, createLeaf((int) 'c')));
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> computeLimitedCodeLengths(occurrences, 1));
+    assertEquals("Can't fit 3 symbols into codes of 1 bits.",
+                 iae.getMessage());
+  }
+
+  @Test
+  public void testComputeEncoding_fibonacciCounts_codesLimited() {
+    List<OccurrenceItem> occurrences = new ArrayList<>();
+    int previous = 1;
+    int count = 1;
+    for (int c = 0; c < 30; c++) {
+      occurrences.add(new OccurrenceItem(count, createLeaf(c)));
+      int next = previous + count;
+      previous = count;
+      count = next;
+    }
+
+    Map<Integer, String> res = HuffmanEncoding.computeEncoding(occurrences, 12);
+
+    assertEquals(30, res.size());
+    double kraftSum = 0;
+    for (String code : res.values()) {
+      assertThat(code.length() <= 12, is(true));
+      kraftSum += Math.pow(2, -code.length());
+    }
+    assertEquals(1.0, kraftSum);
+    assertEquals(29, computeEncodingTable(computeEncodingTree(occurrences))
+        .get(0).length());
+  }
+
+  @Test
+  public void testComputeEncoding_treeWithinLimit_treeLengths() {
+    Histogram histogram = Histogram.ofText("The quick brown fox jumps over "
+                                               + "the lazy dog.");
+
+    Map<Integer, String> res = HuffmanEncoding.computeEncoding(histogram, 6);
+
+    assertEquals(computeEncodingTable(
+        computeEncodingTree(histogram.toOccurrenceTable())), res);
+  }
+
+  @Test
+  public void testFromPlainText_singleSymbol_oneBitCodes() {
+    HuffmanEncoding res = HuffmanEncoding.fromPlainText("aaaa");
+
+    assertEquals(Map.of((int) 'a', "0"), res.getEncoding());
+    assertEquals("0000", res.getEncodedText());
+    assertEquals("aaaa",
+                 HuffmanEncoding.fromEncoding(res.getStringifiedEncoding(),
+                                              res.getEncodedText())
+                                .getPlainText());
+  }
+
+  @Test
+  public void testFromPlainText_emptyText_roundTrip() {
+    HuffmanEncoding res = HuffmanEncoding.fromPlainText("");
+
+    assertEquals(Map.of(), res.getEncoding());
+    assertEquals("", res.getEncodedText());
+    assertEquals("",
+                 HuffmanEncoding.fromEncoding(res.getEncodingHeader(),
+                                              res.getEncodedBytes())
+                                .getPlainText());
+  }
+
   // --- HELPER METHODS ---
 
   /**
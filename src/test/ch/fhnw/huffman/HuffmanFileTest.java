@@ -0,0 +1,436 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HuffmanFileTest {
+  private static final String TEXT =
+      "The quick brown fox jumps over the lazy dog.";
+
+  @Test
+  public void testEncodeText_decodeText_sameText() throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), TEXT);
+
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+      HuffmanFile.decodeText(dir.resolve("enc"), dir.resolve("out.txt"));
+
+      assertEquals(TEXT, Files.readString(dir.resolve("out.txt")));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeText_header() throws IOException {
+    String text = TEXT.repeat(10);
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), text);
+
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+
+      ByteBuffer res = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("enc")));
+      assertEquals(HuffmanFile.MAGIC, res.getInt());
+      assertEquals(HuffmanFile.VERSION, res.get());
+      assertEquals(HuffmanFile.TEXT, res.get());
+      assertEquals(text.length(), res.getLong());
+      long bitLength = res.getLong();
+      res.getInt();
+      HuffmanEncoding expected = HuffmanEncoding.fromPlainText(text);
+      assertEquals(expected.getEncoding(), EncodingHeader.unpack(res));
+      assertEquals(expected.getEncodedText().length(), bitLength);
+      byte[] payload = new byte[res.remaining()];
+      res.get(payload);
+      assertArrayEquals(expected.getEncodedBytes(), payload);
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeBytes_decodeBytes_sameBytes() throws IOException {
+    byte[] bytes = new byte[100_000];
+    Random random = new Random(42);
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (random.nextGaussian() * 20);
+    }
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.write(dir.resolve("in.bin"), bytes);
+
+      HuffmanFile.encodeBytes(dir.resolve("in.bin"), dir.resolve("enc"));
+      HuffmanFile.decodeBytes(dir.resolve("enc"), dir.resolve("out.bin"));
+
+      assertArrayEquals(bytes, Files.readAllBytes(dir.resolve("out.bin")));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeText_corruptPayload_throwsIAE() throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), TEXT);
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+      byte[] encoded = Files.readAllBytes(dir.resolve("enc"));
+      encoded[encoded.length - 2] ^= 0x10;
+      Files.write(dir.resolve("enc"), encoded);
+
+      IllegalArgumentException iae =
+          assertThrows(IllegalArgumentException.class,
+                       () -> HuffmanFile.decodeText(dir.resolve("enc"),
+                                                    dir.resolve("out.txt")));
+      assertEquals("Checksum mismatch.", iae.getMessage());
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeBytes_textFile_throwsIAE() throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), TEXT);
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+
+      IllegalArgumentException iae =
+          assertThrows(IllegalArgumentException.class,
+                       () -> HuffmanFile.decodeBytes(dir.resolve("enc"),
+                                                     dir.resolve("out")));
+      assertEquals("File holds encoded text.", iae.getMessage());
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeText_truncatedFile_throwsIAE() throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), TEXT);
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+      byte[] encoded = Files.readAllBytes(dir.resolve("enc"));
+      Files.write(dir.resolve("enc"),
+                  Arrays.copyOf(encoded, encoded.length - 1));
+
+      IllegalArgumentException iae =
+          assertThrows(IllegalArgumentException.class,
+                       () -> HuffmanFile.decodeText(dir.resolve("enc"),
+                                                    dir.resolve("out.txt")));
+      assertEquals("Payload length doesn't match header.", iae.getMessage());
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeText_dictionary_onlyIdStored() throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      DictionaryCache dictionaries = new DictionaryCache(dir, 4);
+      Dictionary dictionary = Dictionary.train(Histogram.ofText(TEXT));
+      dictionaries.put(dictionary);
+      String text = "Hello World! ".repeat(3);
+      Files.writeString(dir.resolve("in.txt"), text);
+
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"),
+                             dictionary);
+      HuffmanFile.decodeText(dir.resolve("enc"), dir.resolve("out.txt"),
+                             dictionaries);
+
+      ByteBuffer res = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("enc")));
+      res.position(5);
+      assertEquals(HuffmanFile.TEXT | HuffmanFile.DICTIONARY, res.get());
+      res.position(26);
+      assertEquals(dictionary.getId(), res.getInt());
+      assertEquals(dictionary.encode(text).length, res.remaining());
+      assertEquals(text, Files.readString(dir.resolve("out.txt")));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeBytes_dictionary_sameBytes() throws IOException {
+    byte[] bytes = {0, 1, 2, 3, (byte) 0xFF, 3, 3, 3};
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      DictionaryCache dictionaries = new DictionaryCache(dir, 4);
+      Dictionary dictionary =
+          Dictionary.train(Histogram.ofBytes(ByteBuffer.wrap(new byte[] {3})));
+      dictionaries.put(dictionary);
+      Files.write(dir.resolve("in.bin"), bytes);
+
+      HuffmanFile.encodeBytes(dir.resolve("in.bin"), dir.resolve("enc"),
+                              dictionary);
+      HuffmanFile.decodeBytes(dir.resolve("enc"), dir.resolve("out.bin"),
+                              dictionaries);
+
+      assertArrayEquals(bytes, Files.readAllBytes(dir.resolve("out.bin")));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeText_symbolNotInDictionary_throwsIAE()
+      throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Dictionary dictionary = Dictionary.train(Histogram.ofText(TEXT));
+      Files.writeString(dir.resolve("in.txt"), "\u20ac");
+
+      IllegalArgumentException iae =
+          assertThrows(IllegalArgumentException.class,
+                       () -> HuffmanFile.encodeText(dir.resolve("in.txt"),
+                                                    dir.resolve("enc"),
+                                                    dictionary));
+      assertEquals(String.format("Symbol 8364 isn't covered by dictionary %s.",
+                                 Dictionary.formatId(dictionary.getId())),
+                   iae.getMessage());
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeText_dictionaryWithoutCache_throwsIAE()
+      throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Dictionary dictionary = Dictionary.train(Histogram.ofText(TEXT));
+      Files.writeString(dir.resolve("in.txt"), TEXT);
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"),
+                             dictionary);
+
+      IllegalArgumentException iae =
+          assertThrows(IllegalArgumentException.class,
+                       () -> HuffmanFile.decodeText(dir.resolve("enc"),
+                                                    dir.resolve("out.txt")));
+      assertEquals(String.format("File refers to dictionary %s.",
+                                 Dictionary.formatId(dictionary.getId())),
+                   iae.getMessage());
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeBytes_largeInput_indexed() throws IOException {
+    byte[] bytes = gaussianBytes(3 * HuffmanFile.SYNC_INTERVAL);
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.write(dir.resolve("in.bin"), bytes);
+
+      HuffmanFile.encodeBytes(dir.resolve("in.bin"), dir.resolve("enc"));
+
+      ByteBuffer res = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("enc")));
+      assertEquals(HuffmanFile.BYTES | HuffmanFile.INDEXED, res.get(5));
+      long bitLength = res.getLong(14);
+      // Sync points at 1 and 2 times the interval, none at the very end.
+      res.position(res.limit() - 24);
+      assertEquals(HuffmanFile.SYNC_INTERVAL, res.getInt());
+      assertEquals(2, res.getInt());
+      long first = res.getLong();
+      assertTrue(first > 0 && first < res.getLong() &&
+                     res.getLong(res.limit() - 8) < bitLength);
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeBytesRange_severalRanges_sameSlices()
+      throws IOException {
+    int interval = HuffmanFile.SYNC_INTERVAL;
+    byte[] bytes = gaussianBytes(4 * interval + 123);
+    long[][] ranges = {{0, 10}, {interval - 7, 20}, {interval, 100},
+                       {2 * interval + 5, interval + 9},
+                       {bytes.length - 50, 50}, {bytes.length, 0},
+                       {0, bytes.length}};
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.write(dir.resolve("in.bin"), bytes);
+      HuffmanFile.encodeBytes(dir.resolve("in.bin"), dir.resolve("enc"));
+
+      for (long[] range : ranges) {
+        int from = (int) range[0];
+        int to = from + (int) range[1];
+
+        byte[] res = HuffmanFile.decodeBytesRange(dir.resolve("enc"), from,
+                                                  to - from);
+
+        assertArrayEquals(Arrays.copyOfRange(bytes, from, to), res,
+                          Arrays.toString(range));
+      }
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeTextRange_lastLine_sameLine() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; text.length() <= 5 * HuffmanFile.SYNC_INTERVAL; i++) {
+      text.append(i).append(' ').append(TEXT).append('\n');
+    }
+    String lastLine = TEXT + "\n";
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), text);
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+
+      String res = HuffmanFile.decodeTextRange(
+          dir.resolve("enc"), text.length() - lastLine.length(),
+          lastLine.length());
+
+      assertEquals(lastLine, res);
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeTextRange_smallInput_sameSubstring()
+      throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), TEXT);
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+
+      assertEquals("brown", HuffmanFile.decodeTextRange(dir.resolve("enc"),
+                                                        10, 5));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testDecodeTextRange_outOfRange_throwsIAE() throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), TEXT);
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+
+      IllegalArgumentException iae =
+          assertThrows(IllegalArgumentException.class,
+                       () -> HuffmanFile.decodeTextRange(dir.resolve("enc"),
+                                                         40, 5));
+      assertEquals("Range [40, 45) out of 44 symbols.", iae.getMessage());
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeBytes_randomBytes_stored() throws IOException {
+    byte[] bytes = new byte[100_000];
+    new Random(7).nextBytes(bytes);
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.write(dir.resolve("in.bin"), bytes);
+
+      HuffmanFile.encodeBytes(dir.resolve("in.bin"), dir.resolve("enc"));
+      HuffmanFile.decodeBytes(dir.resolve("enc"), dir.resolve("out.bin"));
+
+      ByteBuffer res = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("enc")));
+      assertEquals(HuffmanFile.BYTES | HuffmanFile.STORED, res.get(5));
+      assertEquals(26 + bytes.length, res.limit());
+      assertArrayEquals(bytes, Files.readAllBytes(dir.resolve("out.bin")));
+      assertArrayEquals(Arrays.copyOfRange(bytes, 500, 600),
+                        HuffmanFile.decodeBytesRange(dir.resolve("enc"), 500,
+                                                     100));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeText_shortText_storedWithRange() throws IOException {
+    String text = "h\u00e9llo";
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), text);
+
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+      HuffmanFile.decodeText(dir.resolve("enc"), dir.resolve("out.txt"));
+
+      ByteBuffer res = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("enc")));
+      assertEquals(HuffmanFile.TEXT | HuffmanFile.STORED, res.get(5));
+      assertEquals(26 + 6, res.limit());
+      assertEquals(text, Files.readString(dir.resolve("out.txt")));
+      assertEquals("llo",
+                   HuffmanFile.decodeTextRange(dir.resolve("enc"), 2, 3));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeText_emptyFile_sameText() throws IOException {
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.writeString(dir.resolve("in.txt"), "");
+
+      HuffmanFile.encodeText(dir.resolve("in.txt"), dir.resolve("enc"));
+      HuffmanFile.decodeText(dir.resolve("enc"), dir.resolve("out.txt"));
+
+      assertEquals(26, Files.size(dir.resolve("enc")));
+      assertEquals("", Files.readString(dir.resolve("out.txt")));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void testEncodeBytes_singleValue_sameBytes() throws IOException {
+    byte[] bytes = new byte[1000];
+    Arrays.fill(bytes, (byte) 9);
+    Path dir = Files.createTempDirectory("huffman");
+    try {
+      Files.write(dir.resolve("in.bin"), bytes);
+
+      HuffmanFile.encodeBytes(dir.resolve("in.bin"), dir.resolve("enc"));
+      HuffmanFile.decodeBytes(dir.resolve("enc"), dir.resolve("out.bin"));
+
+      assertEquals(HuffmanFile.BYTES,
+                   Files.readAllBytes(dir.resolve("enc"))[5]);
+      assertArrayEquals(bytes, Files.readAllBytes(dir.resolve("out.bin")));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  private static byte[] gaussianBytes(int length) {
+    byte[] bytes = new byte[length];
+    Random random = new Random(42);
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (random.nextGaussian() * 20);
+    }
+    return bytes;
+  }
+
+  private static void deleteAll(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(dir);
+  }
+}
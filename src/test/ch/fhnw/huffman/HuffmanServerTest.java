@@ -0,0 +1,117 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HuffmanServerTest {
+  private Path dir;
+  private HuffmanServer server;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("server");
+    server = HuffmanServer.start(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2,
+        new DictionaryCache(dir, 2));
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    server.close();
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(dir);
+  }
+
+  @Test
+  public void testEncode_severalRequests_roundTrip() throws IOException {
+    byte[] first = "abracadabra".repeat(500).getBytes(StandardCharsets.UTF_8);
+    byte[] second = new byte[0];
+
+    try (HuffmanClient client = new HuffmanClient(server.getAddress())) {
+      byte[] encoded = client.encode(first);
+
+      assertArrayEquals(first, client.decode(encoded));
+      assertArrayEquals(second, client.decode(client.encode(second)));
+      assertThat(encoded.length, lessThan(first.length / 2));
+    }
+  }
+
+  @Test
+  public void testDecode_corruptInput_errorKeepsConnection()
+      throws IOException {
+    byte[] corrupt = {0, 0, 0, 5, 7};
+    byte[] plainBytes = {1, 2, 3};
+
+    try (HuffmanClient client = new HuffmanClient(server.getAddress())) {
+      IOException e =
+          assertThrows(IOException.class, () -> client.decode(corrupt));
+      assertThat(e.getMessage(), containsString("block type"));
+      assertArrayEquals(plainBytes, client.decode(client.encode(plainBytes)));
+    }
+  }
+
+  @Test
+  public void testEncodeText_dictionary_roundTrip() throws IOException {
+    Dictionary dictionary =
+        Dictionary.train(Histogram.ofText("hello world, hallo welt"));
+    new DictionaryCache(dir, 1).put(dictionary);
+    String text = "hello welt";
+
+    try (HuffmanClient client = new HuffmanClient(server.getAddress())) {
+      byte[] encoded = client.encodeText(dictionary.getId(), text);
+
+      assertArrayEquals(dictionary.encode(text), encoded);
+      assertEquals(text, client.decodeText(dictionary.getId(), encoded));
+      assertThrows(IOException.class,
+                   () -> client.encodeText(dictionary.getId() + 1, text));
+    }
+  }
+
+  @Test
+  public void testStart_unixDomainSocket_roundTripAndDeleted()
+      throws IOException {
+    Path socket = dir.resolve("huffman.sock");
+    byte[] plainBytes = "unix".getBytes(StandardCharsets.UTF_8);
+
+    try (HuffmanServer unixServer = HuffmanServer.start(
+        UnixDomainSocketAddress.of(socket), 1, null);
+         HuffmanClient client = new HuffmanClient(unixServer.getAddress())) {
+      assertArrayEquals(plainBytes, client.decode(client.encode(plainBytes)));
+      assertThrows(IOException.class, () -> client.encodeText(0, "x"));
+    }
+
+    assertFalse(Files.exists(socket));
+  }
+
+  @Test
+  public void testParseAddress_forms() {
+    assertEquals(new InetSocketAddress(InetAddress.getLoopbackAddress(), 7),
+                 HuffmanServer.parseAddress("7"));
+    assertEquals(new InetSocketAddress("localhost", 8080),
+                 HuffmanServer.parseAddress("localhost:8080"));
+    assertEquals(UnixDomainSocketAddress.of("/tmp/huffman.sock"),
+                 HuffmanServer.parseAddress("/tmp/huffman.sock"));
+  }
+}
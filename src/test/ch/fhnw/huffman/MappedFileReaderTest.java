@@ -0,0 +1,59 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MappedFileReaderTest {
+  @Test
+  public void testRead_charactersCutOffByWindows() throws IOException {
+    String text =
+        "Gr\u00fcsse aus Z\u00fcrich \ud83d\ude00 \u2013 ".repeat(1000);
+    Path file = Files.createTempFile("mapped", ".txt");
+    try {
+      Files.writeString(file, text);
+      StringWriter res = new StringWriter();
+
+      try (Reader reader = new MappedFileReader(file, 7)) {
+        reader.transferTo(res);
+      }
+
+      assertEquals(text, res.toString());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testRead_emptyFile() throws IOException {
+    Path file = Files.createTempFile("mapped", ".txt");
+    try (Reader reader = new MappedFileReader(file)) {
+      assertEquals(-1, reader.read());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testRead_malformedInput_throws() throws IOException {
+    Path file = Files.createTempFile("mapped", ".txt");
+    try {
+      Files.write(file, new byte[] {'a', (byte) 0xC3});
+
+      try (Reader reader = new MappedFileReader(file)) {
+        assertThrows(MalformedInputException.class,
+                     () -> reader.transferTo(new StringWriter()));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
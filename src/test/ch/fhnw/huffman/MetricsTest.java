@@ -0,0 +1,128 @@
+package ch.fhnw.huffman;
+
+import ch.fhnw.huffman.CodecMetrics.Operation;
+import ch.fhnw.huffman.CodecMetrics.Stage;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTest {
+  private final List<CodecMetrics> operations = new CopyOnWriteArrayList<>();
+  private final MetricsListener listener = operations::add;
+
+  @BeforeEach
+  public void setUp() {
+    Metrics.addListener(listener);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    Metrics.removeListener(listener);
+  }
+
+  @Test
+  public void testRecord_encodeText_stagesAndSizes() {
+    String plainText = "abracadabra".repeat(100);
+
+    HuffmanEncoding.fromPlainText(plainText);
+
+    assertEquals(1, operations.size());
+    CodecMetrics metrics = operations.get(0);
+    assertEquals(Operation.ENCODE, metrics.getOperation());
+    assertEquals(plainText.length(), metrics.getBytesIn());
+    assertThat(metrics.getBytesOut(), lessThan(metrics.getBytesIn()));
+    assertEquals(5, metrics.getDistinctSymbols());
+    assertThat(metrics.getMaxCodeLength(), greaterThan(1));
+    for (Stage stage : new Stage[]{Stage.COUNT, Stage.TREE, Stage.TABLE,
+                                   Stage.ENCODE}) {
+      assertThat(stage.name(), metrics.getNanos(stage), greaterThan(0L));
+    }
+    assertEquals(0, metrics.getNanos(Stage.DECODE));
+    assertThat(metrics.getTotalNanos(),
+               greaterThanOrEqualTo(metrics.getNanos(Stage.ENCODE)));
+  }
+
+  @Test
+  public void testRecord_decodeBlock_lapsIntoOperation() {
+    byte[] plainBytes =
+        "mississippi".repeat(100).getBytes(StandardCharsets.UTF_8);
+    ByteBuffer block =
+        BlockHuffmanCodec.encodeBlock(ByteBuffer.wrap(plainBytes));
+    operations.clear();
+
+    try (Metrics.Recording recording = Metrics.record(Operation.DECODE)) {
+      recording.setSizes(block.remaining(), plainBytes.length);
+      BlockHuffmanCodec.decodeBlock(block, plainBytes.length);
+    }
+
+    assertEquals(1, operations.size());
+    CodecMetrics metrics = operations.get(0);
+    assertEquals(Operation.DECODE, metrics.getOperation());
+    assertThat(metrics.getNanos(Stage.DECODE), greaterThan(0L));
+    assertThat(metrics.getRatio(), greaterThan(1.0));
+    assertEquals(0, metrics.getNanos(Stage.COUNT));
+  }
+
+  @Test
+  public void testRecord_nestedOperations_measuredOnce() {
+    try (Metrics.Recording outer = Metrics.record(Operation.ENCODE)) {
+      HuffmanEncoding.fromPlainText("nested");
+      outer.setSizes(6, 3);
+    }
+
+    assertEquals(1, operations.size());
+    assertEquals(6, operations.get(0).getBytesIn());
+    assertEquals(0.5, operations.get(0).getRatio());
+  }
+
+  @Test
+  public void testRecord_listenerRemoved_notCalled() {
+    Metrics.removeListener(listener);
+
+    HuffmanEncoding.fromPlainText("unheard");
+
+    assertTrue(operations.isEmpty());
+  }
+
+  @Test
+  public void testRecord_flightRecorder_eventCommitted() throws IOException {
+    Metrics.removeListener(listener);
+    Path dump = Files.createTempFile("metrics", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        recording.enable(CodecEvent.NAME);
+        recording.start();
+        HuffmanEncoding.fromPlainText("flight recorder");
+        recording.stop();
+        recording.dump(dump);
+      }
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+      events.removeIf(e -> !e.getEventType().getName()
+                             .equals(CodecEvent.NAME));
+      assertEquals(1, events.size());
+      assertEquals("ENCODE", events.get(0).getString("operation"));
+      assertEquals(15, events.get(0).getLong("bytesIn"));
+    } finally {
+      Files.delete(dump);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RunLengthTest {
+
+  @Test
+  public void testEncode_shortRuns_valueAndLength() {
+    ByteBuffer plainBytes = ByteBuffer.wrap(new byte[] {5, 5, 5, 9});
+
+    assertArrayEquals(new byte[] {5, 2, 9, 0}, encode(plainBytes));
+    assertEquals(0, plainBytes.position());
+  }
+
+  @Test
+  public void testEncode_longRun_varintLength() {
+    byte[] plainBytes = new byte[300];
+    Arrays.fill(plainBytes, (byte) 1);
+
+    byte[] res = encode(ByteBuffer.wrap(plainBytes));
+
+    assertArrayEquals(new byte[] {1, (byte) 0xAB, 0x02}, res);
+  }
+
+  @Test
+  public void testEncodedSize_matchesEncoding() {
+    byte[] plainBytes = runs(100_000);
+
+    assertEquals(encode(ByteBuffer.wrap(plainBytes)).length,
+                 RunLength.encodedSize(ByteBuffer.wrap(plainBytes)));
+  }
+
+  @Test
+  public void testDecode_roundTrip() {
+    byte[] plainBytes = runs(100_000);
+
+    byte[] res = RunLength.decode(
+        ByteBuffer.wrap(encode(ByteBuffer.wrap(plainBytes))),
+        plainBytes.length);
+
+    assertArrayEquals(plainBytes, res);
+  }
+
+  @Test
+  public void testDecode_emptyInput_emptyOutput() {
+    assertArrayEquals(new byte[0],
+                      RunLength.decode(ByteBuffer.allocate(0), 0));
+  }
+
+  @Test
+  public void testDecode_runsTooLong_throwsIAE() {
+    ByteBuffer encodedBytes = ByteBuffer.wrap(new byte[] {5, 9});
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> RunLength.decode(encodedBytes, 4));
+    assertEquals("Runs exceed 4 bytes.", iae.getMessage());
+  }
+
+  @Test
+  public void testDecode_runsTooShort_throwsIAE() {
+    ByteBuffer encodedBytes = ByteBuffer.wrap(new byte[] {5, 2});
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> RunLength.decode(encodedBytes, 4));
+    assertEquals("Runs decoded to 3 instead of 4 bytes.", iae.getMessage());
+  }
+
+  @Test
+  public void testDecode_truncated_throwsIAE() {
+    ByteBuffer encodedBytes = ByteBuffer.wrap(new byte[] {5, (byte) 0x81});
+
+    IllegalArgumentException iae =
+        assertThrows(IllegalArgumentException.class,
+                     () -> RunLength.decode(encodedBytes, 200));
+    assertEquals("Run-length encoding truncated.", iae.getMessage());
+  }
+
+  // --- HELPER METHODS ---
+
+  private static byte[] encode(ByteBuffer plainBytes) {
+    ByteBuffer output =
+        ByteBuffer.allocate((int) RunLength.encodedSize(plainBytes));
+    RunLength.encode(plainBytes, output);
+    assertEquals(0, output.remaining());
+    return output.array();
+  }
+
+  /**
+   * Creates bytes made of runs of 1 to 400 equal bytes.
+   */
+  static byte[] runs(int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0, run = 1; i < length; i += run) {
+      run = 1 + i * 31 % 400;
+      Arrays.fill(bytes, i, Math.min(length, i + run), (byte) (i % 7));
+    }
+    return bytes;
+  }
+}
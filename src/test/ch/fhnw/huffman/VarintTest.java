@@ -0,0 +1,50 @@
+package ch.fhnw.huffman;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VarintTest {
+
+  @Test
+  public void testPut_300_lowGroupFirst() {
+    ByteBuffer buffer = ByteBuffer.allocate(2);
+
+    Varint.put(buffer, 300);
+
+    assertArrayEquals(new byte[] {(byte) 0xAC, 0x02}, buffer.array());
+  }
+
+  @Test
+  public void testGet_boundaryValues_sameValuesAndSizes() {
+    int[] values = {0, 1, 127, 128, 16_383, 16_384, 1 << 21, 1 << 28,
+                    Integer.MAX_VALUE};
+    ByteBuffer buffer = ByteBuffer.allocate(5 * values.length);
+    for (int value : values) {
+      int start = buffer.position();
+      Varint.put(buffer, value);
+      assertEquals(buffer.position() - start, Varint.size(value));
+    }
+    buffer.flip();
+
+    for (int value : values) {
+      assertEquals(value, Varint.get(buffer));
+    }
+    assertEquals(0, buffer.remaining());
+  }
+
+  @Test
+  public void testGet_beyondInt_minusOne() {
+    ByteBuffer tooLarge = ByteBuffer.wrap(
+        new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+    ByteBuffer tooLong = ByteBuffer.wrap(
+        new byte[] {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+                    (byte) 0x80, 0x00});
+
+    assertEquals(-1, Varint.get(tooLarge));
+    assertEquals(-1, Varint.get(tooLong));
+  }
+}
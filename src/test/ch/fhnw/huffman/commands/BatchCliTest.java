@@ -0,0 +1,217 @@
+package ch.fhnw.huffman.commands;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static ch.fhnw.huffman.commands.BatchCli.EXIT_FAILED;
+import static ch.fhnw.huffman.commands.BatchCli.EXIT_OK;
+import static ch.fhnw.huffman.commands.BatchCli.EXIT_USAGE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchCliTest {
+  private static final String TEXT =
+      "The quick brown fox jumps over the lazy dog.";
+
+  private Path dir;
+  private ByteArrayOutputStream err;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("batch");
+    err = new ByteArrayOutputStream();
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) paths.sorted(
+          Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testRun_singleFile_writtenNextToInput() throws IOException {
+    Files.writeString(dir.resolve("a.txt"), TEXT);
+
+    int encoded = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", dir.resolve("a.txt").toString());
+    Files.delete(dir.resolve("a.txt"));
+    int decoded = cli(new byte[0], new ByteArrayOutputStream())
+        .run("decode", dir.resolve("a.txt.huf").toString());
+
+    assertEquals(EXIT_OK, encoded);
+    assertEquals(EXIT_OK, decoded);
+    assertEquals(TEXT, Files.readString(dir.resolve("a.txt")));
+  }
+
+  @Test
+  public void testRun_directory_outputDirectoryKeepsLayout()
+      throws IOException {
+    Files.createDirectories(dir.resolve("in/sub"));
+    Files.writeString(dir.resolve("in/a.txt"), TEXT);
+    Files.writeString(dir.resolve("in/sub/b.txt"), TEXT.toUpperCase());
+
+    int encoded = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", "-o", dir.resolve("enc").toString(),
+             dir.resolve("in").toString());
+    int decoded = cli(new byte[0], new ByteArrayOutputStream())
+        .run("decode", "-o", dir.resolve("dec").toString(),
+             dir.resolve("enc").toString());
+
+    assertEquals(EXIT_OK, encoded);
+    assertEquals(EXIT_OK, decoded);
+    assertTrue(Files.exists(dir.resolve("enc/sub/b.txt.huf")));
+    assertEquals(TEXT, Files.readString(dir.resolve("dec/a.txt")));
+    assertEquals(TEXT.toUpperCase(),
+                 Files.readString(dir.resolve("dec/sub/b.txt")));
+  }
+
+  @Test
+  public void testRun_glob_onlyMatchingFiles() throws IOException {
+    Files.writeString(dir.resolve("a.txt"), TEXT);
+    Files.writeString(dir.resolve("b.md"), TEXT);
+
+    int res = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", dir.resolve("*.txt").toString());
+
+    assertEquals(EXIT_OK, res);
+    assertTrue(Files.exists(dir.resolve("a.txt.huf")));
+    assertTrue(Files.notExists(dir.resolve("b.md.huf")));
+  }
+
+  @Test
+  public void testRun_stdinToStdout_roundTrip() {
+    byte[] bytes = {0, 1, 1, 2, 2, 2, (byte) 0xFF};
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+
+    int encodeRes = cli(bytes, encoded).run("encode", "--binary", "-");
+    int decodeRes =
+        cli(encoded.toByteArray(), decoded).run("decode", "-b", "-");
+
+    assertEquals(EXIT_OK, encodeRes);
+    assertEquals(EXIT_OK, decodeRes);
+    assertArrayEquals(bytes, decoded.toByteArray());
+  }
+
+  @Test
+  public void testRun_adaptiveStdinToStdout_roundTrip() {
+    byte[] bytes = TEXT.repeat(20).getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+
+    int encodeRes = cli(bytes, encoded).run("encode", "--adaptive", "-");
+    int decodeRes = cli(encoded.toByteArray(), decoded).run("decode", "-a",
+                                                            "-");
+
+    assertEquals(EXIT_OK, encodeRes);
+    assertEquals(EXIT_OK, decodeRes);
+    assertArrayEquals(bytes, decoded.toByteArray());
+  }
+
+  @Test
+  public void testRun_adaptiveDirectory_roundTrip() throws IOException {
+    Files.createDirectories(dir.resolve("in"));
+    Files.writeString(dir.resolve("in/a.log"), TEXT.repeat(3));
+
+    int encoded = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", "-a", "-o", dir.resolve("enc").toString(),
+             dir.resolve("in").toString());
+    int decoded = cli(new byte[0], new ByteArrayOutputStream())
+        .run("decode", "-a", "-o", dir.resolve("dec").toString(),
+             dir.resolve("enc").toString());
+
+    assertEquals(EXIT_OK, encoded);
+    assertEquals(EXIT_OK, decoded);
+    assertEquals(TEXT.repeat(3), Files.readString(dir.resolve("dec/a.log")));
+  }
+
+  @Test
+  public void testRun_adaptiveAndBinary_usageError() {
+    int res = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", "-a", "-b", "-");
+
+    assertEquals(EXIT_USAGE, res);
+  }
+
+  @Test
+  public void testRun_missingFile_reportedAndOthersProcessed()
+      throws IOException {
+    Files.writeString(dir.resolve("a.txt"), TEXT);
+
+    int res = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", dir.resolve("missing.txt").toString(),
+             dir.resolve("a.txt").toString());
+
+    assertEquals(EXIT_FAILED, res);
+    assertTrue(Files.exists(dir.resolve("a.txt.huf")));
+    assertTrue(err.toString(StandardCharsets.UTF_8)
+                  .startsWith("Failed to process "));
+  }
+
+  @Test
+  public void testRun_threads_summaryPrinted() throws IOException {
+    for (int i = 0; i < 10; i++) {
+      Files.writeString(dir.resolve(i + ".txt"), TEXT.repeat(i + 1));
+    }
+
+    int res = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", "-j", "3", dir.toString());
+
+    assertEquals(EXIT_OK, res);
+    assertTrue(Files.exists(dir.resolve("9.txt.huf")));
+    assertTrue(err.toString(StandardCharsets.UTF_8)
+                  .startsWith("10 files, 0 failed"));
+  }
+
+  @Test
+  public void testRun_invalidThreads_usageError() {
+    int res = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", "-j", "none", dir.toString());
+
+    assertEquals(EXIT_USAGE, res);
+  }
+
+  @Test
+  public void testRun_unknownCommand_usageError() {
+    int res = cli(new byte[0], new ByteArrayOutputStream()).run("compress");
+
+    assertEquals(EXIT_USAGE, res);
+  }
+
+  @Test
+  public void testRun_noInput_usageError() {
+    int res = cli(new byte[0], new ByteArrayOutputStream()).run("encode");
+
+    assertEquals(EXIT_USAGE, res);
+  }
+
+  @Test
+  public void testRun_unknownOption_usageError() {
+    int res = cli(new byte[0], new ByteArrayOutputStream())
+        .run("encode", "--thread", "4", dir.toString());
+
+    assertEquals(EXIT_USAGE, res);
+    assertTrue(err.toString().startsWith("Unknown option --thread."));
+  }
+
+  private BatchCli cli(byte[] stdin, ByteArrayOutputStream stdout) {
+    return new BatchCli(new ByteArrayInputStream(stdin),
+                        new PrintStream(stdout), new PrintStream(err));
+  }
+}
@@ -2,7 +2,6 @@ package ch.fhnw.huffman.commands;
 
 import org.junit.jupiter.api.Test;
 
-import static ch.fhnw.huffman.commands.DecodeCommand.removeFiller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static ch.fhnw.huffman.commands.DecodeCommand.stringifyEncodedText;
 
@@ -33,34 +32,4 @@ public class DecodeCommandTest {
 
     assertEquals("01111111", res);
   }
-
-  @Test
-  public void testRemoveFiller_lastBit1() {
-    String in = "11000000";
-    String res = removeFiller(in);
-    assertEquals("1", res);
-  }
-
-  @Test
-  public void testRemoveFiller_lastBit0() {
-    String in = "01000000";
-    String res = removeFiller(in);
-    assertEquals("0", res);
-  }
-
-  @Test
-  public void testRemoveFiller_oneBitFiller() {
-    String in = "1111111";
-    String res = removeFiller(in);
-    assertEquals("111111", res);
-  }
-
-  @Test
-  public void testRemoveFiller_fullByteFiller() {
-    String in = "1111111110000000";
-
-    String res = removeFiller(in);
-
-    assertEquals("11111111", res);
-  }
 }
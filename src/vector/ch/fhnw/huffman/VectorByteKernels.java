@@ -0,0 +1,86 @@
+package ch.fhnw.huffman;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Packs and expands binary digits with the Vector API, a vector of digits
+ * at a time. The vectors are of the preferred size of the platform, for
+ * example 32 bytes with AVX2 and 64 bytes with AVX-512, but no larger than
+ * 64 bytes, as the mask of a vector must fit into a long. Counting stays
+ * with the scalar sub-histograms, as the Vector API has no scatter that adds
+ * up equal lanes.
+ *
+ * <p>Only the strings of binary digits of {@link BinaryDigits} go through
+ * these kernels. The codecs read and write packed bits with
+ * {@link BitReader} and {@link BitWriter} and don't use them.
+ *
+ * <p>This class is compiled from its own source root with
+ * {@code --add-modules jdk.incubator.vector}, together with or after
+ * src/main, and is only loaded by {@link ByteKernels#get()} when it is
+ * enabled and the module is added at runtime as well.
+ */
+class VectorByteKernels extends ByteKernels {
+  private static final VectorSpecies<Byte> SPECIES =
+      ByteVector.SPECIES_PREFERRED.length() <= Long.SIZE
+          ? ByteVector.SPECIES_PREFERRED : ByteVector.SPECIES_512;
+  /**
+   * Number of vectors whose masks fill a long.
+   */
+  private static final int VECTORS_PER_LONG = Long.SIZE / SPECIES.length();
+  private static final ByteVector ZEROS = ByteVector.broadcast(SPECIES, '0');
+  private static final ByteVector ONES = ByteVector.broadcast(SPECIES, '1');
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  @Override boolean isVectorized() {
+    return true;
+  }
+
+  /**
+   * Packs 64 digits at a time. The lanes equal to '1' form a mask with the
+   * first digit in the lowest bit, so the reversed masks, written big-endian,
+   * are the packed bytes.
+   */
+  @Override
+  void pack(byte[] digits, int from, byte[] packed, int offset, int n) {
+    int longs = n / 8;
+    for (int i = 0; i < longs; i++) {
+      int base = from + Long.SIZE * i;
+      long mask = 0;
+      for (int v = 0; v < VECTORS_PER_LONG; v++) {
+        mask |= ByteVector.fromArray(SPECIES, digits,
+                                     base + v * SPECIES.length())
+                          .eq(ONES).toLong() << (v * SPECIES.length());
+      }
+      LONGS.set(packed, offset + 8 * i, Long.reverse(mask));
+    }
+    super.pack(digits, from + Long.SIZE * longs, packed, offset + 8 * longs,
+               n - 8 * longs);
+  }
+
+  /**
+   * Expands 8 bytes at a time. Their bits, reversed into lane order, select
+   * between vectors of '0' and '1' digits.
+   */
+  @Override
+  void expand(byte[] packed, int from, byte[] digits, int offset, int n) {
+    int longs = n / 8;
+    for (int i = 0; i < longs; i++) {
+      long bits = Long.reverse((long) LONGS.get(packed, from + 8 * i));
+      int base = offset + Long.SIZE * i;
+      for (int v = 0; v < VECTORS_PER_LONG; v++) {
+        VectorMask<Byte> mask = VectorMask.fromLong(
+            SPECIES, bits >>> (v * SPECIES.length()));
+        ZEROS.blend(ONES, mask).intoArray(digits, base + v * SPECIES.length());
+      }
+    }
+    super.expand(packed, from + 8 * longs, digits, offset + Long.SIZE * longs,
+                 n - 8 * longs);
+  }
+}